@@ -0,0 +1,26 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// WordTokenizer sobre la entrada ya cargada en memoria, con las stopwords de WordCountJob: la
+// contraparte de StringTokenizerStage en TokenizerBenchmark
+public class ByteTokenizerStage implements Stage {
+
+    private byte[] input;
+    private long tokens;
+    private final WordTokenizer tokenizer = new WordTokenizer(WordCountJob.STOPWORD_BYTES, (token, length) -> tokens++);
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws IOException {
+        input = Files.readAllBytes(new File(inputFile).toPath());
+    }
+
+    @Override
+    public long run() throws IOException {
+        tokenizer.feed(input, 0, input.length);
+        tokenizer.finish();
+        return input.length;
+    }
+}
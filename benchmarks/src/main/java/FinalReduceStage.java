@@ -0,0 +1,32 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+import java.util.List;
+
+// Cada grupo tiene un solo archivo Reduce (un coordinador); en Main son dos, uno por coordinador
+public class FinalReduceStage implements Stage {
+
+    private String[][] reduceFileGroups;
+    private String outputFile;
+    private Job<?, ?> job;
+    private long inputLength;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws Exception {
+        this.job = Job.forName(jobName);
+        List<String> shuffleFiles = StageInputs.shuffle(StageInputs.map(StageInputs.split(inputFile, chunkSize, workDirectory), workDirectory, job), workDirectory);
+        List<String> reduceFiles = StageInputs.reduce(shuffleFiles, workDirectory, job);
+        this.reduceFileGroups = new String[reduceFiles.size()][];
+        for (int r = 0; r < reduceFiles.size(); r++) {
+            reduceFileGroups[r] = new String[] {reduceFiles.get(r)};
+        }
+        this.outputFile = new File(workDirectory, "final_result.txt").getPath();
+        this.inputLength = StageInputs.length(reduceFiles);
+    }
+
+    @Override
+    public long run() throws Exception {
+        new FinalReduceNode<>(reduceFileGroups, job, outputFile, true, false).combineReduceResults();
+        return inputLength;
+    }
+}
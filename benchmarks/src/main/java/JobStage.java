@@ -0,0 +1,41 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+
+// El trabajo completo con un solo coordinador, sin retomar tareas de la operación anterior
+public class JobStage implements Stage {
+
+    private String inputFile;
+    private int chunkSize;
+    private Job<?, ?> job;
+    private String outputFile;
+    private File workDirectory;
+    private long inputLength;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) {
+        this.inputFile = inputFile;
+        this.chunkSize = chunkSize;
+        this.job = Job.forName(jobName);
+        this.outputFile = new File(workDirectory, "final_result.txt").getPath();
+        this.workDirectory = workDirectory;
+        this.inputLength = new File(inputFile).length();
+    }
+
+    @Override
+    public long run() throws Exception {
+        Coordinator coordinator = StageInputs.newCoordinator(inputFile, chunkSize, workDirectory);
+        coordinator.setJob(job);
+        coordinator.setResume(false);
+        coordinator.setNumReduceNodes(StageInputs.NUM_REDUCE_NODES);
+        coordinator.startProcessing();
+        coordinator.execute();
+
+        String[][] reduceFileGroups = new String[StageInputs.NUM_REDUCE_NODES][];
+        for (int r = 0; r < StageInputs.NUM_REDUCE_NODES; r++) {
+            reduceFileGroups[r] = new String[] {coordinator.getOutputDirectory() + "reduce_" + (r + 1) + ".bin"};
+        }
+        new FinalReduceNode<>(reduceFileGroups, job, outputFile, true, false).combineReduceResults();
+        return inputLength;
+    }
+}
@@ -0,0 +1,29 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+import java.util.List;
+
+// Una tarea Map por split, una tras otra: mide lo que rinde un solo hilo
+public class MapStage implements Stage {
+
+    private List<InputSplit> splits;
+    private File workDirectory;
+    private Job<?, ?> job;
+    private long inputLength;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws Exception {
+        this.splits = StageInputs.split(inputFile, chunkSize, workDirectory);
+        this.workDirectory = workDirectory;
+        this.job = Job.forName(jobName);
+        this.inputLength = new File(inputFile).length();
+    }
+
+    @Override
+    public long run() throws Exception {
+        for (InputSplit split : splits) {
+            StageInputs.newMapNode(split, workDirectory, job).call();
+        }
+        return inputLength;
+    }
+}
@@ -0,0 +1,26 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+import java.util.List;
+
+public class ReduceStage implements Stage {
+
+    private List<String> shuffleFiles;
+    private File workDirectory;
+    private Job<?, ?> job;
+    private long inputLength;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws Exception {
+        this.job = Job.forName(jobName);
+        this.shuffleFiles = StageInputs.shuffle(StageInputs.map(StageInputs.split(inputFile, chunkSize, workDirectory), workDirectory, job), workDirectory);
+        this.workDirectory = workDirectory;
+        this.inputLength = StageInputs.length(shuffleFiles);
+    }
+
+    @Override
+    public long run() throws Exception {
+        StageInputs.reduce(shuffleFiles, workDirectory, job);
+        return inputLength;
+    }
+}
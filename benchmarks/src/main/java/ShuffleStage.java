@@ -0,0 +1,26 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+import java.util.List;
+
+public class ShuffleStage implements Stage {
+
+    private List<List<String>> partitions;
+    private File workDirectory;
+    private long inputLength;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws Exception {
+        this.partitions = StageInputs.map(StageInputs.split(inputFile, chunkSize, workDirectory), workDirectory, Job.forName(jobName));
+        this.workDirectory = workDirectory;
+        for (List<String> partition : partitions) {
+            inputLength += StageInputs.length(partition);
+        }
+    }
+
+    @Override
+    public long run() throws Exception {
+        StageInputs.shuffle(partitions, workDirectory);
+        return inputLength;
+    }
+}
@@ -0,0 +1,21 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.File;
+
+public class SplitStage implements Stage {
+
+    private Coordinator coordinator;
+    private long inputLength;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) {
+        coordinator = StageInputs.newCoordinator(inputFile, chunkSize, workDirectory);
+        inputLength = new File(inputFile).length();
+    }
+
+    @Override
+    public long run() throws Exception {
+        coordinator.split();
+        return inputLength;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Arma la entrada de cada fase ejecutando las anteriores una vez, con la misma configuración que
+// el Coordinator (4 particiones, 2 nodos Reduce, 64 MB de tabla por tarea Map)
+class StageInputs {
+
+    static final int NUM_PARTITIONS = 4;
+    static final int NUM_REDUCE_NODES = 2;
+    static final long TASK_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    static List<InputSplit> split(String inputFile, int chunkSize, File workDirectory) throws Exception {
+        return newCoordinator(inputFile, chunkSize, workDirectory).split();
+    }
+
+    // Un coordinador que cubre todo el archivo; escribe (si hace falta) en <workDirectory>/Bench/
+    static Coordinator newCoordinator(String inputFile, int chunkSize, File workDirectory) {
+        int numChunks = (int) ((new File(inputFile).length() + chunkSize - 1) / chunkSize);
+        Coordinator coordinator = new Coordinator("Bench", chunkSize, inputFile, "Bench/", numChunks, 0, 0, false, false, false, false);
+        coordinator.setBaseDirectory(workDirectory.getPath());
+        return coordinator;
+    }
+
+    static MapNode<?, ?> newMapNode(InputSplit split, File workDirectory, Job<?, ?> job) {
+        return new MapNode<>(Collections.singletonList(split), mapPrefix(workDirectory, split), NUM_PARTITIONS, job,
+                SplitReader.DEFAULT_MAPPING_WINDOW, TASK_MEMORY_BUDGET, "Bench", 0, false, false);
+    }
+
+    static String mapPrefix(File workDirectory, InputSplit split) {
+        return new File(workDirectory, "map_" + split.getName()).getPath();
+    }
+
+    // Devuelve, por partición, los archivos Map de todos los splits
+    static List<List<String>> map(List<InputSplit> splits, File workDirectory, Job<?, ?> job) throws Exception {
+        List<List<String>> partitions = new ArrayList<>();
+        for (int p = 0; p < NUM_PARTITIONS; p++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (InputSplit split : splits) {
+            newMapNode(split, workDirectory, job).call();
+            for (int p = 0; p < NUM_PARTITIONS; p++) {
+                partitions.get(p).add(MapNode.partitionFile(mapPrefix(workDirectory, split), p));
+            }
+        }
+        return partitions;
+    }
+
+    static String shuffleFile(File workDirectory, int partition) {
+        return new File(workDirectory, "shuffle_" + partition + ".bin").getPath();
+    }
+
+    static List<String> shuffle(List<List<String>> partitions, File workDirectory) throws Exception {
+        List<String> shuffleFiles = new ArrayList<>();
+        for (int p = 0; p < partitions.size(); p++) {
+            new ShuffleNode(partitions.get(p), shuffleFile(workDirectory, p), "Bench", p, false, false).call();
+            shuffleFiles.add(shuffleFile(workDirectory, p));
+        }
+        return shuffleFiles;
+    }
+
+    // Particiones contiguas de cada nodo Reduce, igual que en Coordinator.execute
+    static List<String> reduceInputs(List<String> shuffleFiles, int reduceNode) {
+        return shuffleFiles.subList(reduceNode * NUM_PARTITIONS / NUM_REDUCE_NODES, (reduceNode + 1) * NUM_PARTITIONS / NUM_REDUCE_NODES);
+    }
+
+    static String reduceFile(File workDirectory, int reduceNode) {
+        return new File(workDirectory, "reduce_" + (reduceNode + 1) + ".bin").getPath();
+    }
+
+    static List<String> reduce(List<String> shuffleFiles, File workDirectory, Job<?, ?> job) throws Exception {
+        List<String> reduceFiles = new ArrayList<>();
+        for (int r = 0; r < NUM_REDUCE_NODES; r++) {
+            new ReduceNode<>(reduceInputs(shuffleFiles, r), reduceFile(workDirectory, r), job, "Bench", r + 1, false).call();
+            reduceFiles.add(reduceFile(workDirectory, r));
+        }
+        return reduceFiles;
+    }
+
+    static long length(List<String> files) {
+        long length = 0;
+        for (String file : files) {
+            length += new File(file).length();
+        }
+        return length;
+    }
+}
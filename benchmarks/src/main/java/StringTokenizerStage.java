@@ -0,0 +1,36 @@
+import mapreduce.benchmarks.Stage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// El tokenizador original de MapNode: cada línea se decodifica a String, se limpia con replaceAll, se
+// pasa a minúsculas y se parte con split; las stopwords se buscan en un Set<String>. Solo se conserva
+// para compararlo con WordTokenizer en TokenizerBenchmark. La entrada se lee entera en setUp, así la
+// medición no incluye el disco.
+public class StringTokenizerStage implements Stage {
+
+    private byte[] input;
+    private long tokens;
+
+    @Override
+    public void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws IOException {
+        input = Files.readAllBytes(new File(inputFile).toPath());
+    }
+
+    @Override
+    public long run() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.replaceAll("[^a-zA-Z\\s]", "").toLowerCase();
+                for (String word : line.split("\\s+")) {
+                    if (!word.isEmpty() && !WordCountJob.STOPWORDS.contains(word)) {
+                        tokens++;
+                    }
+                }
+            }
+        }
+        return input.length;
+    }
+}
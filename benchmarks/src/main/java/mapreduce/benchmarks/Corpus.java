@@ -0,0 +1,105 @@
+package mapreduce.benchmarks;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+// Entrada sintética para los benchmarks, en la línea de archivo.py pero con tamaño y vocabulario
+// configurables: las palabras siguen una distribución de Zipf (pocas muy frecuentes y una cola larga),
+// como un texto real. Con -Dmapreduce.bench.source=<archivo> se repite ese archivo hasta el tamaño
+// pedido, igual que archivo.py.
+// Los archivos se guardan en -Dmapreduce.bench.dir (por defecto el temporal del sistema) y se reutilizan
+// entre forks y ejecuciones con los mismos parámetros.
+public class Corpus {
+
+    private static final long SEED = 42;
+    private static final int WORDS_PER_LINE = 12;
+
+    public static File get(long size, int vocabulary) throws IOException {
+        File directory = new File(System.getProperty("mapreduce.bench.dir", new File(System.getProperty("java.io.tmpdir"), "mapreduce-bench").getPath()));
+        directory.mkdirs();
+        String source = System.getProperty("mapreduce.bench.source");
+        String name = source != null
+                ? "corpus_" + size + "_" + new File(source).getName() + ".txt"
+                : "corpus_" + size + "_" + vocabulary + ".txt";
+        File file = new File(directory, name);
+        if (file.length() == size) {
+            return file;
+        }
+        File tmp = new File(directory, name + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), 1 << 20)) {
+            if (source != null) {
+                repeat(new File(source), size, out);
+            } else {
+                generate(size, vocabulary, out);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("No se pudo crear " + file);
+        }
+        return file;
+    }
+
+    private static void generate(long size, int vocabulary, OutputStream out) throws IOException {
+        Random random = new Random(SEED);
+        byte[][] words = vocabulary(vocabulary, random);
+
+        // Distribución acumulada de Zipf (s = 1): la palabra de rango r aparece con probabilidad ~ 1/r
+        double[] cumulative = new double[words.length];
+        double total = 0;
+        for (int r = 0; r < words.length; r++) {
+            total += 1.0 / (r + 1);
+            cumulative[r] = total;
+        }
+
+        long written = 0;
+        int column = 0;
+        while (written < size) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            byte[] word = words[index < 0 ? Math.min(-index - 1, words.length - 1) : index];
+            int length = (int) Math.min(word.length, size - written);
+            out.write(word, 0, length);
+            written += length;
+            if (written < size) {
+                out.write(++column % WORDS_PER_LINE == 0 ? '\n' : ' ');
+                written++;
+            }
+        }
+    }
+
+    // Palabras distintas de 2 a 10 letras minúsculas, con algunas acentuadas para ejercitar el UTF-8
+    private static byte[][] vocabulary(int size, Random random) {
+        String letters = "abcdefghijklmnopqrstuvwxyzáéíóúñ";
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < size) {
+            int length = 2 + random.nextInt(9);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                // Las letras acentuadas salen con menos frecuencia que las demás
+                int index = random.nextInt(8) == 0 ? random.nextInt(letters.length()) : random.nextInt(26);
+                word.append(letters.charAt(index));
+            }
+            words.add(word.toString());
+        }
+        byte[][] bytes = new byte[size][];
+        int i = 0;
+        for (String word : words) {
+            bytes[i++] = word.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static void repeat(File source, long size, OutputStream out) throws IOException {
+        byte[] content = Files.readAllBytes(source.toPath());
+        if (content.length == 0) {
+            throw new IOException(source + " está vacío");
+        }
+        long written = 0;
+        while (written < size) {
+            int length = (int) Math.min(content.length, size - written);
+            out.write(content, 0, length);
+            written += length;
+        }
+    }
+}
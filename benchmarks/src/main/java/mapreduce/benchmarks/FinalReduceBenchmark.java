@@ -0,0 +1,10 @@
+package mapreduce.benchmarks;
+
+// FinalReduceNode: mezcla de las salidas Reduce y exportación del resultado en texto.
+public class FinalReduceBenchmark extends StageBenchmark {
+
+    @Override
+    protected String stageClass() {
+        return "FinalReduceStage";
+    }
+}
@@ -0,0 +1,27 @@
+package mapreduce.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// El trabajo completo: un Coordinator (split, Map, Shuffle y Reduce solapados en el planificador)
+// más el Final Reduce. Reporta MB/s de entrada; la tasa de asignación sale del perfilador gc de JMH
+// (gc.alloc.rate y gc.alloc.rate.norm, bytes asignados por operación), que main() activa siempre:
+//
+//   java -cp benchmarks/target/benchmarks.jar mapreduce.benchmarks.JobBenchmark [-p sizeMB=256]
+public class JobBenchmark extends StageBenchmark {
+
+    @Override
+    protected String stageClass() {
+        return "JobStage";
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JobBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
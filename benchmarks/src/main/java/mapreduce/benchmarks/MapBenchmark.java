@@ -0,0 +1,10 @@
+package mapreduce.benchmarks;
+
+// MapNode: tokenización y agregación en la tabla (con volcados si no cabe), una tarea por split.
+public class MapBenchmark extends StageBenchmark {
+
+    @Override
+    protected String stageClass() {
+        return "MapStage";
+    }
+}
@@ -0,0 +1,10 @@
+package mapreduce.benchmarks;
+
+// ReduceNode: lectura de las salidas Shuffle, Reducer y escritura ordenada.
+public class ReduceBenchmark extends StageBenchmark {
+
+    @Override
+    protected String stageClass() {
+        return "ReduceStage";
+    }
+}
@@ -0,0 +1,10 @@
+package mapreduce.benchmarks;
+
+// ShuffleNode: mezcla k-way de las particiones Map de todos los splits.
+public class ShuffleBenchmark extends StageBenchmark {
+
+    @Override
+    protected String stageClass() {
+        return "ShuffleStage";
+    }
+}
@@ -0,0 +1,10 @@
+package mapreduce.benchmarks;
+
+// Coordinator.split: alinea los límites de los splits a espacios en blanco.
+public class SplitBenchmark extends StageBenchmark {
+
+    @Override
+    protected String stageClass() {
+        return "SplitStage";
+    }
+}
@@ -0,0 +1,20 @@
+package mapreduce.benchmarks;
+
+import java.io.File;
+
+// Una fase del pipeline preparada para medirse. JMH no acepta benchmarks en el paquete por defecto
+// y desde un paquete con nombre no se pueden usar las clases del motor (que están en el paquete por
+// defecto), así que cada fase se implementa en una clase sin paquete (SplitStage, MapStage, ...)
+// y los benchmarks la cargan por nombre y la usan a través de esta interfaz.
+public interface Stage {
+
+    // Prepara la entrada de la fase (p. ej. las salidas Map para medir el Shuffle); no se mide
+    void setUp(String inputFile, int chunkSize, String jobName, File workDirectory) throws Exception;
+
+    // Ejecuta la fase una vez y devuelve los bytes de entrada que procesó
+    long run() throws Exception;
+
+    static Stage load(String className) throws ReflectiveOperationException {
+        return (Stage) Class.forName(className).getDeclaredConstructor().newInstance();
+    }
+}
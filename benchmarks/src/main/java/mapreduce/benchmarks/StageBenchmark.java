@@ -0,0 +1,68 @@
+package mapreduce.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Base de los benchmarks por fase: genera (o reutiliza) el corpus, prepara la fase y la ejecuta en
+// cada operación. Cada fase procesa decenas de MB por operación, así que las iteraciones son largas
+// y hacen falta pocas.
+//
+//   -p sizeMB=256 -p vocabulary=1000000 -p job=bigrams -p chunkMB=32
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public abstract class StageBenchmark {
+
+    @Param("64")
+    public int sizeMB;
+
+    @Param("50000")
+    public int vocabulary;
+
+    @Param("wordcount")
+    public String job;
+
+    @Param("32")
+    public int chunkMB;
+
+    private Stage stage;
+    private File workDirectory;
+
+    // Nombre de la clase (sin paquete) que implementa la fase
+    protected abstract String stageClass();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File corpus = Corpus.get(sizeMB * 1000L * 1000, vocabulary);
+        workDirectory = Files.createTempDirectory("mapreduce-" + stageClass()).toFile();
+        stage = Stage.load(stageClass());
+        stage.setUp(corpus.getPath(), chunkMB * 1000 * 1000, job, workDirectory);
+    }
+
+    @Benchmark
+    public void run(Throughput throughput) throws Exception {
+        throughput.megabytes += stage.run() / 1e6;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(workDirectory);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
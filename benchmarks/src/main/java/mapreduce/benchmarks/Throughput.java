@@ -0,0 +1,21 @@
+package mapreduce.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Contador secundario de JMH: los MB de entrada procesados, que JMH reporta por segundo (MB/s)
+// junto al número de ejecuciones por segundo
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+    }
+}
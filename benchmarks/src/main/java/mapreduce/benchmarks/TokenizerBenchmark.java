@@ -0,0 +1,48 @@
+package mapreduce.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+// Solo la tokenización, sobre el mismo corpus: el camino original con String (replaceAll, toLowerCase
+// y split por línea) frente a WordTokenizer, que trabaja sobre los bytes sin crear objetos por palabra.
+// La diferencia de asignación por operación se ve con el perfilador gc:
+//
+//   java -jar benchmarks/target/benchmarks.jar Tokenizer -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TokenizerBenchmark {
+
+    @Param("64")
+    public int sizeMB;
+
+    @Param("50000")
+    public int vocabulary;
+
+    private Stage strings;
+    private Stage bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File corpus = Corpus.get(sizeMB * 1000L * 1000, vocabulary);
+        strings = Stage.load("StringTokenizerStage");
+        strings.setUp(corpus.getPath(), 0, "wordcount", null);
+        bytes = Stage.load("ByteTokenizerStage");
+        bytes.setUp(corpus.getPath(), 0, "wordcount", null);
+    }
+
+    @Benchmark
+    public void strings(Throughput throughput) throws Exception {
+        throughput.megabytes += strings.run() / 1e6;
+    }
+
+    @Benchmark
+    public void bytes(Throughput throughput) throws Exception {
+        throughput.megabytes += bytes.run() / 1e6;
+    }
+}
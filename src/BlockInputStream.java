@@ -0,0 +1,79 @@
+import java.io.*;
+
+// Lee lo que escribió BlockOutputStream: descomprime bloque por bloque y termina en la marca de fin
+// (lo que venga después en el flujo de abajo queda sin leer)
+public class BlockInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private final CompressionCodec codec;
+    private final byte[] block = new byte[BlockOutputStream.BLOCK_SIZE];
+    private final byte[] stored;
+    private int position;
+    private int limit;
+    private long bytesRead; // Bytes consumidos del flujo de abajo (comprimidos)
+    private boolean finished;
+
+    public BlockInputStream(InputStream in, CompressionCodec codec) {
+        this.in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+        this.codec = codec;
+        this.stored = new byte[codec.maxCompressedLength(BlockOutputStream.BLOCK_SIZE)];
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !nextBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == limit && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(length, limit - position);
+        System.arraycopy(block, position, bytes, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (finished) {
+            return false;
+        }
+        int rawLength = in.readInt();
+        int storedLength = in.readInt();
+        bytesRead += 8;
+        if (rawLength == 0) {
+            finished = true;
+            return false;
+        }
+        int length = Math.abs(storedLength);
+        if (rawLength < 0 || rawLength > block.length || length > stored.length || (storedLength < 0 && length != rawLength)) {
+            throw new IOException("Bloque comprimido inválido");
+        }
+        if (storedLength < 0) {
+            in.readFully(block, 0, rawLength);
+        } else {
+            in.readFully(stored, 0, length);
+            codec.decompress(stored, 0, length, block, 0, rawLength);
+        }
+        bytesRead += length;
+        position = 0;
+        limit = rawLength;
+        return true;
+    }
+}
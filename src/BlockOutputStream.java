@@ -0,0 +1,93 @@
+import java.io.*;
+
+// Escribe un flujo de bytes en bloques comprimidos independientes:
+//   bloque: <largo original:int> <largo guardado:int> <bytes>   (largo guardado negativo = bloque sin comprimir,
+//           cuando comprimirlo no ahorra nada)
+//   fin:    <0:int> <0:int>
+// Al no depender un bloque de los anteriores, un lector puede empezar en cualquier límite de bloque.
+public class BlockOutputStream extends OutputStream {
+
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final CompressionCodec codec;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] frame;
+    private int position;
+    private boolean finished;
+
+    public BlockOutputStream(OutputStream out, CompressionCodec codec) {
+        this.out = out;
+        this.codec = codec;
+        this.frame = new byte[8 + codec.maxCompressedLength(BLOCK_SIZE)];
+    }
+
+    // Arma el marco de un bloque en `frame` (que debe tener 8 + maxCompressedLength bytes) y devuelve su largo
+    public static int encodeBlock(CompressionCodec codec, byte[] raw, int offset, int length, byte[] frame) {
+        int stored = codec.compress(raw, offset, length, frame, 8);
+        if (stored >= length) {
+            System.arraycopy(raw, offset, frame, 8, length);
+            stored = -length;
+        }
+        writeInt(frame, 0, length);
+        writeInt(frame, 4, stored);
+        return 8 + Math.abs(stored);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position == block.length) {
+            writeBlock();
+        }
+        block[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == block.length) {
+                writeBlock();
+            }
+            int n = Math.min(length, block.length - position);
+            System.arraycopy(bytes, offset, block, position, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // Escribe el último bloque y la marca de fin, sin cerrar el flujo de abajo
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        writeBlock();
+        out.write(new byte[8]);
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        out.write(frame, 0, encodeBlock(codec, block, 0, position, frame));
+        position = 0;
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Filtro de Bloom sobre el hash de 64 bits de cada clave: si dice que una clave no está, no está;
+// si dice que está, puede equivocarse con probabilidad ~0,6185^(bits por clave). Los `numHashes`
+// bits salen de las dos mitades del hash (h1 + i * h2). Los bits se leen directamente de un
+// ByteBuffer, así ResultStore lo consulta sobre el archivo mapeado sin copiarlo.
+public class BloomFilter {
+
+    private final int numHashes;
+    private final long numBits;
+    private final ByteBuffer bits; // Longs big-endian
+    private final int bitsOffset;
+
+    private BloomFilter(int numHashes, ByteBuffer bits, int bitsOffset, int numLongs) {
+        this.numHashes = numHashes;
+        this.numBits = (long) numLongs * 64;
+        this.bits = bits;
+        this.bitsOffset = bitsOffset;
+    }
+
+    public static BloomFilter create(long expectedKeys, int bitsPerKey) {
+        int numLongs = (int) Math.max(1, (expectedKeys * bitsPerKey + 63) / 64);
+        int numHashes = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+        return new BloomFilter(numHashes, ByteBuffer.allocate(numLongs * 8), 0, numLongs);
+    }
+
+    // Filtro escrito con writeTo que empieza en `offset` dentro de `buffer`
+    public static BloomFilter read(ByteBuffer buffer, int offset) {
+        return new BloomFilter(buffer.getInt(offset), buffer, offset + 8, buffer.getInt(offset + 4));
+    }
+
+    public void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod((long) h1 + (long) i * h2, numBits);
+            int index = bitsOffset + (int) (bit >>> 6) * 8;
+            bits.putLong(index, bits.getLong(index) | (1L << (bit & 63)));
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod((long) h1 + (long) i * h2, numBits);
+            if ((bits.getLong(bitsOffset + (int) (bit >>> 6) * 8) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(numHashes);
+        out.writeInt((int) (numBits / 64));
+        out.write(bits.array(), bitsOffset, (int) (numBits / 8));
+    }
+}
@@ -0,0 +1,47 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+// Conjunto de palabras de solo lectura que se consulta con un rango de bytes,
+// para descartar stopwords sin crear un String por cada palabra rechazada.
+public class ByteStringSet {
+
+    private final byte[][] slots;
+    private final int mask;
+
+    public ByteStringSet(Collection<String> words) {
+        int capacity = Integer.highestOneBit(Math.max(words.size(), 1) * 4 - 1) << 1;
+        this.slots = new byte[capacity][];
+        this.mask = capacity - 1;
+        for (String word : words) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            if (!contains(bytes, bytes.length)) {
+                int slot = hash(bytes, bytes.length) & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = bytes;
+            }
+        }
+    }
+
+    public boolean contains(byte[] bytes, int length) {
+        int slot = hash(bytes, length) & mask;
+        byte[] candidate;
+        while ((candidate = slots[slot]) != null) {
+            if (candidate.length == length && Arrays.equals(candidate, 0, length, bytes, 0, length)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static int hash(byte[] bytes, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,458 @@
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Coordinador del modo multiproceso: en lugar de correr los nodos como hilos de esta JVM, reparte las
+// tareas entre procesos WorkerMain (en esta máquina o en otras) que se conectan por socket.
+//  - Cada worker se registra, manda latidos y pide tareas de a una (ver ClusterProtocol).
+//  - Primero se reparten los Map (uno por split); los Reduce se entregan cuando todos los Map están
+//    confirmados, con la ubicación (worker y archivo) de cada partición que tienen que descargar.
+//  - Un worker que deja de mandar latidos o cierra la conexión se da por caído: sus tareas en curso vuelven
+//    a la cola y también sus Map ya terminados, porque sus salidas vivían en ese proceso.
+//  - La salida de cada Reduce se descarga apenas termina a `outputDirectory`/reduce_N.bin, así la caída
+//    posterior de ese worker ya no importa; FinalReduceNode combina esos archivos como siempre. La descarga
+//    corre en otro hilo: el DONE se responde enseguida para no frenar los latidos del worker, que comparten
+//    la conexión de control.
+public class ClusterCoordinator {
+
+    private static final long WAIT_MILLIS = 200;
+
+    private final String filePath;
+    private final int chunkSize;
+    private final long startOffset;
+    private final String outputDirectory;
+    private final int numPartitions;
+    private final int numReduceNodes;
+    private final String jobName;
+    private int port;
+    private long heartbeatTimeout;
+    private long workerWaitTimeout; // Tiempo máximo sin ningún worker vivo antes de abortar
+
+    private final Map<String, Worker> workers = new LinkedHashMap<>();
+    private final Deque<Task> pending = new ArrayDeque<>();
+    private final List<Task> mapTasks = new ArrayList<>();
+    private final List<Task> reduceTasks = new ArrayList<>();
+    private final List<Process> localWorkers = new ArrayList<>();
+    private final ShuffleFetcher fetcher = WorkerMain.newFetcher();
+    private final ExecutorService outputFetches = Executors.newFixedThreadPool(Integer.getInteger("mapreduce.shuffle.parallelFetches", 4), runnable -> {
+        Thread thread = new Thread(runnable, "cluster-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocket server;
+    private int nextWorkerId = 1;
+    private long lastWorkerSeen;
+    private String failure;
+    private boolean finished;
+
+    // Tarea Map o Reduce. Un Map terminado recuerda en qué worker quedaron sus particiones.
+    private static class Task {
+        final String id;
+        final boolean map;
+        final InputSplit split;  // Solo Map
+        final int reduceIndex;   // Solo Reduce
+        int attempt;
+        Worker runningOn;
+        Worker outputOn;
+        List<String> outputFiles;
+        boolean done;
+
+        Task(String id, InputSplit split, int reduceIndex) {
+            this.id = id;
+            this.map = split != null;
+            this.split = split;
+            this.reduceIndex = reduceIndex;
+        }
+    }
+
+    private static class Worker {
+        final String id;
+        final String host;
+        final int fetchPort;
+        final Socket control;
+        volatile long lastHeartbeat = System.currentTimeMillis();
+        boolean alive = true;
+
+        Worker(String id, String host, int fetchPort, Socket control) {
+            this.id = id;
+            this.host = host;
+            this.fetchPort = fetchPort;
+            this.control = control;
+        }
+    }
+
+    public ClusterCoordinator(String filePath, int chunkSize, long startOffset, String outputDirectory, int numPartitions, int numReduceNodes, String jobName) {
+        this.filePath = filePath;
+        this.chunkSize = chunkSize;
+        this.startOffset = startOffset;
+        this.outputDirectory = outputDirectory;
+        this.numPartitions = numPartitions;
+        this.numReduceNodes = numReduceNodes;
+        this.jobName = jobName;
+        this.port = 0;
+        this.heartbeatTimeout = 5000;
+        this.workerWaitTimeout = 30000;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setHeartbeatTimeout(long heartbeatTimeout) {
+        this.heartbeatTimeout = heartbeatTimeout;
+    }
+
+    public void setWorkerWaitTimeout(long workerWaitTimeout) {
+        this.workerWaitTimeout = workerWaitTimeout;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    // Parte la entrada en splits (alineados a espacios en blanco, como Coordinator.split) y empieza a aceptar workers
+    public void start() throws IOException {
+        File directory = new File(outputDirectory);
+        directory.mkdirs();
+        File[] oldFiles = directory.listFiles();
+        if (oldFiles != null) {
+            for (File file : oldFiles) {
+                file.delete();
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
+            long fileLength = raf.length();
+            long start = InputSplit.alignToBoundary(raf, startOffset);
+            for (int index = 0; start < fileLength; index++) {
+                long end = Math.max(start, InputSplit.alignToBoundary(raf, startOffset + (long) (index + 1) * chunkSize));
+                Task task = new Task("map_chunk_" + index, new InputSplit(filePath, start, end - start, index), -1);
+                mapTasks.add(task);
+                pending.add(task);
+                start = end;
+            }
+        }
+        for (int r = 0; r < numReduceNodes; r++) {
+            Task task = new Task("reduce_" + (r + 1), null, r);
+            reduceTasks.add(task);
+            pending.add(task);
+        }
+        finished = mapTasks.isEmpty();
+
+        server = new ServerSocket(port);
+        lastWorkerSeen = System.currentTimeMillis();
+        Thread acceptThread = new Thread(this::acceptWorkers, "cluster-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        Thread monitorThread = new Thread(this::monitorHeartbeats, "cluster-monitor");
+        monitorThread.setDaemon(true);
+        monitorThread.start();
+        Log.info("Info: Coordinador multiproceso escuchando en el puerto " + getPort() + " (" + mapTasks.size() + " tareas Map, "
+                + numReduceNodes + " tareas Reduce).");
+    }
+
+    // Lanza `count` workers como procesos hijos de esta máquina; `crashFirst` hace que el primero se caiga tras su primera tarea
+    public void launchLocalWorkers(int count, boolean crashFirst) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        for (int i = 0; i < count; i++) {
+            List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"), "-Dfile.encoding=UTF-8"));
+            // Los workers heredan la compresión y la configuración del Shuffle (descargas en paralelo)
+            for (String property : System.getProperties().stringPropertyNames()) {
+                if (property.startsWith("mapreduce.shuffle.") || property.equals("mapreduce.compression")) {
+                    command.add("-D" + property + "=" + System.getProperty(property));
+                }
+            }
+            if (crashFirst && i == 0) {
+                command.add("-Dmapreduce.worker.crashAfterTasks=1");
+            }
+            command.add("WorkerMain");
+            command.add("127.0.0.1:" + getPort());
+            localWorkers.add(new ProcessBuilder(command).inheritIO().start());
+        }
+    }
+
+    // Espera a que todas las tareas Reduce estén descargadas; devuelve reduce_N.bin en orden de partición
+    public synchronized List<String> awaitCompletion() throws InterruptedException, IOException {
+        while (!finished && failure == null) {
+            wait(WAIT_MILLIS);
+            if (workers.values().stream().anyMatch(worker -> worker.alive)) {
+                lastWorkerSeen = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastWorkerSeen > workerWaitTimeout) {
+                failure = "No hay workers vivos desde hace " + workerWaitTimeout + " ms";
+            }
+        }
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        List<String> reduceFiles = new ArrayList<>();
+        for (Task task : reduceTasks) {
+            reduceFiles.add(reduceFile(task));
+        }
+        return reduceFiles;
+    }
+
+    // Los workers que sigan conectados reciben EXIT en su próximo PULL
+    public void shutdown() throws IOException, InterruptedException {
+        synchronized (this) {
+            finished = true;
+        }
+        for (Process process : localWorkers) {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+        server.close();
+        outputFetches.shutdownNow();
+    }
+
+    private String reduceFile(Task task) {
+        return new File(outputDirectory, "reduce_" + (task.reduceIndex + 1) + ".bin").getPath();
+    }
+
+    private void acceptWorkers() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> handleWorker(socket), "cluster-worker");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                // Servidor cerrado
+            }
+        }
+    }
+
+    // Atiende la conexión de control de un worker hasta que se cierra
+    private void handleWorker(Socket socket) {
+        Worker worker = null;
+        try (Socket control = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(control.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(control.getOutputStream()));
+            String[] register = ClusterProtocol.receive(in);
+            if (!register[0].equals("REGISTER")) {
+                return;
+            }
+            synchronized (this) {
+                worker = new Worker(String.valueOf(nextWorkerId++), register[1], Integer.parseInt(register[2]), control);
+                workers.put(worker.id, worker);
+            }
+            Log.info("Info: Worker " + worker.id + " registrado (" + worker.host + ":" + worker.fetchPort + ").");
+            ClusterProtocol.send(out, "OK", worker.id);
+
+            while (true) {
+                String[] request = ClusterProtocol.receive(in);
+                worker.lastHeartbeat = System.currentTimeMillis();
+                switch (request[0]) {
+                    case "HEARTBEAT":
+                        ClusterProtocol.send(out, "OK");
+                        break;
+                    case "PULL":
+                        ClusterProtocol.send(out, assign(worker));
+                        break;
+                    case "DONE":
+                        completed(worker, request);
+                        ClusterProtocol.send(out, "OK");
+                        break;
+                    case "FAILED":
+                        failed(worker, request);
+                        ClusterProtocol.send(out, "OK");
+                        break;
+                    default:
+                        throw new IOException("Mensaje desconocido: " + request[0]);
+                }
+            }
+        } catch (IOException e) {
+            if (worker != null) {
+                workerLost(worker, e instanceof EOFException ? "cerró la conexión" : "conexión perdida (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    // Siguiente tarea para `worker`: Map pendientes primero; los Reduce solo cuando todos los Map están confirmados
+    private synchronized String[] assign(Worker worker) {
+        if (!worker.alive || finished || failure != null) {
+            return new String[]{"EXIT"};
+        }
+        Task task = null;
+        for (Iterator<Task> it = pending.iterator(); it.hasNext(); ) {
+            Task candidate = it.next();
+            if (candidate.map || mapTasks.stream().allMatch(map -> map.done)) {
+                task = candidate;
+                it.remove();
+                break;
+            }
+        }
+        if (task == null) {
+            return new String[]{"WAIT", String.valueOf(WAIT_MILLIS)};
+        }
+        task.attempt++;
+        task.runningOn = worker;
+        Log.debug((task.map ? "MAP " : "REDUCE ") + task.id + " (intento " + task.attempt + ") asignado al worker " + worker.id);
+        if (task.map) {
+            InputSplit split = task.split;
+            return new String[]{"MAP", task.id, String.valueOf(task.attempt), jobName, split.getFilePath(), String.valueOf(split.getStart()),
+                    String.valueOf(split.getLength()), String.valueOf(split.getIndex()), String.valueOf(numPartitions)};
+        }
+        // Cada Reduce es dueño de un rango contiguo de particiones, igual que en Coordinator
+        int fromPartition = task.reduceIndex * numPartitions / numReduceNodes;
+        int toPartition = (task.reduceIndex + 1) * numPartitions / numReduceNodes;
+        List<String> message = new ArrayList<>(Arrays.asList("REDUCE", task.id, String.valueOf(task.attempt), jobName, "0"));
+        for (Task map : mapTasks) {
+            for (int p = fromPartition; p < toPartition; p++) {
+                message.add(map.outputOn.host);
+                message.add(String.valueOf(map.outputOn.fetchPort));
+                message.add(map.outputFiles.get(p));
+            }
+        }
+        message.set(4, String.valueOf((message.size() - 5) / 3));
+        return message.toArray(new String[0]);
+    }
+
+    // DONE <id> <tarea> <intento> <resultado> <archivo>*
+    private void completed(Worker worker, String[] request) {
+        Task task = findRunning(worker, request[2], Integer.parseInt(request[3]));
+        if (task == null) {
+            return; // Intento viejo (la tarea ya se había reasignado)
+        }
+        int attempt = Integer.parseInt(request[3]);
+        List<String> files = new ArrayList<>(Arrays.asList(request).subList(5, request.length));
+        if (task.map) {
+            confirm(worker, task, attempt, files, request[4]);
+            return;
+        }
+        // La salida Reduce se trae ya: si el worker se cae después, no hay que repetir nada. Mientras dura la
+        // descarga la tarea sigue en curso en ese worker; si se cae antes de terminarla, workerLost la reasigna.
+        outputFetches.execute(() -> {
+            try {
+                fetcher.fetch(new ShuffleFetcher.Source(worker.host, worker.fetchPort, files.get(0), reduceFile(task)));
+            } catch (IOException e) {
+                Log.error("No se pudo descargar la salida de " + task.id + " del worker " + worker.id + ": " + e.getMessage());
+                synchronized (this) {
+                    if (task.runningOn == worker && task.attempt == attempt) {
+                        requeue(task);
+                    }
+                }
+                return;
+            }
+            confirm(worker, task, attempt, files, request[4]);
+        });
+    }
+
+    private synchronized void confirm(Worker worker, Task task, int attempt, List<String> files, String result) {
+        if (task.runningOn != worker || task.attempt != attempt) {
+            return;
+        }
+        task.runningOn = null;
+        task.done = true;
+        task.outputOn = worker;
+        task.outputFiles = files;
+        Log.debug(task.id + " confirmado por el worker " + worker.id + " (" + result + " claves distintas).");
+        if (reduceTasks.stream().allMatch(reduce -> reduce.done)) {
+            finished = true;
+            Log.progress("Fase Reduce completada en el modo multiproceso.");
+        }
+        notifyAll();
+    }
+
+    // FAILED <id> <tarea> <intento> <mensaje>. Si un Reduce no pudo descargar una partición, el worker que
+    // la tenía se da por caído: sus Map se rehacen antes de volver a intentar el Reduce.
+    private void failed(Worker worker, String[] request) {
+        Task task = findRunning(worker, request[2], Integer.parseInt(request[3]));
+        if (task == null) {
+            return;
+        }
+        Log.error(task.id + " falló en el worker " + worker.id + ": " + request[4]);
+        Worker source = null;
+        if (request[4].startsWith("FETCH ")) {
+            String address = request[4].split(" ")[1];
+            synchronized (this) {
+                for (Worker candidate : workers.values()) {
+                    if (address.equals(candidate.host + ":" + candidate.fetchPort)) {
+                        source = candidate;
+                    }
+                }
+            }
+        }
+        synchronized (this) {
+            if (task.attempt >= 5) {
+                failure = task.id + " falló " + task.attempt + " veces: " + request[4];
+                notifyAll();
+                return;
+            }
+            requeue(task);
+        }
+        if (source != null) {
+            workerLost(source, "sus salidas Map no se pueden descargar");
+        }
+    }
+
+    private synchronized Task findRunning(Worker worker, String taskId, int attempt) {
+        for (Task task : taskId.startsWith("map_") ? mapTasks : reduceTasks) {
+            if (task.id.equals(taskId) && task.attempt == attempt && task.runningOn == worker) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void requeue(Task task) {
+        task.runningOn = null;
+        task.done = false;
+        task.outputOn = null;
+        task.outputFiles = null;
+        pending.addFirst(task);
+    }
+
+    // Detección de fallos por latidos: un worker colgado (sin cerrar la conexión) también se da por caído
+    private void monitorHeartbeats() {
+        while (!server.isClosed()) {
+            try {
+                Thread.sleep(heartbeatTimeout / 4);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Worker> silent = new ArrayList<>();
+            synchronized (this) {
+                for (Worker worker : workers.values()) {
+                    if (worker.alive && System.currentTimeMillis() - worker.lastHeartbeat > heartbeatTimeout) {
+                        silent.add(worker);
+                    }
+                }
+            }
+            for (Worker worker : silent) {
+                workerLost(worker, "sin latidos desde hace " + heartbeatTimeout + " ms");
+            }
+        }
+    }
+
+    private void workerLost(Worker worker, String reason) {
+        synchronized (this) {
+            if (!worker.alive) {
+                return;
+            }
+            worker.alive = false;
+            if (finished) {
+                return;
+            }
+            Log.error("Worker " + worker.id + " caído: " + reason + ". Reasignando sus tareas...");
+            for (Task task : mapTasks) {
+                // Un Map terminado también se pierde: sus particiones vivían en ese worker
+                if (task.runningOn == worker || task.outputOn == worker) {
+                    pending.remove(task);
+                    requeue(task);
+                }
+            }
+            for (Task task : reduceTasks) {
+                if (task.runningOn == worker) {
+                    requeue(task);
+                }
+            }
+            notifyAll();
+        }
+        try {
+            worker.control.close();
+        } catch (IOException e) {
+            // Ya estaba cerrada
+        }
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.*;
+
+// Protocolo entre el coordinador del modo multiproceso y sus workers (procesos JVM aparte).
+// Cada mensaje es una lista de campos de texto: el número de campos y cada campo con writeUTF.
+// El worker abre una sola conexión de control y hace peticiones de a una (petición, respuesta):
+//
+//   REGISTER <host> <puerto de descarga>           -> OK <id del worker>
+//   HEARTBEAT <id>                                 -> OK
+//   PULL <id>                                      -> MAP <tarea> <intento> <trabajo> <entrada> <inicio> <largo> <chunk> <particiones>
+//                                                   | REDUCE <tarea> <intento> <trabajo> <n> (<host> <puerto> <archivo>)*n
+//                                                   | WAIT <ms> | EXIT
+//   DONE <id> <tarea> <intento> <resultado> <archivo>*  -> OK
+//   FAILED <id> <tarea> <intento> <mensaje>         -> OK
+//
+// Además cada worker sirve sus archivos de salida con ShuffleServer. Así los Reduce traen las
+// particiones Map directamente de quien las produjo, sin carpeta compartida.
+public class ClusterProtocol {
+
+    public static final int CONNECT_TIMEOUT = 5000;
+
+    public static void send(DataOutputStream out, String... fields) throws IOException {
+        out.writeInt(fields.length);
+        for (String field : fields) {
+            out.writeUTF(field);
+        }
+        out.flush();
+    }
+
+    public static String[] receive(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > 1 << 16) {
+            throw new IOException("Mensaje inválido (" + count + " campos)");
+        }
+        String[] fields = new String[count];
+        for (int i = 0; i < count; i++) {
+            fields[i] = in.readUTF();
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,6 @@
+// Combina en el nodo Map los valores parciales de una misma clave antes de escribirlos,
+// así se emite un solo registro por clave distinta en lugar de uno por ocurrencia.
+// Puede devolver `accumulated` modificado en lugar de crear un valor nuevo.
+public interface Combiner<V> {
+    V combine(V accumulated, V value);
+}
@@ -0,0 +1,42 @@
+import java.io.IOException;
+
+// Compresión de un bloque de bytes. La usan los archivos intermedios (BlockOutputStream /
+// BlockInputStream), los chunks materializados y las descargas del Shuffle. Cada bloque se comprime
+// por separado, así se puede descomprimir cualquiera sin leer los anteriores.
+public interface CompressionCodec {
+
+    String getName();
+
+    // Identificador que se guarda en los archivos y viaja en las descargas (0 = sin compresión)
+    byte getId();
+
+    // Tamaño máximo de la salida de compress() para `rawLength` bytes
+    int maxCompressedLength(int rawLength);
+
+    // Devuelve el largo comprimido escrito en `out` desde `outOffset`
+    int compress(byte[] raw, int offset, int length, byte[] out, int outOffset);
+
+    // Descomprime exactamente `rawLength` bytes en `raw` desde `rawOffset`
+    void decompress(byte[] in, int offset, int length, byte[] raw, int rawOffset, int rawLength) throws IOException;
+
+    CompressionCodec DEFLATE = new DeflateCodec();
+
+    // "none" (o null) = sin compresión
+    static CompressionCodec forName(String name) {
+        if (name == null || name.equals("none")) {
+            return null;
+        } else if (name.equals(DEFLATE.getName())) {
+            return DEFLATE;
+        }
+        throw new IllegalArgumentException("Compresión desconocida: " + name + " (opciones: none, deflate)");
+    }
+
+    static CompressionCodec forId(int id) throws IOException {
+        if (id == 0) {
+            return null;
+        } else if (id == DEFLATE.getId()) {
+            return DEFLATE;
+        }
+        throw new IOException("Compresión desconocida (id " + id + ")");
+    }
+}
@@ -1,6 +1,7 @@
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 public class Coordinator {
 
@@ -9,9 +10,23 @@ public class Coordinator {
     private int chunkSize;
     private String filePath;
     private String outputFilePath;
+    private String outputFolder; // Subcarpeta del coordinador dentro del directorio base
     private int numChunks;
     private long startOffset;
     private int startChunkIndex;
+    private int numPartitions; // Número de particiones por hash de la salida Map (una por nodo Shuffle)
+    private Job<?, ?> job; // Qué calcula el MapReduce (conteo de palabras por defecto)
+    private boolean materializeChunks; // true = copia cada split a chunk_N.txt; false = el Map lee el rango del archivo original
+    private CompressionCodec compression; // Compresión de los chunks materializados y de los archivos Map/Shuffle/Reduce (null = ninguna)
+    private long mappingWindow; // Splits de hasta este tamaño se leen con mmap en el nodo Map
+    private long taskMemoryBudget; // Memoria máxima de la tabla de cada tarea Map antes de volcar a disco
+    private int numReduceNodes; // Cada nodo Reduce recibe un rango contiguo de particiones y escribe reduce_N.bin
+    private TaskScheduler scheduler; // Planificador compartido; si no se asigna, el coordinador usa uno propio
+    private boolean speculativeExecution; // true = lanza copias de respaldo de las tareas Map/Reduce rezagadas
+    private boolean resume; // true = retoma las tareas ya confirmadas en el manifiesto en lugar de borrar todo
+    private JobManifest manifest;
+    private JobMetrics metrics; // Contadores de cada intento de tarea para el informe del trabajo
+    private SketchSpec approximate; // Modo aproximado: cada Map resume su chunk en un sketch (null = conteo exacto)
 
     private boolean induceCoordinatorError;
     private boolean induceMapError;
@@ -22,13 +37,18 @@ public class Coordinator {
     private List<Boolean> activeNodesMap;
     private List<Boolean> activeNodesShuffle;
 
+    // Seguimiento de tareas en curso para la ejecución especulativa
+    private Speculator mapSpeculator;
+    private Speculator reduceSpeculator;
+
     // Constructor con `startChunkIndex` para manejar la numeración continua de los chunks
     public Coordinator(String coordinatorId, int chunkSize, String filePath, String outputFolder, int numChunks, long startOffset, int startChunkIndex, boolean induceCoordinatorError, boolean induceMapError, boolean induceShuffleError, boolean induceReduceError) {
         this.coordinatorId = coordinatorId;
         this.resultsMap = new TreeMap<>();
         this.chunkSize = chunkSize;
         this.filePath = filePath;
-        this.outputFilePath = "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/" + outputFolder;
+        this.outputFolder = outputFolder;
+        this.outputFilePath = defaultBaseDirectory() + outputFolder;
         this.numChunks = numChunks;
         this.startOffset = startOffset;
         this.startChunkIndex = startChunkIndex;
@@ -36,10 +56,78 @@ public class Coordinator {
         this.induceMapError = induceMapError;
         this.induceShuffleError = induceShuffleError;
         this.induceReduceError = induceReduceError;
+        this.numPartitions = 4;
+        this.job = new WordCountJob();
+        this.mappingWindow = SplitReader.DEFAULT_MAPPING_WINDOW;
+        this.taskMemoryBudget = 64L * 1024 * 1024;
+        this.numReduceNodes = 2;
+        this.speculativeExecution = true;
+        this.resume = true;
+        this.metrics = new JobMetrics(coordinatorId);
+    }
+
+    // Directorio donde cada coordinador crea su carpeta: -Dmapreduce.chunks.dir, o Files/Chunks/ por defecto
+    public static String defaultBaseDirectory() {
+        return withSeparator(System.getProperty("mapreduce.chunks.dir", "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/"));
+    }
+
+    // Cambia el directorio base solo para este coordinador (p. ej. el directorio temporal de un benchmark)
+    public void setBaseDirectory(String baseDirectory) {
+        this.outputFilePath = withSeparator(baseDirectory) + outputFolder;
+    }
+
+    private static String withSeparator(String directory) {
+        return directory.endsWith(File.separator) ? directory : directory + File.separator;
+    }
+
+    // Carpeta con los archivos intermedios y los reduce_N.bin de este coordinador (termina en separador)
+    public String getOutputDirectory() {
+        return outputFilePath;
+    }
+
+    public void setJob(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public void setMaterializeChunks(boolean materializeChunks) {
+        this.materializeChunks = materializeChunks;
+    }
+
+    public void setCompression(CompressionCodec compression) {
+        this.compression = compression;
+    }
+
+    public void setMappingWindow(long mappingWindow) {
+        this.mappingWindow = mappingWindow;
+    }
+
+    public void setTaskMemoryBudget(long taskMemoryBudget) {
+        this.taskMemoryBudget = taskMemoryBudget;
+    }
+
+    public void setNumReduceNodes(int numReduceNodes) {
+        this.numReduceNodes = numReduceNodes;
+    }
+
+    public void setSpeculativeExecution(boolean speculativeExecution) {
+        this.speculativeExecution = speculativeExecution;
+    }
 
-        // Inicializamos los nodos como activos
-        this.activeNodesMap = new ArrayList<>(Collections.nCopies(4, true)); // 4 nodos de Map
-        this.activeNodesShuffle = new ArrayList<>(Collections.nCopies(4, true)); // 4 nodos de Shuffle
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    // Varios coordinadores del mismo trabajo comparten las métricas (un solo informe)
+    public void setMetrics(JobMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setApproximate(SketchSpec approximate) {
+        this.approximate = approximate;
+    }
+
+    public void setScheduler(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
     }
 
     public boolean isCoordinatorError() {
@@ -47,9 +135,36 @@ public class Coordinator {
     }
 
     public void startProcessing() throws InterruptedException, ExecutionException, IOException {
-        deleteDirectory(new File(outputFilePath));
-        System.out.println("\u001B[34mInfo: Carpeta 'Chunks' para " + outputFilePath + " borrada. Procesando...\u001B[0m");
-        Thread.sleep(2000);
+        File directory = new File(outputFilePath);
+        if (!resume) {
+            deleteDirectory(directory);
+        }
+        directory.mkdirs();
+
+        // Si el manifiesto es de otro trabajo (otra entrada o configuración) se abre vacío y se borra todo
+        manifest = JobManifest.open(outputFilePath, jobKey());
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                // Lo que no está en el manifiesto quedó de un intento sin confirmar
+                if (!manifest.isCommittedFile(file.getName())) {
+                    deleteDirectory(file);
+                }
+            }
+        }
+        if (manifest.committedTaskCount() > 0) {
+            Log.info("Info: Retomando " + coordinatorId + " con " + manifest.committedTaskCount() + " tareas ya confirmadas en " + outputFilePath + ". Procesando...");
+        } else {
+            Log.info("Info: Carpeta 'Chunks' para " + outputFilePath + " borrada. Procesando...");
+        }
+    }
+
+    // Todo lo que determina la salida; si algo cambia, las tareas confirmadas de una ejecución anterior no sirven
+    private String jobKey() {
+        File input = new File(filePath);
+        return filePath + " " + input.length() + " " + input.lastModified() + " " + chunkSize + " " + numChunks + " " + startOffset + " " + startChunkIndex
+                + " " + numPartitions + " " + numReduceNodes + " " + job.getClass().getName() + " " + (compression == null ? "none" : compression.getName())
+                + (approximate == null ? "" : " approximate " + approximate);
     }
 
     private boolean deleteDirectory(File dir) {
@@ -66,234 +181,640 @@ public class Coordinator {
         return dir.delete();
     }
 
-    // Método para dividir el archivo en chunks y asegurar la numeración continua
-    public List<String> split() {
-        List<String> chunks = new ArrayList<>();
+    // Método para dividir el archivo en splits y asegurar la numeración continua
+    // Cada límite se mueve al siguiente espacio en blanco para no cortar palabras ni caracteres UTF-8.
+    // Como ambos coordinadores alinean igual, el final de uno coincide con el inicio del otro.
+    public List<InputSplit> split() throws IOException {
+        List<InputSplit> chunks = new ArrayList<>();
+        split(chunks::add);
+        return chunks;
+    }
+
+    // Igual que split(), pero entrega cada split en cuanto está listo para que su Map pueda empezar
+    public void split(Consumer<InputSplit> onSplit) throws IOException {
         File directory = new File(outputFilePath);
         if (!directory.exists()) {
             directory.mkdirs();
         }
 
         try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
-            raf.seek(startOffset); // Empieza desde el offset especificado
-
-            byte[] buffer = new byte[chunkSize];
-            int bytesRead;
-            int chunkCount = startChunkIndex; // Empezamos la numeración desde `startChunkIndex`
-
-            while ((bytesRead = raf.read(buffer)) != -1 && chunkCount < startChunkIndex + numChunks) {
-                String chunkFileName = outputFilePath + "chunk_" + chunkCount + ".txt"; // Usa `chunkCount` para numerar los chunks
-                try (FileOutputStream fos = new FileOutputStream(chunkFileName)) {
-                    fos.write(buffer, 0, bytesRead);
-                    chunks.add(chunkFileName);
-                    chunkCount++; // Incrementa el contador de chunks para continuar la numeración
+            long fileLength = raf.length();
+            long start = InputSplit.alignToBoundary(raf, startOffset); // Empieza desde el offset especificado
+
+            // Empezamos la numeración desde `startChunkIndex`
+            for (int chunkCount = startChunkIndex; chunkCount < startChunkIndex + numChunks && start < fileLength; chunkCount++) {
+                long nominalEnd = startOffset + (long) (chunkCount - startChunkIndex + 1) * chunkSize;
+                long end = Math.max(start, InputSplit.alignToBoundary(raf, nominalEnd));
+                InputSplit split = new InputSplit(filePath, start, end - start, chunkCount);
+                onSplit.accept(materializeChunks ? materialize(split) : split);
+                start = end;
+            }
+        }
+    }
+
+    // Copia el rango a chunk_N.txt (solo si se pide explícitamente; duplica la E/S de la entrada).
+    // Con compresión se escribe chunk_N.txt.<códec> en bloques independientes.
+    private InputSplit materialize(InputSplit split) throws IOException {
+        String chunkFileName = outputFilePath + split.getName() + ".txt";
+        if (compression != null) {
+            chunkFileName += "." + compression.getName();
+            try (FileInputStream fis = new FileInputStream(split.getFilePath());
+                 OutputStream out = new BlockOutputStream(new BufferedOutputStream(new FileOutputStream(chunkFileName)), compression)) {
+                fis.getChannel().position(split.getStart());
+                byte[] buffer = new byte[BlockOutputStream.BLOCK_SIZE];
+                long remaining = split.getLength();
+                while (remaining > 0) {
+                    int n = fis.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (n < 0) {
+                        throw new EOFException("La entrada se acortó mientras se copiaba " + split.getName());
+                    }
+                    out.write(buffer, 0, n);
+                    remaining -= n;
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            InputSplit chunk = new InputSplit(chunkFileName, 0, split.getLength(), split.getIndex(), compression);
+            chunk.setSource(split);
+            return chunk;
         }
-        return chunks;
+        try (FileInputStream fis = new FileInputStream(split.getFilePath());
+             FileOutputStream fos = new FileOutputStream(chunkFileName)) {
+            long copied = 0;
+            while (copied < split.getLength()) {
+                copied += fis.getChannel().transferTo(split.getStart() + copied, split.getLength() - copied, fos.getChannel());
+            }
+        }
+        InputSplit chunk = new InputSplit(chunkFileName, 0, split.getLength(), split.getIndex());
+        chunk.setSource(split);
+        return chunk;
     }
 
-    // Método que ejecuta el proceso Map y reasigna los chunks fallidos
-    public void executeMap(List<String> chunks) {
-        int numMapNodes = 4;
-        ExecutorService mapPool = Executors.newFixedThreadPool(numMapNodes);
-        List<Future<Map<String, List<Integer>>>> mapFutures = new ArrayList<>();
+    // Ejecuta Map, Shuffle y Reduce como un flujo de datos en lugar de fases estrictas:
+    //  - cada split se manda a Map en cuanto split() lo entrega,
+    //  - cada Map confirmado entrega sus particiones al Shuffle, que las va mezclando en runs intermedios,
+    //  - cada Reduce arranca cuando sus particiones terminaron, sin esperar a las del otro Reduce.
+    // Un fallo que persiste tras reasignar se propaga como ExecutionException.
+    public void execute() throws IOException, InterruptedException, ExecutionException {
+        if (approximate != null) {
+            executeApproximate();
+            return;
+        }
+        TaskScheduler tasks = scheduler != null ? scheduler : new TaskScheduler(TaskScheduler.defaultParallelism());
 
-        Set<Integer> failedChunks = new HashSet<>(); // Chunks que fallaron y necesitan ser reasignados
+        // Los nodos son lógicos (dominios de fallo, no hilos): al menos 4 nodos Map para poder reasignar,
+        // uno por hilo del planificador si hay más, y un nodo Shuffle por partición
+        int numMapNodes = Math.max(4, tasks.getParallelism());
+        this.activeNodesMap = Collections.synchronizedList(new ArrayList<>(Collections.nCopies(numMapNodes, true)));
+        this.activeNodesShuffle = Collections.synchronizedList(new ArrayList<>(Collections.nCopies(numPartitions, true)));
 
-        for (int i = 0; i < chunks.size(); i++) {
-            final int chunkIndex = i + startChunkIndex;  // Aseguramos que la numeración continúe
-            List<String> singleChunk = chunks.subList(i, i + 1);
-        
-            final int nodeId = i % numMapNodes;  // Identificador del nodo Map
-        
-            MapNode mapNode = new MapNode(singleChunk, outputFilePath + "map_chunk_" + chunkIndex + ".txt", coordinatorId, nodeId, induceMapError && i == 0, false);
-        
-            Future<Map<String, List<Integer>>> future = mapPool.submit(() -> {
-                if (mapNode.isError()) {
-                    System.out.println("\u001B[31mError inducido en Nodo Map " + nodeId + " del " + coordinatorId + " para chunk_" + chunkIndex + "\u001B[0m");
+        // La mediana de Map se toma tras unas cuantas tareas; con Reduce basta una, porque son pocas
+        this.mapSpeculator = new Speculator("Map", coordinatorId, 3, speculativeExecution);
+        this.reduceSpeculator = new Speculator("Reduce", coordinatorId, 1, speculativeExecution);
 
-                    // Apagamos el nodo que falló
-                    activeNodesMap.set(nodeId, false);
+        try {
+            List<PartitionShuffle> shuffles = new ArrayList<>();
+            for (int p = 0; p < numPartitions; p++) {
+                shuffles.add(new PartitionShuffle(p, tasks));
+            }
+
+            // Fase Map: arranca split por split
+            List<CompletableFuture<Integer>> mapFutures = new ArrayList<>();
+            split(chunk -> {
+                int i = chunk.getIndex() - startChunkIndex;
+                int nodeId = i % numMapNodes;  // Identificador del nodo Map
+                CompletableFuture<Integer> mapFuture;
+                if (manifest.isCommitted("map_" + chunk.getName())) {
+                    Log.debug("MAP " + chunk.getName() + " del " + coordinatorId + " ya confirmado en una ejecución anterior. Se omite.");
+                    mapFuture = CompletableFuture.completedFuture(manifest.result("map_" + chunk.getName()));
+                } else {
+                    mapFuture = runMap(tasks, chunk, nodeId, induceMapError && i == 0);
+                }
+                mapFutures.add(mapFuture.thenApply(distinctWords -> {
+                    // El Map quedó confirmado: sus particiones ya pueden mezclarse
+                    for (PartitionShuffle shuffle : shuffles) {
+                        shuffle.offer(MapNode.partitionFile(outputFilePath + "map_chunk_" + chunk.getIndex(), shuffle.partition));
+                    }
+                    return distinctWords;
+                }));
+            });
+            CompletableFuture<Void> allMaps = CompletableFuture.allOf(mapFutures.toArray(new CompletableFuture<?>[0]))
+                    .thenRun(() -> Log.progress("Fase Map completada para el " + coordinatorId + "."));
 
-                    // Guardamos el chunk que falló para ser reasignado
-                    failedChunks.add(chunkIndex);
+            // Fase Shuffle: la mezcla final de cada partición solo espera a que terminen los Map
+            List<CompletableFuture<Integer>> shuffleFutures = new ArrayList<>();
+            for (PartitionShuffle shuffle : shuffles) {
+                shuffleFutures.add(allMaps.thenCompose(v -> shuffle.finish()));
+            }
 
-                    // Reasignamos el chunk fallido inmediatamente
-                    System.out.println("\u001B[33mReasignando chunk_" + chunkIndex + " a otro nodo...\u001B[0m");
-                    reassignFailedChunkMap(chunkIndex, chunks);
+            // Fase Reduce: cada nodo Reduce es dueño de particiones completas, así sus claves no se repiten en el otro
+            List<CompletableFuture<Integer>> reduceFutures = new ArrayList<>();
+            for (int r = 0; r < numReduceNodes; r++) {
+                int nodeId = r + 1;
+                int fromPartition = r * numPartitions / numReduceNodes;
+                int toPartition = (r + 1) * numPartitions / numReduceNodes;
+                List<String> shuffleFiles = new ArrayList<>();
+                for (int p = fromPartition; p < toPartition; p++) {
+                    shuffleFiles.add(outputFilePath + "shuffle_" + p + ".bin");
+                }
+                if (manifest.isCommitted("reduce_" + nodeId)) {
+                    Log.debug("REDUCE Nodo " + nodeId + " del " + coordinatorId + " ya confirmado en una ejecución anterior. Se omite.");
+                    reduceFutures.add(CompletableFuture.completedFuture(manifest.result("reduce_" + nodeId)));
+                    continue;
+                }
+                CompletableFuture<Void> ownPartitions = CompletableFuture.allOf(shuffleFutures.subList(fromPartition, toPartition).toArray(new CompletableFuture<?>[0]));
+                reduceFutures.add(ownPartitions.thenCompose(v -> runReduce(tasks, shuffleFiles, nodeId)));
+            }
 
-                    return null; // El nodo Map no sigue procesando
+            CompletableFuture.allOf(reduceFutures.toArray(new CompletableFuture<?>[0])).get();
+            Log.progress("Fase Reduce completada para " + coordinatorId + ".");
+        } finally {
+            manifest.close();
+            if (tasks != scheduler) {
+                tasks.shutdown();
+            }
+        }
+    }
+
+    // Modo aproximado: cada Map escribe el sketch de su chunk y, cuando terminan todos, cada nodo Reduce
+    // combina una parte de ellos en reduce_N.sketch.bin. Los sketches tienen tamaño fijo, así que no hay
+    // particiones ni Shuffle: lo que se mueve entre fases no crece con el vocabulario.
+    private void executeApproximate() throws IOException, InterruptedException, ExecutionException {
+        TaskScheduler tasks = scheduler != null ? scheduler : new TaskScheduler(TaskScheduler.defaultParallelism());
+        int numMapNodes = Math.max(4, tasks.getParallelism());
+        this.activeNodesMap = Collections.synchronizedList(new ArrayList<>(Collections.nCopies(numMapNodes, true)));
+        this.mapSpeculator = new Speculator("Map", coordinatorId, 3, speculativeExecution);
+        this.reduceSpeculator = new Speculator("Reduce", coordinatorId, 1, speculativeExecution);
+
+        try {
+            List<String> sketchFiles = new ArrayList<>();
+            List<CompletableFuture<Integer>> mapFutures = new ArrayList<>();
+            split(chunk -> {
+                int i = chunk.getIndex() - startChunkIndex;
+                sketchFiles.add(sketchFile(chunk));
+                if (manifest.isCommitted("map_" + chunk.getName())) {
+                    Log.debug("MAP " + chunk.getName() + " del " + coordinatorId + " ya confirmado en una ejecución anterior. Se omite.");
+                    mapFutures.add(CompletableFuture.completedFuture(manifest.result("map_" + chunk.getName())));
                 } else {
-                    System.out.println("MAP Nodo " + nodeId + " del " + coordinatorId + " procesando chunk_" + chunkIndex);
-                    return mapNode.call();
+                    mapFutures.add(runMap(tasks, chunk, i % numMapNodes, induceMapError && i == 0));
                 }
             });
-        
-            mapFutures.add(future);
+            CompletableFuture.allOf(mapFutures.toArray(new CompletableFuture<?>[0])).get();
+            Log.progress("Fase Map completada para el " + coordinatorId + ".");
+
+            List<CompletableFuture<Integer>> reduceFutures = new ArrayList<>();
+            for (int r = 0; r < numReduceNodes; r++) {
+                int nodeId = r + 1;
+                if (manifest.isCommitted("reduce_" + nodeId)) {
+                    Log.debug("REDUCE Nodo " + nodeId + " del " + coordinatorId + " ya confirmado en una ejecución anterior. Se omite.");
+                    reduceFutures.add(CompletableFuture.completedFuture(manifest.result("reduce_" + nodeId)));
+                    continue;
+                }
+                List<String> inputs = new ArrayList<>();
+                for (int i = r; i < sketchFiles.size(); i += numReduceNodes) {
+                    inputs.add(sketchFiles.get(i));
+                }
+                reduceFutures.add(runReduce(tasks, inputs, nodeId));
+            }
+            CompletableFuture.allOf(reduceFutures.toArray(new CompletableFuture<?>[0])).get();
+            Log.progress("Fase Reduce completada para " + coordinatorId + ".");
+        } finally {
+            manifest.close();
+            if (tasks != scheduler) {
+                tasks.shutdown();
+            }
         }
+    }
+
+    private String sketchFile(InputSplit chunk) {
+        return outputFilePath + "sketch_chunk_" + chunk.getIndex() + ".bin";
+    }
 
-        mapPool.shutdown();
-        while (!mapPool.isTerminated()) {}
+    // Intento del Map de un chunk (exacto o con sketch, según el modo)
+    private Speculator.TaskAttempt<Integer> mapAttempt(TaskScheduler tasks, InputSplit chunk, int nodeId, boolean induceError, boolean reassigned) {
+        return approximate != null ? new SketchMapAttempt(tasks, chunk, nodeId, induceError, reassigned) : new MapAttempt(tasks, chunk, nodeId, induceError, reassigned);
+    }
 
-        System.out.println("Fase Map completada para el " + coordinatorId + ".");
+    private Speculator.TaskAttempt<Integer> reduceAttempt(TaskScheduler tasks, List<String> inputFiles, int nodeId, boolean induceError, long delayMillis) {
+        return approximate != null ? new SketchReduceAttempt(tasks, inputFiles, nodeId, induceError, delayMillis) : new ReduceAttempt(tasks, inputFiles, nodeId, induceError, delayMillis);
     }
 
-    // Función para reasignar los chunks fallidos inmediatamente a nodos activos (Map)
-    private void reassignFailedChunkMap(int chunkIndex, List<String> chunks) {
-        int numMapNodes = 4;
-        ExecutorService reassignmentPool = Executors.newFixedThreadPool(numMapNodes); // Nuevo pool para reasignar
+    // Ejecuta el Map de un chunk; si falla, apaga el nodo y reasigna el chunk a un nodo activo
+    private CompletableFuture<Integer> runMap(TaskScheduler tasks, InputSplit chunk, int nodeId, boolean induceError) {
+        return mapSpeculator.execute(chunk.getName(), mapAttempt(tasks, chunk, nodeId, induceError, false))
+                .handle((distinctWords, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(distinctWords);
+                    }
+                    Log.error("Error en Nodo Map " + nodeId + " del " + coordinatorId + " para " + chunk.getName() + ": " + unwrap(error).getMessage());
 
-        Future<Map<String, List<Integer>>> reassignedFuture = reassignmentPool.submit(() -> {
-            for (int nodeId = 0; nodeId < numMapNodes; nodeId++) {
-                if (activeNodesMap.get(nodeId)) {  // Asegurarse de que el nodo esté activo
-                    MapNode mapNode = new MapNode(chunks.subList(chunkIndex - startChunkIndex, chunkIndex - startChunkIndex + 1), outputFilePath + "map_chunk_" + chunkIndex + ".txt", coordinatorId, nodeId, false, true);
-                    System.out.println("MAP Nodo " + nodeId + " del " + coordinatorId + " reasignado procesando chunk_" + chunkIndex);
-                    return mapNode.call();
-                }
+                    // Apagamos el nodo que falló
+                    activeNodesMap.set(nodeId, false);
+
+                    // Reasignamos el chunk fallido a un nodo activo
+                    Log.warn("Reasignando " + chunk.getName() + " a otro nodo...");
+                    return reassignFailedChunkMap(tasks, chunk);
+                }).thenCompose(future -> future);
+    }
+
+    // Función para reasignar un chunk fallido a un nodo activo (Map)
+    private CompletableFuture<Integer> reassignFailedChunkMap(TaskScheduler tasks, InputSplit chunk) {
+        for (int nodeId = 0; nodeId < activeNodesMap.size(); nodeId++) {
+            if (activeNodesMap.get(nodeId)) {  // Asegurarse de que el nodo esté activo
+                Log.debug("MAP Nodo " + nodeId + " del " + coordinatorId + " reasignado procesando " + chunk.getName());
+                return mapSpeculator.execute(chunk.getName(), mapAttempt(tasks, chunk, nodeId, false, true));
             }
-            return null;  // Si no hay nodos activos (caso improbable)
-        });
+        }
+        return CompletableFuture.failedFuture(new IllegalStateException("No quedan nodos Map activos en " + coordinatorId + " para " + chunk.getName()));
+    }
 
-        reassignmentPool.shutdown();
-        while (!reassignmentPool.isTerminated()) {}
+    // Función para reasignar un subset fallido a un nodo activo (Shuffle)
+    private CompletableFuture<Integer> reassignFailedSubsetShuffle(TaskScheduler tasks, int subsetIndex, List<String> mapSubset) {
+        for (int nodeId = 0; nodeId < activeNodesShuffle.size(); nodeId++) {
+            if (activeNodesShuffle.get(nodeId)) {  // Asegurarse de que el nodo esté activo
+                ShuffleNode shuffleNode = new ShuffleNode(mapSubset, shuffleAttemptFile(subsetIndex), coordinatorId, nodeId, false, true);
+                shuffleNode.setCompression(compression);
+                shuffleNode.setMetrics(metrics.newTask("shuffle", coordinatorId + "/shuffle_" + subsetIndex, nodeId, 1));
+                Log.debug("SHUFFLE Nodo " + nodeId + " del " + coordinatorId + " reasignado procesando subset: " + subsetIndex);
+                return tasks.submit(shuffleNode);
+            }
+        }
+        return CompletableFuture.failedFuture(new IllegalStateException("No quedan nodos Shuffle activos en " + coordinatorId + " para subset " + subsetIndex));
     }
 
-    // Método que ejecuta el proceso Shuffle y reasigna los subsets fallidos
-    public void executeShuffle(int mapResultsCount) {
-        int numShuffleNodes = 4;
-        ExecutorService shufflePool = Executors.newFixedThreadPool(numShuffleNodes);
+    // Ejecuta un nodo Reduce y, si falla, lo reinicia una vez con los mismos subsets
+    private CompletableFuture<Integer> runReduce(TaskScheduler tasks, List<String> shuffleFiles, int nodeId) {
+        return reduceSpeculator.execute("reduce_" + nodeId, reduceAttempt(tasks, shuffleFiles, nodeId, induceReduceError, 0))
+                .handle((distinctWords, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(distinctWords);
+                    }
+                    Log.warn("Nodo Reduce " + nodeId + " del " + coordinatorId + " falló (" + unwrap(error).getMessage() + "). Reiniciando...");
+                    // Simulamos el tiempo de reinicio sin bloquear un hilo del planificador
+                    return reduceSpeculator.execute("reduce_" + nodeId, reduceAttempt(tasks, shuffleFiles, nodeId, false, 5000));
+                }).thenCompose(future -> future);
+    }
 
-        List<String> mapFiles = new ArrayList<>();
-        Set<Integer> failedShuffles = new HashSet<>(); // Subsets que fallaron y necesitan ser reasignados
+    // Siguiente nodo Map activo después de `nodeId`, para que la copia de respaldo no corra en el mismo nodo
+    private int backupMapNode(int nodeId) {
+        for (int k = 1; k < activeNodesMap.size(); k++) {
+            int candidate = (nodeId + k) % activeNodesMap.size();
+            if (activeNodesMap.get(candidate)) {
+                return candidate;
+            }
+        }
+        return nodeId;
+    }
 
-        for (int i = 0; i < mapResultsCount; i++) {
-            int chunkIndex = i + startChunkIndex;  // Ajustamos la numeración para que comience correctamente
-            mapFiles.add(outputFilePath + "map_chunk_" + chunkIndex + ".txt");
+    // Un intento del Map de un chunk escribe map_chunk_N.attempt_K_part_P.bin; al confirmarse se renombra a map_chunk_N_part_P.bin
+    private class MapAttempt implements Speculator.TaskAttempt<Integer> {
+
+        private final TaskScheduler tasks;
+        private final InputSplit chunk;
+        private final int nodeId;
+        private final boolean induceError;
+        private final boolean reassigned;
+        private final Map<Integer, MapNode<?, ?>> attempts = new ConcurrentHashMap<>();
+        private final Map<Integer, TaskMetrics> attemptMetrics = new ConcurrentHashMap<>();
+
+        MapAttempt(TaskScheduler tasks, InputSplit chunk, int nodeId, boolean induceError, boolean reassigned) {
+            this.tasks = tasks;
+            this.chunk = chunk;
+            this.nodeId = nodeId;
+            this.induceError = induceError;
+            this.reassigned = reassigned;
         }
 
-        int shuffleSize = (int) Math.ceil(mapFiles.size() / (double) numShuffleNodes);
+        private String outputPrefix() {
+            return outputFilePath + "map_chunk_" + chunk.getIndex();
+        }
 
-        List<Future<Map<String, List<Integer>>>> shuffleFutures = new ArrayList<>();
-        for (int i = 0; i < numShuffleNodes; i++) {
-            final int shuffleIndex = i;  // Creamos una variable final para usar en el lambda
-            int start = i * shuffleSize;
-            int end = Math.min(start + shuffleSize, mapFiles.size());
-            List<String> mapSubset = mapFiles.subList(start, end);
+        private String attemptPrefix(int attempt) {
+            return outputPrefix() + ".attempt_" + attempt;
+        }
 
-            final int nodeId = i % numShuffleNodes;
+        @Override
+        public CompletableFuture<Integer> launch(int attempt, boolean backup) {
+            int node = backup ? backupMapNode(nodeId) : nodeId;
+            MapNode<?, ?> mapNode = new MapNode<>(Collections.singletonList(chunk), attemptPrefix(attempt), numPartitions, job, mappingWindow, taskMemoryBudget, coordinatorId, node, induceError && !backup, reassigned);
+            mapNode.setCompression(compression);
+            TaskMetrics task = metrics.newTask("map", coordinatorId + "/" + chunk.getName(), node, attempt);
+            mapNode.setMetrics(task);
+            attemptMetrics.put(attempt, task);
+            attempts.put(attempt, mapNode);
+            return tasks.submit(() -> {
+                if (!reassigned) {
+                    Log.debug("MAP Nodo " + node + " del " + coordinatorId + " procesando " + chunk.getName() + (backup ? " (respaldo)" : ""));
+                }
+                return mapNode.call();
+            });
+        }
 
-            ShuffleNode shuffleNode = new ShuffleNode(mapSubset, outputFilePath + "shuffle_" + i + ".txt", coordinatorId, nodeId, induceShuffleError && i == 0, false);
-            
-            Future<Map<String, List<Integer>>> future = shufflePool.submit(() -> {
-                if (shuffleNode.isError()) {
-                    System.out.println("\u001B[31mError inducido en Nodo Shuffle " + nodeId + " del " + coordinatorId + " para subset: " + shuffleIndex + "\u001B[0m");
+        @Override
+        public void commit(int attempt, Integer distinctWords) throws IOException {
+            List<String> files = new ArrayList<>();
+            for (int p = 0; p < numPartitions; p++) {
+                OutputCommitter.commit(MapNode.partitionFile(attemptPrefix(attempt), p), MapNode.partitionFile(outputPrefix(), p));
+                files.add(MapNode.partitionFile(outputPrefix(), p));
+            }
+            manifest.record("map_" + chunk.getName(), distinctWords, files);
+        }
 
-                    // Apagamos el nodo que falló
-                    activeNodesShuffle.set(shuffleIndex % numShuffleNodes, false);
+        @Override
+        public void abort(int attempt) {
+            attemptMetrics.get(attempt).aborted();
+            for (int p = 0; p < numPartitions; p++) {
+                OutputCommitter.discard(MapNode.partitionFile(attemptPrefix(attempt), p));
+            }
+        }
 
-                    // Guardamos el subset fallido para ser reasignado
-                    failedShuffles.add(shuffleIndex);
+        @Override
+        public double progress(int attempt) {
+            MapNode<?, ?> mapNode = attempts.get(attempt);
+            return mapNode == null ? 0 : mapNode.getProgress();
+        }
 
-                    // Reasignamos el subset fallido inmediatamente
-                    System.out.println("\u001B[33mReasignando subset " + shuffleIndex + " a otro nodo...\u001B[0m");
-                    reassignFailedSubsetShuffle(shuffleIndex, mapFiles);
+        @Override
+        public long startedNanos(int attempt) {
+            TaskMetrics task = attemptMetrics.get(attempt);
+            return task == null ? 0 : task.getStartNanos();
+        }
+    }
 
-                    return null; // El nodo Shuffle no sigue procesando
-                } else {
-                    System.out.println("SHUFFLE Nodo " + nodeId + " del " + coordinatorId + " procesando subset: " + shuffleIndex);
-                    return shuffleNode.call();
-                }
-            });
-        
-            shuffleFutures.add(future);
+    // Un intento de Reduce escribe reduce_N.attempt_K.bin; al confirmarse se renombra a reduce_N.bin
+    private class ReduceAttempt implements Speculator.TaskAttempt<Integer> {
+
+        private final TaskScheduler tasks;
+        private final List<String> shuffleFiles;
+        private final int nodeId;
+        private final boolean induceError;
+        private final long delayMillis; // Espera antes del primer intento (simula el reinicio del nodo)
+        private final Map<Integer, ReduceNode<?, ?>> attempts = new ConcurrentHashMap<>();
+        private final Map<Integer, TaskMetrics> attemptMetrics = new ConcurrentHashMap<>();
+
+        ReduceAttempt(TaskScheduler tasks, List<String> shuffleFiles, int nodeId, boolean induceError, long delayMillis) {
+            this.tasks = tasks;
+            this.shuffleFiles = shuffleFiles;
+            this.nodeId = nodeId;
+            this.induceError = induceError;
+            this.delayMillis = delayMillis;
         }
 
-        shufflePool.shutdown();
-        while (!shufflePool.isTerminated()) {}
+        private String attemptFile(int attempt) {
+            return outputFilePath + "reduce_" + nodeId + ".attempt_" + attempt + ".bin";
+        }
+
+        @Override
+        public CompletableFuture<Integer> launch(int attempt, boolean backup) {
+            ReduceNode<?, ?> reduceNode = new ReduceNode<>(shuffleFiles, attemptFile(attempt), job, coordinatorId, nodeId, induceError && !backup);
+            reduceNode.setCompression(compression);
+            TaskMetrics task = metrics.newTask("reduce", coordinatorId + "/reduce_" + nodeId, nodeId, attempt);
+            reduceNode.setMetrics(task);
+            attemptMetrics.put(attempt, task);
+            attempts.put(attempt, reduceNode);
+            return backup ? tasks.submit(reduceNode) : tasks.submit(reduceNode, delayMillis);
+        }
 
-        System.out.println("Fase Shuffle completada para " + coordinatorId + ".");
+        @Override
+        public void commit(int attempt, Integer distinctWords) throws IOException {
+            OutputCommitter.commit(attemptFile(attempt), outputFilePath + "reduce_" + nodeId + ".bin");
+            manifest.record("reduce_" + nodeId, distinctWords, Collections.singletonList(outputFilePath + "reduce_" + nodeId + ".bin"));
+        }
+
+        @Override
+        public void abort(int attempt) {
+            attemptMetrics.get(attempt).aborted();
+            OutputCommitter.discard(attemptFile(attempt));
+        }
+
+        @Override
+        public double progress(int attempt) {
+            ReduceNode<?, ?> reduceNode = attempts.get(attempt);
+            return reduceNode == null ? 0 : reduceNode.getProgress();
+        }
+
+        @Override
+        public long startedNanos(int attempt) {
+            TaskMetrics task = attemptMetrics.get(attempt);
+            return task == null ? 0 : task.getStartNanos();
+        }
     }
 
-    // Función para reasignar los subsets fallidos inmediatamente a nodos activos (Shuffle)
-    private void reassignFailedSubsetShuffle(int subsetIndex, List<String> mapFiles) {
-        int numShuffleNodes = 4;
-        ExecutorService reassignmentPool = Executors.newFixedThreadPool(numShuffleNodes); // Nuevo pool para reasignar
+    // Modo aproximado: un intento escribe sketch_chunk_N.attempt_K.bin y al confirmarse se renombra a sketch_chunk_N.bin
+    private class SketchMapAttempt implements Speculator.TaskAttempt<Integer> {
+
+        private final TaskScheduler tasks;
+        private final InputSplit chunk;
+        private final int nodeId;
+        private final boolean induceError;
+        private final boolean reassigned;
+        private final Map<Integer, SketchMapNode<?, ?>> attempts = new ConcurrentHashMap<>();
+        private final Map<Integer, TaskMetrics> attemptMetrics = new ConcurrentHashMap<>();
+
+        SketchMapAttempt(TaskScheduler tasks, InputSplit chunk, int nodeId, boolean induceError, boolean reassigned) {
+            this.tasks = tasks;
+            this.chunk = chunk;
+            this.nodeId = nodeId;
+            this.induceError = induceError;
+            this.reassigned = reassigned;
+        }
 
-        Future<Map<String, List<Integer>>> reassignedFuture = reassignmentPool.submit(() -> {
-            for (int nodeId = 0; nodeId < numShuffleNodes; nodeId++) {
-                if (activeNodesShuffle.get(nodeId)) {  // Asegurarse de que el nodo esté activo
-                    List<String> mapSubset = mapFiles.subList(subsetIndex * mapFiles.size() / numShuffleNodes, Math.min((subsetIndex + 1) * mapFiles.size() / numShuffleNodes, mapFiles.size()));
-                    ShuffleNode shuffleNode = new ShuffleNode(mapSubset, outputFilePath + "shuffle_" + subsetIndex + ".txt", coordinatorId, nodeId, false, true);
-                    System.out.println("SHUFFLE Nodo " + nodeId + " del " + coordinatorId + " reasignado procesando subset: " + subsetIndex);
-                    return shuffleNode.call();
+        private String attemptFile(int attempt) {
+            return outputFilePath + "sketch_chunk_" + chunk.getIndex() + ".attempt_" + attempt + ".bin";
+        }
+
+        @Override
+        public CompletableFuture<Integer> launch(int attempt, boolean backup) {
+            int node = backup ? backupMapNode(nodeId) : nodeId;
+            SketchMapNode<?, ?> mapNode = new SketchMapNode<>(Collections.singletonList(chunk), attemptFile(attempt), job, approximate, mappingWindow, coordinatorId, node, induceError && !backup, reassigned);
+            TaskMetrics task = metrics.newTask("map", coordinatorId + "/" + chunk.getName(), node, attempt);
+            mapNode.setMetrics(task);
+            attemptMetrics.put(attempt, task);
+            attempts.put(attempt, mapNode);
+            return tasks.submit(() -> {
+                if (!reassigned) {
+                    Log.debug("MAP Nodo " + node + " del " + coordinatorId + " procesando " + chunk.getName() + (backup ? " (respaldo)" : ""));
                 }
-            }
-            return null;  // Si no hay nodos activos (caso improbable)
-        });
+                return mapNode.call();
+            });
+        }
+
+        @Override
+        public void commit(int attempt, Integer distinctEstimate) throws IOException {
+            OutputCommitter.commit(attemptFile(attempt), sketchFile(chunk));
+            manifest.record("map_" + chunk.getName(), distinctEstimate, Collections.singletonList(sketchFile(chunk)));
+        }
 
-        reassignmentPool.shutdown();
-        while (!reassignmentPool.isTerminated()) {}
+        @Override
+        public void abort(int attempt) {
+            attemptMetrics.get(attempt).aborted();
+            OutputCommitter.discard(attemptFile(attempt));
+        }
+
+        @Override
+        public double progress(int attempt) {
+            SketchMapNode<?, ?> mapNode = attempts.get(attempt);
+            return mapNode == null ? 0 : mapNode.getProgress();
+        }
+
+        @Override
+        public long startedNanos(int attempt) {
+            TaskMetrics task = attemptMetrics.get(attempt);
+            return task == null ? 0 : task.getStartNanos();
+        }
     }
 
-    // Método para ejecutar la fase Reduce
-    public void executeReduce() {
-        int numReduceNodes = 2;
-        ExecutorService reducePool = Executors.newFixedThreadPool(numReduceNodes);
+    // Modo aproximado: un intento escribe reduce_N.sketch.attempt_K.bin y al confirmarse se renombra a reduce_N.sketch.bin
+    private class SketchReduceAttempt implements Speculator.TaskAttempt<Integer> {
+
+        private final TaskScheduler tasks;
+        private final List<String> sketchFiles;
+        private final int nodeId;
+        private final boolean induceError;
+        private final long delayMillis;
+        private final Map<Integer, SketchReduceNode> attempts = new ConcurrentHashMap<>();
+        private final Map<Integer, TaskMetrics> attemptMetrics = new ConcurrentHashMap<>();
+
+        SketchReduceAttempt(TaskScheduler tasks, List<String> sketchFiles, int nodeId, boolean induceError, long delayMillis) {
+            this.tasks = tasks;
+            this.sketchFiles = sketchFiles;
+            this.nodeId = nodeId;
+            this.induceError = induceError;
+            this.delayMillis = delayMillis;
+        }
 
-        List<String> allShuffleFiles = new ArrayList<>();
-        for (int i = 0; i < 4; i++) {
-            allShuffleFiles.add(outputFilePath + "shuffle_" + i + ".txt");
+        private String attemptFile(int attempt) {
+            return outputFilePath + "reduce_" + nodeId + ".sketch.attempt_" + attempt + ".bin";
         }
 
-        List<String> firstHalfShuffleFiles = allShuffleFiles.subList(0, 2);
-        List<String> secondHalfShuffleFiles = allShuffleFiles.subList(2, 4);
+        @Override
+        public CompletableFuture<Integer> launch(int attempt, boolean backup) {
+            SketchReduceNode reduceNode = new SketchReduceNode(sketchFiles, attemptFile(attempt), approximate, coordinatorId, nodeId, induceError && !backup);
+            TaskMetrics task = metrics.newTask("reduce", coordinatorId + "/reduce_" + nodeId, nodeId, attempt);
+            reduceNode.setMetrics(task);
+            attemptMetrics.put(attempt, task);
+            attempts.put(attempt, reduceNode);
+            return backup ? tasks.submit(reduceNode) : tasks.submit(reduceNode, delayMillis);
+        }
 
-        Future<Map<String, Integer>> reduceFuture1 = reducePool.submit(new ReduceNode(firstHalfShuffleFiles, outputFilePath + "reduce_1.txt", coordinatorId, 1, induceReduceError)); 
-        Future<Map<String, Integer>> reduceFuture2 = reducePool.submit(new ReduceNode(secondHalfShuffleFiles, outputFilePath + "reduce_2.txt", coordinatorId, 2, induceReduceError));
+        @Override
+        public void commit(int attempt, Integer distinctEstimate) throws IOException {
+            String outputFile = outputFilePath + "reduce_" + nodeId + ".sketch.bin";
+            OutputCommitter.commit(attemptFile(attempt), outputFile);
+            manifest.record("reduce_" + nodeId, distinctEstimate, Collections.singletonList(outputFile));
+        }
 
-        try {
-            // Reinicio para el Nodo Reduce 1 si falló
-            if (reduceFuture1.get() == null) {
-                System.out.println("Nodo Reduce 1 del " + coordinatorId + " falló. Reiniciando...");
-                Thread.sleep(5000); // Simulamos el tiempo de reinicio
-                reduceFuture1 = reducePool.submit(new ReduceNode(firstHalfShuffleFiles, outputFilePath + "reduce_1.txt", coordinatorId, 1, false));
-                reduceFuture1.get(); // Reintentar el procesamiento de los mismos subsets
-            }
+        @Override
+        public void abort(int attempt) {
+            attemptMetrics.get(attempt).aborted();
+            OutputCommitter.discard(attemptFile(attempt));
+        }
 
-            // Reinicio para el Nodo Reduce 2 si falló
-            if (reduceFuture2.get() == null) {
-                System.out.println("Nodo Reduce 2 del " + coordinatorId + " falló. Reiniciando...");
-                Thread.sleep(5000); // Simulamos el tiempo de reinicio
-                reduceFuture2 = reducePool.submit(new ReduceNode(secondHalfShuffleFiles, outputFilePath + "reduce_2.txt", coordinatorId, 2, false));
-                reduceFuture2.get(); // Reintentar el procesamiento de los mismos subsets
-            }
+        @Override
+        public double progress(int attempt) {
+            SketchReduceNode reduceNode = attempts.get(attempt);
+            return reduceNode == null ? 0 : reduceNode.getProgress();
+        }
 
-            System.out.println("Fase Reduce completada para " + coordinatorId + ".");
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            // Aquí agregamos un segundo try-catch dentro del `catch` para volver a intentar
-            try {
-                System.out.println("Intentando reiniciar los nodos Reduce nuevamente después del fallo...");
-                Future<Map<String, Integer>> reduceFutureRetry1 = reducePool.submit(new ReduceNode(firstHalfShuffleFiles, outputFilePath + "reduce_1.txt", coordinatorId, 1, false));
-                Future<Map<String, Integer>> reduceFutureRetry2 = reducePool.submit(new ReduceNode(secondHalfShuffleFiles, outputFilePath + "reduce_2.txt", coordinatorId, 2, false));
-                
-                reduceFutureRetry1.get(); // Volvemos a intentar procesar el nodo 1
-                reduceFutureRetry2.get(); // Volvemos a intentar procesar el nodo 2
-
-                System.out.println("Fase Reduce reiniciada exitosamente.");
-            } catch (Exception retryException) {
-                retryException.printStackTrace();
-                System.out.println("Nodo Reduce falló nuevamente en el segundo intento.");
+        @Override
+        public long startedNanos(int attempt) {
+            TaskMetrics task = attemptMetrics.get(attempt);
+            return task == null ? 0 : task.getStartNanos();
+        }
+    }
+
+    // Mezcla incremental de una partición: cada vez que se juntan SHUFFLE_MERGE_FACTOR archivos Map
+    // confirmados se mezclan en un run intermedio mientras los demás Map siguen trabajando; al final
+    // solo queda mezclar esos runs (ya ordenados) y los archivos sueltos en shuffle_P.bin.
+    private class PartitionShuffle {
+
+        private static final int SHUFFLE_MERGE_FACTOR = 4;
+
+        private final int partition;
+        private final TaskScheduler tasks;
+        private final List<String> pendingFiles = new ArrayList<>();
+        private final List<String> mergedRuns = new ArrayList<>();
+        private final List<CompletableFuture<Integer>> runMerges = new ArrayList<>();
+        private final boolean committed; // Ya confirmada en una ejecución anterior: no hay nada que mezclar
+
+        PartitionShuffle(int partition, TaskScheduler tasks) {
+            this.partition = partition;
+            this.tasks = tasks;
+            this.committed = manifest.isCommitted("shuffle_" + partition);
+        }
+
+        synchronized void offer(String mapFile) {
+            if (committed) {
+                return;
+            }
+            pendingFiles.add(mapFile);
+            if (pendingFiles.size() >= SHUFFLE_MERGE_FACTOR) {
+                String run = outputFilePath + "shuffle_" + partition + "_run_" + mergedRuns.size() + ".bin";
+                ShuffleNode runMerge = new ShuffleNode(new ArrayList<>(pendingFiles), run, coordinatorId, partition, false, false);
+                runMerge.setCompression(compression);
+                runMerge.setMetrics(metrics.newTask("shuffle", coordinatorId + "/shuffle_" + partition + "_run_" + mergedRuns.size(), partition, 0));
+                mergedRuns.add(run);
+                runMerges.add(tasks.submit(runMerge));
+                pendingFiles.clear();
             }
+        }
 
-        } finally {
-            reducePool.shutdown();
-            while (!reducePool.isTerminated()) {}
+        // Mezcla final; se llama cuando ya no llegarán más archivos Map
+        CompletableFuture<Integer> finish() {
+            if (committed) {
+                Log.debug("SHUFFLE subset " + partition + " del " + coordinatorId + " ya confirmado en una ejecución anterior. Se omite.");
+                return CompletableFuture.completedFuture(manifest.result("shuffle_" + partition));
+            }
+            List<String> inputs;
+            CompletableFuture<Void> runsDone;
+            synchronized (this) {
+                inputs = new ArrayList<>(mergedRuns);
+                inputs.addAll(pendingFiles);
+                runsDone = CompletableFuture.allOf(runMerges.toArray(new CompletableFuture<?>[0]));
+            }
+            // Hay un nodo Shuffle por subset: su número es el de la partición
+            ShuffleNode shuffleNode = new ShuffleNode(inputs, shuffleAttemptFile(partition), coordinatorId, partition, induceShuffleError && partition == 0, false);
+            shuffleNode.setCompression(compression);
+            return runsDone.thenCompose(v -> {
+                shuffleNode.setMetrics(metrics.newTask("shuffle", coordinatorId + "/shuffle_" + partition, partition, 0));
+                return tasks.submit(() -> {
+                    Log.debug("SHUFFLE Nodo " + partition + " del " + coordinatorId + " procesando subset: " + partition);
+                    return shuffleNode.call();
+                });
+            }).handle((groupedWords, error) -> {
+                if (error == null) {
+                    return CompletableFuture.completedFuture(groupedWords);
+                }
+                Log.error("Error en Nodo Shuffle " + partition + " del " + coordinatorId + " para subset: " + partition + ": " + unwrap(error).getMessage());
+
+                // Apagamos el nodo que falló
+                activeNodesShuffle.set(partition, false);
+
+                // Reasignamos el subset fallido a un nodo activo
+                Log.warn("Reasignando subset " + partition + " a otro nodo...");
+                return reassignFailedSubsetShuffle(tasks, partition, inputs);
+            }).thenCompose(future -> future).thenCompose(groupedWords -> {
+                try {
+                    String outputFile = outputFilePath + "shuffle_" + partition + ".bin";
+                    OutputCommitter.commit(shuffleAttemptFile(partition), outputFile);
+                    manifest.record("shuffle_" + partition, groupedWords, Collections.singletonList(outputFile));
+                } catch (IOException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                // Los runs intermedios ya quedaron dentro de shuffle_P.bin
+                for (String run : mergedRuns) {
+                    new File(run).delete();
+                }
+                return CompletableFuture.completedFuture(groupedWords);
+            });
         }
     }
+
+    // La mezcla final de una partición se escribe aparte y se renombra a shuffle_P.bin al terminar
+    private String shuffleAttemptFile(int partition) {
+        return outputFilePath + "shuffle_" + partition + ".attempt.bin";
+    }
+
+    // Las etapas encadenadas envuelven el fallo original en CompletionException
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 }
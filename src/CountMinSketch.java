@@ -0,0 +1,75 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Frecuencia aproximada de cualquier clave con memoria fija: `depth` filas de `width` contadores.
+// Nunca subestima; con probabilidad 1 - delta sobreestima a lo sumo epsilon * (total de ocurrencias),
+// con width = e / epsilon y depth = ln(1 / delta). Dos sketches del mismo tamaño se combinan sumando.
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+
+    public CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[width * depth];
+    }
+
+    public static CountMinSketch forError(double epsilon, double delta) {
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Las filas usan h1 + i * h2 (dos mitades del mismo hash de 64 bits)
+    public void add(long hash, long count) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + Math.floorMod(h1 + row * h2, width)] += count;
+        }
+    }
+
+    public long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + Math.floorMod(h1 + row * h2, width)]);
+        }
+        return estimate;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("No se pueden combinar Count-Min de " + depth + "x" + width + " y " + other.depth + "x" + other.width);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(depth);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    static CountMinSketch readFrom(DataInputStream in) throws IOException {
+        CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = in.readLong();
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Deflate del JDK en su nivel más rápido: en discos lentos lo que importa es escribir menos bytes,
+// no la mejor proporción. Cada hilo reutiliza su Deflater/Inflater (crearlos reserva memoria nativa).
+public class DeflateCodec implements CompressionCodec {
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public byte getId() {
+        return 1;
+    }
+
+    @Override
+    public int maxCompressedLength(int rawLength) {
+        return rawLength + rawLength / 8 + 64;
+    }
+
+    @Override
+    public int compress(byte[] raw, int offset, int length, byte[] out, int outOffset) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(raw, offset, length);
+        deflater.finish();
+        int compressed = 0;
+        while (!deflater.finished()) {
+            compressed += deflater.deflate(out, outOffset + compressed, out.length - outOffset - compressed);
+        }
+        return compressed;
+    }
+
+    @Override
+    public void decompress(byte[] in, int offset, int length, byte[] raw, int rawOffset, int rawLength) throws IOException {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(in, offset, length);
+        try {
+            int inflated = 0;
+            while (inflated < rawLength) {
+                int n = inflater.inflate(raw, rawOffset + inflated, rawLength - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != rawLength || !inflater.finished()) {
+                throw new IOException("Bloque comprimido corrupto");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque comprimido corrupto: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,18 +1,56 @@
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
 
-public class FinalReduceNode {
+public class FinalReduceNode<K, V> {
 
-    private String[] reduceFiles;
+    private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+
+    // Cada grupo contiene los archivos Reduce que cubren las mismas particiones (uno por coordinador)
+    private String[][] reduceFileGroups;
+    private Job<K, V> job; // Combina los valores de una misma clave y da formato a cada línea del resultado
     private String finalOutputFilePath;
+    private boolean textOutput; // true = exporta "(clave, valor)" en texto; false = formato binario intermedio
+    private boolean indexedOutput; // Con textOutput = false: resultado indexado (ResultStore) en lugar del binario intermedio
     private boolean induceError;
+    private JobMetrics metrics; // Cada grupo se informa como una tarea "final_reduce" (null = sin informe)
+    private String[] snapshotFiles; // Modo incremental: conteos de cada grupo para la siguiente ejecución
+    private byte[] pendingWord; // Palabra del final de la entrada que no entra en los conteos guardados
+    private SketchSpec approximate; // Modo aproximado: los archivos Reduce son sketches (null = conteos exactos)
 
-    public FinalReduceNode(String[] reduceFiles, String finalOutputFilePath, boolean induceError) {
-        this.reduceFiles = reduceFiles;
+    public FinalReduceNode(String[][] reduceFileGroups, Job<K, V> job, String finalOutputFilePath, boolean textOutput, boolean induceError) {
+        this.reduceFileGroups = reduceFileGroups;
+        this.job = job;
         this.finalOutputFilePath = finalOutputFilePath;
+        this.textOutput = textOutput;
         this.induceError = induceError;
     }
 
+    // Además del resultado, guarda cada grupo en binario descontando una ocurrencia de `pendingWord`
+    public void setSnapshot(String[] snapshotFiles, byte[] pendingWord) {
+        this.snapshotFiles = snapshotFiles;
+        this.pendingWord = pendingWord;
+    }
+
+    // El resultado se escribe ordenado por clave, en bloques, con índice disperso y filtro de Bloom,
+    // para consultarlo con ResultStore sin leerlo entero
+    public void setIndexedOutput(boolean indexedOutput) {
+        this.indexedOutput = indexedOutput;
+    }
+
+    // Los archivos de los grupos son sketches; el resultado son las claves más frecuentes
+    public void setApproximate(SketchSpec approximate) {
+        this.approximate = approximate;
+    }
+
+    public void setMetrics(JobMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public boolean isError() {
         return induceError;
     }
@@ -20,41 +58,259 @@ public class FinalReduceNode {
     public void combineReduceResults() throws Exception {
         // Simular un fallo inducido en el nodo Final Reduce
         if (induceError) {
-            System.out.println("\u001B[31mError inducido en el Nodo Final Reduce. Fallo en la combinación de resultados.\u001B[0m");
+            Log.error("Error inducido en el Nodo Final Reduce. Fallo en la combinación de resultados.");
             throw new Exception("Nodo Final Reduce falló intencionalmente.");
         }
-    
-        System.out.println("Nodo Final Reduce: Combinando resultados de archivos de reducción...");
-    
-        Map<String, Integer> finalWordCounts = new TreeMap<>();
-        for (String reduceFile : reduceFiles) {
-            try (BufferedReader br = new BufferedReader(new FileReader(reduceFile))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    // Limpiar la línea y parsear la palabra y el conteo
-                    String cleanedLine = line.replaceAll("[^a-zA-Z0-9,()]", "");
-                    String[] parts = cleanedLine.split(",");
-                    String word = parts[0].replace("(", "");
-                    int count = Integer.parseInt(parts[1].replace(")", "").trim());
-    
-                    finalWordCounts.merge(word, count, Integer::sum);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-    
-        saveFinalOutput(finalWordCounts);
-        System.out.println("\u001B[32mNodo Final Reduce: Combinación de resultados completada exitosamente.\u001B[0m");
-    }
-    
-    private void saveFinalOutput(Map<String, Integer> finalWordCounts) {
-        try (FileWriter writer = new FileWriter(finalOutputFilePath)) {
-            for (Map.Entry<String, Integer> entry : finalWordCounts.entrySet()) {
-                writer.write("(" + entry.getKey() + ", " + entry.getValue() + ")\n");
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+
+        Log.progress("Nodo Final Reduce: Combinando resultados de archivos de reducción...");
+        if (approximate != null) {
+            combineSketches();
+            Log.success("Nodo Final Reduce: Combinación de resultados completada exitosamente.");
+            return;
+        }
+
+        // Los grupos tienen claves disjuntas: cada uno se mezcla en paralelo a su propio archivo parcial
+        // y al final solo se concatenan. Los archivos Reduce ya vienen ordenados por clave, así que la
+        // mezcla es k-way en streaming y la memoria no depende del vocabulario.
+        String[] partFiles = new String[reduceFileGroups.length];
+        ExecutorService groupPool = Executors.newFixedThreadPool(reduceFileGroups.length);
+        List<Future<Void>> groupFutures = new ArrayList<>();
+        for (int group = 0; group < reduceFileGroups.length; group++) {
+            int index = group;
+            partFiles[group] = finalOutputFilePath + ".part_" + group;
+            TaskMetrics task = metrics == null ? TaskMetrics.unreported("final_reduce") : metrics.newTask("final_reduce", "group_" + group, group, 0);
+            groupFutures.add(groupPool.submit(() -> {
+                task.start();
+                boolean succeeded = false;
+                try {
+                    mergeGroup(index, partFiles[index], task);
+                    succeeded = true;
+                } finally {
+                    task.end(succeeded);
+                }
+                return null;
+            }));
+        }
+        groupPool.shutdown();
+        try {
+            for (Future<Void> future : groupFutures) {
+                future.get();
+            }
+            if (textOutput) {
+                concatenate(partFiles);
+            } else if (indexedOutput) {
+                writeIndexed(partFiles);
+            } else {
+                boolean byteValues = !job.hasLongValues();
+                try (SpillWriter writer = new SpillWriter(finalOutputFilePath, null, byteValues)) {
+                    for (String partFile : partFiles) {
+                        try (SpillReader reader = new SpillReader(partFile)) {
+                            long[] value = new long[1];
+                            while (reader.next()) {
+                                if (byteValues) {
+                                    writer.write(reader.keyBytes(), 0, reader.keyLength(), reader.valueBytes(), 0, reader.valueEnds()[0]);
+                                } else {
+                                    value[0] = reader.value(0);
+                                    writer.write(reader.keyBytes(), 0, reader.keyLength(), value, 1);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            groupPool.shutdownNow();
+            for (String partFile : partFiles) {
+                OutputCommitter.discard(partFile);
+            }
+        }
+        Log.success("Nodo Final Reduce: Combinación de resultados completada exitosamente.");
+    }
+
+    // Combina los sketches de todos los grupos (son pocos y de tamaño fijo, no hace falta repartirlos)
+    // y exporta las topK claves de mayor conteo estimado, de mayor a menor. El total de ocurrencias,
+    // las claves distintas estimadas y las cotas de error se escriben en <resultado>.summary.
+    // En formato binario se guarda el sketch combinado tal cual.
+    private void combineSketches() throws IOException {
+        TaskMetrics task = metrics == null ? TaskMetrics.unreported("final_reduce") : metrics.newTask("final_reduce", "sketches", 0, 0);
+        task.start();
+        boolean succeeded = false;
+        try {
+            WordSketch sketch = approximate.newSketch();
+            for (String[] group : reduceFileGroups) {
+                for (String file : group) {
+                    WordSketch part = WordSketch.readFrom(file);
+                    task.addBytesRead(new File(file).length());
+                    task.addRecordsIn(part.getTotal());
+                    sketch.merge(part);
+                }
+            }
+            if (indexedOutput && !textOutput) {
+                List<WordSketch.Estimate> top = new ArrayList<>(sketch.topK(approximate.getTopK()));
+                top.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+                try (ResultStoreWriter writer = new ResultStoreWriter(finalOutputFilePath)) {
+                    for (WordSketch.Estimate estimate : top) {
+                        writer.write(estimate.key, 0, estimate.key.length, estimate.count);
+                    }
+                }
+                task.addRecordsOut(top.size());
+            } else if (!textOutput) {
+                sketch.writeTo(finalOutputFilePath);
+            } else {
+                Serializer<K> keySerializer = job.getKeySerializer();
+                LongValueSerializer<V> valueSerializer = (LongValueSerializer<V>) job.getValueSerializer();
+                List<WordSketch.Estimate> top = sketch.topK(approximate.getTopK());
+                try (Writer text = openText(finalOutputFilePath)) {
+                    for (WordSketch.Estimate estimate : top) {
+                        text.write(job.format(keySerializer.deserialize(estimate.key, 0, estimate.key.length), valueSerializer.fromLong(estimate.count)));
+                        text.write('\n');
+                    }
+                }
+                task.addRecordsOut(top.size());
+            }
+            task.addBytesWritten(new File(finalOutputFilePath).length());
+
+            long distinct = sketch.distinctEstimate();
+            long distinctBound = Math.round(distinct * sketch.distinctRelativeError());
+            String summary = "total=" + sketch.getTotal() + "\n"
+                    + "distinct=" + distinct + "\n"
+                    + "distinctError=" + distinctBound + "\n"
+                    + "countError=" + sketch.countErrorBound() + "\n";
+            try (Writer out = openText(finalOutputFilePath + ".summary")) {
+                out.write(summary);
+            }
+            Log.info("Info: Resultado aproximado: " + sketch.getTotal() + " ocurrencias, ~" + distinct + " claves distintas (±" + distinctBound
+                    + "); cada conteo sobreestima a lo sumo " + sketch.countErrorBound() + ".");
+            succeeded = true;
+        } finally {
+            task.end(succeeded);
+        }
+    }
+
+    // Mezcla los archivos del grupo combinando los valores de cada clave; en el mismo recorrido
+    // escribe el archivo parcial del resultado y, en modo incremental, el snapshot del grupo
+    private void mergeGroup(int group, String partFile, TaskMetrics task) throws IOException {
+        if (!job.hasLongValues()) {
+            mergeSerializedGroup(group, partFile, task);
+            return;
+        }
+        LongCombiner combiner = job.getLongCombiner();
+        Serializer<K> keySerializer = job.getKeySerializer();
+        LongValueSerializer<V> valueSerializer = (LongValueSerializer<V>) job.getValueSerializer();
+        String snapshotTmp = snapshotFiles == null ? null : snapshotFiles[group] + ".tmp";
+        long[] value = new long[1];
+        long records = 0;
+        long keys = 0;
+        try (SpillMerger merger = new SpillMerger(Arrays.asList(reduceFileGroups[group]));
+             Writer text = textOutput ? openText(partFile) : null;
+             SpillWriter binary = textOutput ? null : new SpillWriter(partFile);
+             SpillWriter snapshot = snapshotTmp == null ? null : new SpillWriter(snapshotTmp)) {
+            while (merger.next()) {
+                // La salida Reduce tiene un solo valor por clave; aquí llega uno por archivo del grupo
+                records += merger.valueCount();
+                keys++;
+                long total = merger.value(0);
+                for (int i = 1; i < merger.valueCount(); i++) {
+                    total = combiner.combine(total, merger.value(i));
+                }
+                byte[] key = merger.keyBytes();
+                int keyLength = merger.keyLength();
+                value[0] = total;
+                if (text != null) {
+                    text.write(job.format(keySerializer.deserialize(key, 0, keyLength), valueSerializer.fromLong(total)));
+                    text.write('\n');
+                } else {
+                    binary.write(key, 0, keyLength, value, 1);
+                }
+                if (snapshot != null) {
+                    if (pendingWord != null && Arrays.equals(key, 0, keyLength, pendingWord, 0, pendingWord.length)) {
+                        value[0]--;
+                    }
+                    if (value[0] > 0) {
+                        snapshot.write(key, 0, keyLength, value, 1);
+                    }
+                }
+            }
+            task.addBytesRead(merger.bytesRead());
+        }
+        task.addRecordsIn(records);
+        task.addRecordsOut(keys);
+        task.addBytesWritten(new File(partFile).length());
+        if (snapshotTmp != null) {
+            OutputCommitter.commit(snapshotTmp, snapshotFiles[group]);
+        }
+    }
+
+    // mergeGroup para valores que no son long: se combinan deserializados con el Combiner del trabajo.
+    // El modo incremental solo existe para el conteo de palabras, así que aquí no hay snapshot.
+    private void mergeSerializedGroup(int group, String partFile, TaskMetrics task) throws IOException {
+        Combiner<V> combiner = job.getCombiner();
+        Serializer<K> keySerializer = job.getKeySerializer();
+        ValueSerializer<V> valueSerializer = job.getValueSerializer();
+        long records = 0;
+        long keys = 0;
+        try (SpillMerger merger = new SpillMerger(Arrays.asList(reduceFileGroups[group]));
+             Writer text = textOutput ? openText(partFile) : null;
+             SpillWriter binary = textOutput ? null : new SpillWriter(partFile, null, true)) {
+            while (merger.next()) {
+                records += merger.valueCount();
+                keys++;
+                byte[] key = merger.keyBytes();
+                int keyLength = merger.keyLength();
+                byte[] values = merger.valueBytes();
+                int[] ends = merger.valueEnds();
+                if (text == null && merger.valueCount() == 1) {
+                    // Un solo coordinador tenía la clave: los bytes ya son el resultado
+                    binary.write(key, 0, keyLength, values, 0, ends[0]);
+                    continue;
+                }
+                V total = valueSerializer.deserialize(values, 0, ends[0]);
+                for (int i = 1; i < merger.valueCount(); i++) {
+                    total = combiner.combine(total, valueSerializer.deserialize(values, ends[i - 1], ends[i] - ends[i - 1]));
+                }
+                if (text != null) {
+                    text.write(job.format(keySerializer.deserialize(key, 0, keyLength), total));
+                    text.write('\n');
+                } else {
+                    byte[] bytes = valueSerializer.serialize(total);
+                    binary.write(key, 0, keyLength, bytes, 0, bytes.length);
+                }
+            }
+            task.addBytesRead(merger.bytesRead());
+        }
+        task.addRecordsIn(records);
+        task.addRecordsOut(keys);
+        task.addBytesWritten(new File(partFile).length());
+    }
+
+    // Los grupos tienen claves disjuntas y cada archivo parcial está ordenado: una mezcla más deja
+    // todo el resultado en orden, como lo necesita el índice
+    private void writeIndexed(String[] partFiles) throws IOException {
+        try (SpillMerger merger = new SpillMerger(Arrays.asList(partFiles));
+             ResultStoreWriter writer = new ResultStoreWriter(finalOutputFilePath)) {
+            while (merger.next()) {
+                writer.write(merger.keyBytes(), 0, merger.keyLength(), merger.value(0));
+            }
+        }
+    }
+
+    // Texto UTF-8 con un buffer grande; los bytes se escriben al disco mientras se sigue mezclando
+    private static Writer openText(String file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(WriteBehindOutputStream.open(file), StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+    }
+
+    // Concatena los archivos parciales en el resultado con transferTo (sin pasar por el heap)
+    private void concatenate(String[] partFiles) throws IOException {
+        try (FileChannel out = FileChannel.open(Paths.get(finalOutputFilePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (String partFile : partFiles) {
+                try (FileChannel in = FileChannel.open(Paths.get(partFile), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long copied = 0;
+                    while (copied < size) {
+                        copied += in.transferTo(copied, size - copied, out);
+                    }
+                }
+            }
         }
     }
 }
@@ -0,0 +1,24 @@
+import java.nio.charset.StandardCharsets;
+
+public class HashPartitioner implements Partitioner {
+
+    // Asigna cada clave a una partición según su hash, así todas las ocurrencias de una
+    // misma clave terminan siempre en la misma partición (y en el mismo nodo Reduce)
+    @Override
+    public int getPartition(byte[] key, int offset, int length, int numPartitions) {
+        return partitionOf(key, offset, length, numPartitions);
+    }
+
+    public static int partitionOf(byte[] key, int offset, int length, int numPartitions) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + key[i];
+        }
+        return (h & Integer.MAX_VALUE) % numPartitions;
+    }
+
+    public static int getPartition(String key, int numPartitions) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        return partitionOf(bytes, 0, bytes.length, numPartitions);
+    }
+}
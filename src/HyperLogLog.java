@@ -0,0 +1,84 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Estimador de cardinalidad (palabras distintas) con memoria fija: 2^precision registros de un byte.
+// El error relativo típico es 1,04 / sqrt(2^precision); dos sketches de la misma precisión se
+// combinan tomando el máximo de cada registro, igual que si se hubiera visto todo en uno.
+public class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precisión de HyperLogLog fuera de rango (4-18): " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    // Menor precisión cuyo error relativo típico no supera `relativeError`
+    public static int precisionFor(double relativeError) {
+        int precision = (int) Math.ceil(Math.log(Math.pow(1.04 / relativeError, 2)) / Math.log(2));
+        return Math.max(4, Math.min(18, precision));
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public double getRelativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Posición del primer 1 en los bits restantes (el centinela acota el resultado)
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("No se pueden combinar HyperLogLog de precisión " + precision + " y " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Con pocos elementos el conteo lineal de registros vacíos es más preciso
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(precision);
+        out.write(registers);
+    }
+
+    static HyperLogLog readFrom(DataInputStream in) throws IOException {
+        HyperLogLog hll = new HyperLogLog(in.readUnsignedByte());
+        in.readFully(hll.registers);
+        return hll;
+    }
+}
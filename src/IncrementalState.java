@@ -0,0 +1,161 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Estado del modo incremental: hasta qué byte de la entrada ya está contado y dónde están esos conteos.
+// La siguiente ejecución solo procesa lo agregado desde ese byte y suma el resultado a los conteos guardados.
+//
+// El offset guardado siempre cae en un espacio en blanco. Los bytes después del último espacio
+// (una palabra que puede seguir creciendo con el próximo append) se cuentan en el resultado de esta
+// ejecución, pero no en los conteos guardados: la próxima ejecución los vuelve a leer completos.
+//
+// Los conteos se guardan por grupo de Reduce (base_vN_R.bin, mismo formato binario intermedio). Cada
+// ejecución escribe una versión nueva y recién entonces reemplaza state.txt de forma atómica, así un
+// fallo a mitad nunca deja un offset que no corresponda a los conteos.
+public class IncrementalState {
+
+    private static final String STATE_FILE = "state.txt";
+    private static final int FINGERPRINT_BYTES = 64 * 1024;
+
+    private final String directory;
+    private final String inputPath;
+    private final int numGroups;
+    private long offset; // Bytes de la entrada ya incluidos en los conteos guardados
+    private int version; // Versión de los archivos base_vN_R.bin vigentes (0 = no hay)
+
+    private IncrementalState(String directory, String inputPath, int numGroups) {
+        this.directory = directory;
+        this.inputPath = inputPath;
+        this.numGroups = numGroups;
+    }
+
+    // Carga el estado guardado; si no existe, es de otra entrada o la entrada ya no empieza igual
+    // (se reescribió en lugar de crecer), se vuelve a contar desde el byte 0
+    public static IncrementalState load(String directory, String inputPath, int numGroups) throws IOException {
+        IncrementalState state = new IncrementalState(directory, inputPath, numGroups);
+        File file = new File(directory, STATE_FILE);
+        if (!file.exists()) {
+            return state;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String input = reader.readLine();
+            long offset = Long.parseLong(reader.readLine());
+            long fingerprint = Long.parseLong(reader.readLine());
+            int groups = Integer.parseInt(reader.readLine());
+            int version = Integer.parseInt(reader.readLine());
+            if (inputPath.equals(input) && groups == numGroups && offset <= new File(inputPath).length()
+                    && fingerprint(inputPath, offset) == fingerprint && state.baseFilesExist(version)) {
+                state.offset = offset;
+                state.version = version;
+            } else {
+                Log.warn("La entrada cambió desde la última ejecución incremental. Se vuelve a contar todo.");
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            Log.warn("Estado incremental ilegible. Se vuelve a contar todo.");
+        }
+        return state;
+    }
+
+    private boolean baseFilesExist(int version) {
+        for (int group = 0; group < numGroups; group++) {
+            if (!new File(baseFile(version, group)).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    // Conteos guardados del grupo `group`, o null si se parte de cero
+    public String baseFile(int group) {
+        return version == 0 ? null : baseFile(version, group);
+    }
+
+    // Archivos donde la ejecución actual deja los conteos para la siguiente
+    public String[] nextBaseFiles() {
+        String[] files = new String[numGroups];
+        for (int group = 0; group < numGroups; group++) {
+            files[group] = baseFile(version + 1, group);
+        }
+        return files;
+    }
+
+    private String baseFile(int version, int group) {
+        return new File(directory, "base_v" + version + "_" + (group + 1) + ".bin").getPath();
+    }
+
+    // Posición del último espacio en blanco desde `from`; lo que sigue es una palabra posiblemente incompleta
+    public static long lastBoundary(String inputPath, long from) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(inputPath, "r")) {
+            byte[] buffer = new byte[4096];
+            long end = raf.length();
+            while (end > from) {
+                int n = (int) Math.min(buffer.length, end - from);
+                raf.seek(end - n);
+                raf.readFully(buffer, 0, n);
+                for (int i = n - 1; i >= 0; i--) {
+                    if (InputSplit.isWhitespace(buffer[i])) {
+                        return end - n + i;
+                    }
+                }
+                end -= n;
+            }
+            return from;
+        }
+    }
+
+    // Palabra (ya normalizada) que queda después de `boundary`, o null si no hay ninguna que cuente
+    public static byte[] pendingWord(String inputPath, long boundary, ByteStringSet stopwords) throws IOException {
+        byte[][] word = new byte[1][];
+        WordTokenizer tokenizer = new WordTokenizer(stopwords, (token, length) -> word[0] = Arrays.copyOf(token, length));
+        // El resto del archivo se pasa por bloques: sin espacios después del último límite puede ser
+        // todo lo agregado, y un solo arreglo de ese tamaño no cabe en memoria (ni en un int pasados 2 GiB)
+        try (RandomAccessFile raf = new RandomAccessFile(inputPath, "r")) {
+            byte[] buffer = new byte[64 * 1024];
+            raf.seek(boundary);
+            int n;
+            while ((n = raf.read(buffer)) > 0) {
+                tokenizer.feed(buffer, 0, n);
+            }
+            tokenizer.finish();
+        }
+        return word[0];
+    }
+
+    // Se llama cuando los nuevos base_vN_R.bin ya están escritos: publica el nuevo offset y borra la versión anterior
+    public void commit(long newOffset) throws IOException {
+        int previous = version;
+        File tmp = new File(directory, STATE_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            String content = inputPath + "\n" + newOffset + "\n" + fingerprint(inputPath, newOffset) + "\n" + numGroups + "\n" + (version + 1) + "\n";
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        OutputCommitter.commit(tmp.getPath(), new File(directory, STATE_FILE).getPath());
+        offset = newOffset;
+        version++;
+        if (previous > 0) {
+            for (int group = 0; group < numGroups; group++) {
+                OutputCommitter.discard(baseFile(previous, group));
+            }
+        }
+    }
+
+    // Huella barata del contenido ya contado: el principio del archivo y lo que hay justo antes de `offset`
+    private static long fingerprint(String inputPath, long offset) throws IOException {
+        CRC32 crc = new CRC32();
+        try (RandomAccessFile raf = new RandomAccessFile(inputPath, "r")) {
+            byte[] buffer = new byte[(int) Math.min(FINGERPRINT_BYTES, offset)];
+            raf.readFully(buffer);
+            crc.update(buffer);
+            raf.seek(offset - buffer.length);
+            raf.readFully(buffer);
+            crc.update(buffer);
+        }
+        return crc.getValue();
+    }
+}
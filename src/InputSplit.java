@@ -0,0 +1,87 @@
+import java.io.*;
+
+// Rango de bytes [start, start + length) de un archivo que procesa un solo nodo Map.
+// Los límites siempre caen en un espacio en blanco, así ninguna palabra ni carácter UTF-8 queda cortado.
+public class InputSplit {
+
+    private final String filePath;
+    private final long start;
+    private final long length;
+    private final int index;
+    private final CompressionCodec codec; // Chunk materializado en bloques comprimidos (null = texto plano)
+    private InputSplit source; // Chunk materializado: rango de la entrada del que se copió (null = es la entrada)
+
+    public InputSplit(String filePath, long start, long length, int index) {
+        this(filePath, start, length, index, null);
+    }
+
+    // Con `codec`, el archivo entero son los bloques de BlockOutputStream y `length` es el largo sin comprimir
+    public InputSplit(String filePath, long start, long length, int index, CompressionCodec codec) {
+        this.filePath = filePath;
+        this.start = start;
+        this.length = length;
+        this.index = index;
+        this.codec = codec;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    public void setSource(InputSplit source) {
+        this.source = source;
+    }
+
+    // Rango de la entrada original: el propio split, o del que se copió si está materializado
+    public InputSplit getSource() {
+        return source == null ? this : source;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return "chunk_" + index;
+    }
+
+    // Avanza `position` hasta el siguiente espacio en blanco (o el fin del archivo), al estilo de LineRecordReader
+    public static long alignToBoundary(RandomAccessFile raf, long position) throws IOException {
+        long fileLength = raf.length();
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= fileLength) {
+            return fileLength;
+        }
+        byte[] buffer = new byte[4096];
+        raf.seek(position);
+        int bytesRead;
+        while ((bytesRead = raf.read(buffer)) > 0) {
+            for (int i = 0; i < bytesRead; i++) {
+                if (isWhitespace(buffer[i])) {
+                    return position + i;
+                }
+            }
+            position += bytesRead;
+        }
+        return fileLength;
+    }
+
+    // Mismos separadores que \s; son bytes ASCII, nunca aparecen dentro de una secuencia UTF-8 multibyte
+    public static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
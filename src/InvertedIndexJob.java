@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Índice invertido: para cada palabra (mismo tokenizador y stopwords que WordCountJob), la lista de
+// documentos donde aparece. Cada línea de la entrada es un documento y se identifica por el offset
+// en bytes donde empieza. Las líneas se reparten entre splits como en el LineRecordReader de Hadoop:
+// cada split procesa las líneas que empiezan en él (la última la termina leyendo después de su final)
+// y se salta la primera si el split no empieza la entrada, porque es del split anterior.
+public class InvertedIndexJob implements Job<String, PostingList> {
+
+    @Override
+    public String getName() {
+        return "invertedindex";
+    }
+
+    @Override
+    public Mapper<Long, ByteBuffer, String, PostingList> createMapper() {
+        return new LineMapper();
+    }
+
+    @Override
+    public Combiner<PostingList> getCombiner() {
+        return PostingList::merge;
+    }
+
+    @Override
+    public Reducer<String, PostingList, PostingList> createReducer() {
+        return (word, lists) -> {
+            PostingList postings = new PostingList();
+            for (PostingList list : lists) {
+                postings.merge(list);
+            }
+            return postings;
+        };
+    }
+
+    @Override
+    public Serializer<String> getKeySerializer() {
+        return Serializer.STRING;
+    }
+
+    @Override
+    public ValueSerializer<PostingList> getValueSerializer() {
+        return PostingList.SERIALIZER;
+    }
+
+    private static class LineMapper implements Mapper<Long, ByteBuffer, String, PostingList> {
+
+        private Output<String, PostingList> output;
+        private long lineStart = -1; // Offset de la línea actual en la entrada (-1 = todavía no empezó el split)
+        private boolean skipping; // Primera línea del split, que pertenece al anterior
+        private boolean pastEnd;
+        private boolean lineDone; // Se terminó la línea que cruzaba el final del split
+        private final WordTokenizer tokenizer = new WordTokenizer(WordCountJob.STOPWORD_BYTES,
+                (token, length) -> output.collect(new String(token, 0, length, StandardCharsets.US_ASCII), PostingList.of(lineStart)));
+
+        @Override
+        public void map(Long offset, ByteBuffer block, Output<String, PostingList> output) throws IOException {
+            this.output = output;
+            if (lineStart < 0) {
+                lineStart = offset;
+                skipping = offset > 0;
+            }
+            scan(offset, block);
+        }
+
+        @Override
+        public boolean needsPastEnd() {
+            return !skipping && !lineDone;
+        }
+
+        @Override
+        public void mapPastEnd(Long offset, ByteBuffer block, Output<String, PostingList> output) throws IOException {
+            this.output = output;
+            pastEnd = true;
+            scan(offset, block);
+        }
+
+        @Override
+        public void cleanup(Output<String, PostingList> output) throws IOException {
+            this.output = output;
+            tokenizer.finish();
+            lineStart = -1;
+            skipping = false;
+            pastEnd = false;
+            lineDone = false;
+        }
+
+        // Tokeniza el bloque línea por línea: las palabras de cada línea salen con el offset donde empieza
+        private void scan(long offset, ByteBuffer block) throws IOException {
+            int base = block.position();
+            int end = block.limit();
+            int from = base;
+            for (int i = base; i < end; i++) {
+                if (block.get(i) != '\n') {
+                    continue;
+                }
+                if (!skipping) {
+                    block.limit(i);
+                    block.position(from);
+                    tokenizer.feed(block);
+                    tokenizer.finish();
+                    block.limit(end);
+                }
+                skipping = false;
+                lineStart = offset + (i - base) + 1;
+                from = i + 1;
+                if (pastEnd) {
+                    lineDone = true;
+                    break;
+                }
+            }
+            block.limit(end);
+            if (!skipping && !lineDone) {
+                block.position(from);
+                tokenizer.feed(block);
+            }
+            block.position(end);
+        }
+    }
+}
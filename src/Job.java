@@ -0,0 +1,66 @@
+import java.nio.ByteBuffer;
+
+// Un trabajo MapReduce que corre sobre el motor: qué hacen las fases Map y Reduce, cómo se combinan
+// los valores parciales, a qué partición va cada clave y cómo se serializan claves y valores.
+// El motor (MapNode, ShuffleNode, ReduceNode, FinalReduceNode) no sabe nada del trabajo concreto.
+// Si los valores se serializan con un LongValueSerializer el motor usa su camino rápido (tablas de long
+// primitivos); si no, los valores viajan como bytes y se combinan con el Combiner en cada fase.
+//
+// La entrada del Mapper son los bloques de bytes del split: la clave es el offset del bloque dentro
+// del archivo de entrada y el valor el bloque. Un bloque puede terminar en medio de un registro; el Mapper
+// guarda el resto hasta el siguiente bloque y lo emite en cleanup() al terminar el split. Los registros
+// que cruzan el final del split se completan con Mapper.needsPastEnd()/mapPastEnd().
+public interface Job<K, V> {
+
+    String getName();
+
+    Mapper<Long, ByteBuffer, K, V> createMapper();
+
+    // Debe ser asociativo: se aplica en el Map, al combinar runs volcados a disco y en el Final Reduce
+    Combiner<V> getCombiner();
+
+    Reducer<K, V, V> createReducer();
+
+    default Partitioner getPartitioner() {
+        return new HashPartitioner();
+    }
+
+    Serializer<K> getKeySerializer();
+
+    ValueSerializer<V> getValueSerializer();
+
+    // true si los valores van por el camino rápido (long primitivos)
+    default boolean hasLongValues() {
+        return getValueSerializer() instanceof LongValueSerializer;
+    }
+
+    // Combinador del camino rápido, sobre los long ya convertidos. Si el trabajo no da un LongCombiner
+    // se adapta el suyo convirtiendo cada valor con el serializador.
+    default LongCombiner getLongCombiner() {
+        Combiner<V> combiner = getCombiner();
+        if (combiner instanceof LongCombiner) {
+            return (LongCombiner) combiner;
+        }
+        LongValueSerializer<V> serializer = (LongValueSerializer<V>) getValueSerializer();
+        return (accumulated, value) -> serializer.toLong(combiner.combine(serializer.fromLong(accumulated), serializer.fromLong(value)));
+    }
+
+    // Línea del resultado final en texto
+    default String format(K key, V value) {
+        return "(" + key + ", " + value + ")";
+    }
+
+    // Trabajos disponibles por nombre (-Dmapreduce.job, y lo que recibe un worker en cada tarea)
+    static Job<?, ?> forName(String name) {
+        switch (name) {
+            case "wordcount":
+                return new WordCountJob();
+            case "bigrams":
+                return new NGramCountJob();
+            case "invertedindex":
+                return new InvertedIndexJob();
+            default:
+                throw new IllegalArgumentException("Trabajo desconocido: " + name + " (opciones: wordcount, bigrams, invertedindex)");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Registro de las tareas ya confirmadas de un coordinador (manifest.txt en su carpeta de salida).
+// Permite que un trabajo reiniciado retome donde quedó en lugar de repetir Split y Map desde cero.
+//
+// Formato (texto, solo se agregan líneas):
+//   job <configuración del trabajo>
+//   task <id> <resultado> <número de archivos> <archivo>:<largo>:<crc> ...
+// El crc es el CRC32 que SpillWriter deja al final de cada archivo, así verificar un archivo
+// al retomar solo cuesta leer sus últimos 4 bytes. Una tarea se anota después de renombrar sus
+// archivos a su nombre definitivo: si el proceso muere entre ambos pasos, la tarea se repite.
+// El número de archivos delata una línea cortada a medio escribir.
+public class JobManifest {
+
+    public static final String FILE_NAME = "manifest.txt";
+
+    private final String directory;
+    private final Map<String, Integer> committedTasks = new HashMap<>();
+    private final Set<String> committedFiles = new HashSet<>();
+    private final List<String> validLines = new ArrayList<>();
+    private FileOutputStream out;
+
+    private JobManifest(String directory) {
+        this.directory = directory;
+    }
+
+    // Abre el manifiesto de `directory`. Si no existe o pertenece a otro trabajo (otra entrada o configuración)
+    // se empieza de cero; las tareas cuyos archivos ya no coinciden con lo anotado se descartan.
+    public static JobManifest open(String directory, String jobKey) throws IOException {
+        JobManifest manifest = new JobManifest(directory);
+        File file = new File(directory, FILE_NAME);
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                if (line != null && line.equals("job " + jobKey)) {
+                    while ((line = reader.readLine()) != null) {
+                        manifest.load(line);
+                    }
+                }
+            }
+        }
+        // Se reescribe el manifiesto solo con lo que sigue siendo válido (archivo temporal + renombrado atómico)
+        File tmp = new File(directory, FILE_NAME + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write("job " + jobKey + "\n");
+            for (String line : manifest.validLines) {
+                writer.write(line + "\n");
+            }
+        }
+        OutputCommitter.commit(tmp.getPath(), file.getPath());
+        manifest.out = new FileOutputStream(file, true);
+        return manifest;
+    }
+
+    private void load(String line) {
+        String[] fields = line.split(" ");
+        if (fields.length < 5 || !fields[0].equals("task")) {
+            return;
+        }
+        try {
+            if (Integer.parseInt(fields[3]) != fields.length - 4) {
+                return;
+            }
+            List<String> files = new ArrayList<>();
+            for (int i = 4; i < fields.length; i++) {
+                String[] entry = fields[i].split(":");
+                if (entry.length != 3 || !matches(new File(directory, entry[0]), Long.parseLong(entry[1]), entry[2])) {
+                    return;
+                }
+                files.add(entry[0]);
+            }
+            committedTasks.put(fields[1], Integer.parseInt(fields[2]));
+            committedFiles.addAll(files);
+            validLines.add(line);
+        } catch (NumberFormatException e) {
+            // Línea incompleta: el proceso murió mientras se escribía
+        }
+    }
+
+    public synchronized int committedTaskCount() {
+        return committedTasks.size();
+    }
+
+    public synchronized boolean isCommitted(String taskId) {
+        return committedTasks.containsKey(taskId);
+    }
+
+    public synchronized int result(String taskId) {
+        return committedTasks.get(taskId);
+    }
+
+    // Archivos que pertenecen a tareas confirmadas (el resto de la carpeta es de intentos sin terminar)
+    public synchronized boolean isCommittedFile(String fileName) {
+        return fileName.equals(FILE_NAME) || committedFiles.contains(fileName);
+    }
+
+    // Anota una tarea confirmada y fuerza la línea a disco antes de que otra fase dependa de ella
+    public synchronized void record(String taskId, int result, List<String> filePaths) throws IOException {
+        StringBuilder line = new StringBuilder("task ").append(taskId).append(' ').append(result).append(' ').append(filePaths.size());
+        for (String filePath : filePaths) {
+            File file = new File(filePath);
+            line.append(' ').append(file.getName()).append(':').append(file.length()).append(':').append(trailerChecksum(file));
+            committedFiles.add(file.getName());
+        }
+        line.append('\n');
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        out.getFD().sync();
+        committedTasks.put(taskId, result);
+    }
+
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static boolean matches(File file, long length, String checksum) {
+        try {
+            return file.length() == length && trailerChecksum(file).equals(checksum);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // CRC32 que SpillWriter escribe en los últimos 4 bytes del archivo
+    private static String trailerChecksum(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < 4) {
+                throw new IOException("Archivo demasiado corto para tener CRC: " + file);
+            }
+            raf.seek(raf.length() - 4);
+            return Integer.toHexString(raf.readInt());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+// Métricas de un trabajo: las tareas de todos sus coordinadores y del Final Reduce, histogramas de
+// duración y de espera en cola por fase, y el GC de la JVM durante el trabajo. Al final se escribe
+// un informe JSON (writeReport) para saber si una ejecución lenta fue E/S, GC o desbalance:
+//  - "stages": por fase, duración de punta a punta, percentiles por tarea, totales de registros
+//    y bytes, y el desbalance (tarea más lenta / mediana),
+//  - "tasks": cada intento con sus contadores (los intentos abortados por la ejecución especulativa
+//    también aparecen),
+//  - "gc": colecciones y tiempo de pausa acumulado mientras corría el trabajo.
+public class JobMetrics {
+
+    private static final List<String> STAGE_ORDER = Arrays.asList("map", "shuffle", "reduce", "final_reduce");
+
+    private final String jobName;
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final long gcCountAtStart = gcCount();
+    private final long gcMillisAtStart = gcMillis();
+    private final Queue<TaskMetrics> tasks = new ConcurrentLinkedQueue<>();
+    private final Map<String, LatencyHistogram> runTimes = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> queueWaits = new ConcurrentHashMap<>();
+    private final Map<String, String> settings = Collections.synchronizedMap(new LinkedHashMap<>());
+    private Recording recording;
+    private String recordingFile;
+
+    public JobMetrics(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public TaskMetrics newTask(String stage, String name, int node, int attempt) {
+        TaskMetrics task = new TaskMetrics(this, stage, name, node, attempt);
+        tasks.add(task);
+        return task;
+    }
+
+    // Configuración que conviene tener junto a los números (entrada, compresión, hilos, ...)
+    public void setting(String key, Object value) {
+        settings.put(key, String.valueOf(value));
+    }
+
+    // Graba JFR (perfil "default", bajo costo) hasta writeReport; los TaskEvent quedan en la grabación
+    public void startRecording(String file) throws IOException {
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Configuración JFR inválida: " + e.getMessage(), e);
+        }
+        recording.setDestination(Paths.get(file));
+        recording.setName("mapreduce " + jobName);
+        recording.start();
+        recordingFile = file;
+    }
+
+    void taskEnded(TaskMetrics task) {
+        runTimes.computeIfAbsent(task.getStage(), stage -> new LatencyHistogram()).record(task.getRunNanos() / 1000);
+        queueWaits.computeIfAbsent(task.getStage(), stage -> new LatencyHistogram()).record(task.getQueueWaitNanos() / 1000);
+    }
+
+    public void writeReport(String file) throws IOException {
+        long wallNanos = System.nanoTime() - startNanos;
+        if (recording != null) {
+            recording.stop(); // Con destino fijado, stop() escribe el archivo
+            recording.close();
+            recording = null;
+        }
+
+        Map<String, List<TaskMetrics>> byStage = new TreeMap<>(Comparator.comparingInt(JobMetrics::stageRank).thenComparing(stage -> stage));
+        for (TaskMetrics task : tasks) {
+            byStage.computeIfAbsent(task.getStage(), stage -> new ArrayList<>()).add(task);
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"job\": ").append(quote(jobName)).append(",\n");
+        json.append("  \"startTime\": ").append(quote(Instant.ofEpochMilli(startMillis).toString())).append(",\n");
+        json.append("  \"wallMillis\": ").append(wallNanos / 1_000_000).append(",\n");
+        json.append("  \"settings\": {");
+        synchronized (settings) {
+            String separator = "";
+            for (Map.Entry<String, String> setting : settings.entrySet()) {
+                json.append(separator).append(quote(setting.getKey())).append(": ").append(quote(setting.getValue()));
+                separator = ", ";
+            }
+        }
+        json.append("},\n");
+        json.append("  \"gc\": {\"collections\": ").append(gcCount() - gcCountAtStart)
+                .append(", \"pauseMillis\": ").append(gcMillis() - gcMillisAtStart)
+                .append(", \"peakHeapBytes\": ").append(peakHeapBytes()).append("},\n");
+        if (recordingFile != null) {
+            json.append("  \"jfr\": ").append(quote(recordingFile)).append(",\n");
+        }
+
+        json.append("  \"stages\": {");
+        String separator = "\n";
+        for (Map.Entry<String, List<TaskMetrics>> stage : byStage.entrySet()) {
+            json.append(separator).append("    ").append(quote(stage.getKey())).append(": ").append(stageJson(stage.getKey(), stage.getValue()));
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"tasks\": [");
+        separator = "\n";
+        for (List<TaskMetrics> stageTasks : byStage.values()) {
+            for (TaskMetrics task : stageTasks) {
+                json.append(separator).append("    ").append(task.toJson());
+                separator = ",\n";
+            }
+        }
+        json.append("\n  ]\n}\n");
+
+        String tmp = file + ".tmp";
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+        OutputCommitter.commit(tmp, file);
+    }
+
+    private String stageJson(String stage, List<TaskMetrics> stageTasks) {
+        long firstStart = Long.MAX_VALUE;
+        long lastEnd = Long.MIN_VALUE;
+        long recordsIn = 0, recordsOut = 0, bytesRead = 0, bytesWritten = 0;
+        int spills = 0;
+        Map<String, Integer> statuses = new TreeMap<>();
+        List<Long> runTimesOfSucceeded = new ArrayList<>();
+        for (TaskMetrics task : stageTasks) {
+            statuses.merge(task.getStatus(), 1, Integer::sum);
+            if (!task.hasStarted() || task.getEndNanos() == 0) {
+                continue;
+            }
+            firstStart = Math.min(firstStart, task.getStartNanos());
+            lastEnd = Math.max(lastEnd, task.getEndNanos());
+            recordsIn += task.getRecordsIn();
+            recordsOut += task.getRecordsOut();
+            bytesRead += task.getBytesRead();
+            bytesWritten += task.getBytesWritten();
+            spills += task.getSpills();
+            if (task.getStatus().equals("succeeded")) {
+                runTimesOfSucceeded.add(task.getRunNanos());
+            }
+        }
+        Collections.sort(runTimesOfSucceeded);
+        double skew = runTimesOfSucceeded.isEmpty() ? 0
+                : (double) runTimesOfSucceeded.get(runTimesOfSucceeded.size() - 1) / Math.max(1, runTimesOfSucceeded.get(runTimesOfSucceeded.size() / 2));
+
+        StringBuilder statusJson = new StringBuilder();
+        for (Map.Entry<String, Integer> status : statuses.entrySet()) {
+            statusJson.append(statusJson.length() == 0 ? "" : ", ").append(quote(status.getKey())).append(": ").append(status.getValue());
+        }
+        LatencyHistogram runTime = runTimes.getOrDefault(stage, new LatencyHistogram());
+        LatencyHistogram queueWait = queueWaits.getOrDefault(stage, new LatencyHistogram());
+        return "{\"attempts\": {" + statusJson + "}"
+                + ", \"spanMillis\": " + (lastEnd < firstStart ? 0 : (lastEnd - firstStart) / 1_000_000)
+                + ", \"recordsIn\": " + recordsIn
+                + ", \"recordsOut\": " + recordsOut
+                + ", \"bytesRead\": " + bytesRead
+                + ", \"bytesWritten\": " + bytesWritten
+                + ", \"spills\": " + spills
+                + ", \"skew\": " + String.format(Locale.ROOT, "%.2f", skew)
+                + ",\n      \"runTime\": " + runTime.toJson()
+                + ",\n      \"queueWait\": " + queueWait.toJson() + "}";
+    }
+
+    private static int stageRank(String stage) {
+        int rank = STAGE_ORDER.indexOf(stage);
+        return rank < 0 ? STAGE_ORDER.size() : rank;
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,69 @@
+// Histograma de latencias en microsegundos con cubetas log-lineales: cada potencia de 2 se divide
+// en 8 cubetas, así cualquier percentil tiene un error menor al 12,5 % con memoria fija
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 8;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public synchronized void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    // Límite superior de la cubeta donde cae el percentil `p` (0-100), acotado por el máximo real
+    public synchronized long percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * p / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    public synchronized String toJson() {
+        return "{\"count\": " + count
+                + ", \"minMicros\": " + (count == 0 ? 0 : min)
+                + ", \"meanMicros\": " + (count == 0 ? 0 : sum / count)
+                + ", \"p50Micros\": " + percentile(50)
+                + ", \"p90Micros\": " + percentile(90)
+                + ", \"p99Micros\": " + percentile(99)
+                + ", \"maxMicros\": " + max + "}";
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 3
+        int subBucket = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return (exponent - 2) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 2;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - 3)) - 1;
+    }
+}
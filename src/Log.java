@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Salida de consola con niveles: -Dmapreduce.log=off | error | warn | info | debug (por defecto info).
+// Las tareas no escriben en System.out: encolan el mensaje y un hilo aparte lo imprime por lotes,
+// así ningún nodo se sincroniza sobre stdout ni espera a la consola. Los mensajes por tarea
+// (cada split mapeado, cada mezcla terminada) son de nivel debug.
+public final class Log {
+
+    public static final int OFF = 0;
+    public static final int ERROR = 1;
+    public static final int WARN = 2;
+    public static final int INFO = 3;
+    public static final int DEBUG = 4;
+
+    private static final int LEVEL = parseLevel(System.getProperty("mapreduce.log", "info"));
+    private static final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private static final Object lock = new Object();
+    private static long enqueued;
+    private static long printed;
+
+    static {
+        Thread writer = new Thread(Log::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // System.exit en medio de una ejecución no debe perder lo que quedaba en la cola
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static boolean isEnabled(int level) {
+        return level <= LEVEL;
+    }
+
+    public static void error(String message) {
+        log(ERROR, "\u001B[31m" + message + "\u001B[0m");
+    }
+
+    public static void warn(String message) {
+        log(WARN, "\u001B[33m" + message + "\u001B[0m");
+    }
+
+    // Avisos de estado del trabajo (azul)
+    public static void info(String message) {
+        log(INFO, "\u001B[34m" + message + "\u001B[0m");
+    }
+
+    // Una fase o un trabajo que terminó bien (verde)
+    public static void success(String message) {
+        log(INFO, "\u001B[32m" + message + "\u001B[0m");
+    }
+
+    // Progreso del trabajo sin color
+    public static void progress(String message) {
+        log(INFO, message);
+    }
+
+    public static void debug(String message) {
+        log(DEBUG, message);
+    }
+
+    // Espera a que se imprima todo lo encolado (antes de preguntarle algo al usuario o al terminar)
+    public static void flush() {
+        synchronized (lock) {
+            long target = enqueued;
+            while (printed < target) {
+                try {
+                    lock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void log(int level, String message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        synchronized (lock) {
+            enqueued++;
+        }
+        queue.add(message);
+    }
+
+    private static void writeLoop() {
+        List<String> batch = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            for (String message : batch) {
+                text.append(message).append(System.lineSeparator());
+            }
+            System.out.print(text);
+            System.out.flush();
+            synchronized (lock) {
+                printed += batch.size();
+                lock.notifyAll();
+            }
+            batch.clear();
+            text.setLength(0);
+        }
+    }
+
+    private static int parseLevel(String name) {
+        switch (name.toLowerCase()) {
+            case "off":
+                return OFF;
+            case "error":
+                return ERROR;
+            case "warn":
+                return WARN;
+            case "info":
+                return INFO;
+            case "debug":
+                return DEBUG;
+            default:
+                throw new IllegalArgumentException("Nivel de log desconocido: " + name + " (opciones: off, error, warn, info, debug)");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+// Combinador del camino rápido: trabaja sobre los long que guarda el motor (ya convertidos con el
+// LongValueSerializer del trabajo), sin crear objetos por registro
+public interface LongCombiner extends Combiner<Long> {
+
+    long combine(long accumulated, long value);
+
+    @Override
+    default Long combine(Long accumulated, Long value) {
+        return combine(accumulated.longValue(), value.longValue());
+    }
+}
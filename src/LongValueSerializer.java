@@ -0,0 +1,28 @@
+// Serializador del camino rápido: el valor viaja por el motor como un long primitivo
+public interface LongValueSerializer<V> extends ValueSerializer<V> {
+
+    long toLong(V value);
+
+    V fromLong(long value);
+
+    // 8 bytes big-endian; el motor no los usa, guarda el long directamente
+    @Override
+    default byte[] serialize(V value) {
+        long bits = toLong(value);
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) bits;
+            bits >>>= 8;
+        }
+        return bytes;
+    }
+
+    @Override
+    default V deserialize(byte[] bytes, int offset, int length) {
+        long bits = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            bits = (bits << 8) | (bytes[i] & 0xFF);
+        }
+        return fromLong(bits);
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.*;
@@ -9,90 +13,236 @@ public class Main {
         // Tamaño de cada chunk
         int chunkSize = 32 * 1000 * 1000;
 
+        // Número de nodos Reduce por coordinador (cada uno produce reduce_N.bin)
+        int numReduceNodes = 2;
+
+        // Trabajo a ejecutar (-Dmapreduce.job=wordcount | bigrams | invertedindex)
+        Job<?, ?> job = Job.forName(System.getProperty("mapreduce.job", "wordcount"));
+
+        // Compresión de los archivos intermedios y de los chunks materializados (-Dmapreduce.compression=none | deflate).
+        // Los lectores la detectan en la cabecera, así que archivos de ambos tipos pueden convivir
+        CompressionCodec compression = CompressionCodec.forName(System.getProperty("mapreduce.compression", "none"));
+        // -Dmapreduce.materializeChunks=true copia cada split a chunk_N.txt en lugar de leer el rango de la entrada
+        boolean materializeChunks = Boolean.getBoolean("mapreduce.materializeChunks");
+
+        // Formato del resultado (-Dmapreduce.output=text | indexed): "(clave, valor)" en final_result.txt, o
+        // final_result.idx ordenado con índice y filtro de Bloom para consultar claves con ResultStore
+        String outputFormat = System.getProperty("mapreduce.output", "text");
+        if (!outputFormat.equals("text") && !outputFormat.equals("indexed")) {
+            throw new IllegalArgumentException("Formato de resultado desconocido: " + outputFormat + " (opciones: text, indexed)");
+        }
+        boolean indexedOutput = outputFormat.equals("indexed");
+        if (indexedOutput && !job.hasLongValues()) {
+            // El índice guarda un long por clave
+            Log.warn("El resultado indexado solo admite trabajos con valores long. Se exporta en texto.");
+            indexedOutput = false;
+            outputFormat = "text";
+        }
+        String finalOutput = "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/final_result." + (indexedOutput ? "idx" : "txt");
+
+        // Modo aproximado (-Dmapreduce.approximate=true): cada Map resume su chunk en sketches de tamaño fijo
+        // y el resultado son solo las claves más frecuentes con conteos aproximados (ver SketchSpec)
+        SketchSpec approximate = SketchSpec.fromProperties();
+        if (approximate != null && !job.hasLongValues()) {
+            // Los sketches suman conteos: no sirven para listas ni otros valores
+            Log.warn("El modo aproximado solo admite trabajos con valores long. Se calcula el resultado exacto.");
+            approximate = null;
+        }
+
+        // Modo incremental (-Dmapreduce.incremental=true): solo se procesa lo agregado a la entrada desde la
+        // última ejecución y se suma a los conteos guardados en lugar de recalcular todo.
+        // Solo aplica al conteo de palabras: el corte en el último espacio supone claves de una palabra
+        boolean incremental = Boolean.getBoolean("mapreduce.incremental");
+        if (incremental && !(job instanceof WordCountJob)) {
+            Log.warn("El modo incremental solo está disponible para el conteo de palabras. Se procesa toda la entrada.");
+            incremental = false;
+        }
+        if (incremental && approximate != null) {
+            // Los conteos guardados son exactos; sumarles un sketch los dejaría a medias
+            Log.warn("El modo incremental no admite el modo aproximado. Se procesa toda la entrada.");
+            incremental = false;
+        }
+        IncrementalState incrementalState = null;
+        long inputStart = 0;
+        if (incremental) {
+            new File("/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Incremental/").mkdirs();
+            incrementalState = IncrementalState.load("/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Incremental/", ruta, numReduceNodes);
+            inputStart = incrementalState.getOffset();
+            Log.info("Info: Modo incremental. Procesando desde el byte " + inputStart + " de " + new File(ruta).length() + ".");
+        }
+
+        // Métricas del trabajo: al final se escribe un informe JSON (-Dmapreduce.report=<archivo>);
+        // -Dmapreduce.jfr=true graba además los eventos de cada tarea y de la JVM en job.jfr
+        JobMetrics metrics = new JobMetrics(job.getName());
+        metrics.setting("input", ruta);
+        metrics.setting("inputStart", inputStart);
+        metrics.setting("chunkSize", chunkSize);
+        metrics.setting("compression", compression == null ? "none" : compression.getName());
+        metrics.setting("output", outputFormat);
+        if (Boolean.getBoolean("mapreduce.jfr")) {
+            metrics.startRecording("/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/job.jfr");
+        }
+
         // Solicitar errores al usuario
+        Log.flush();
         Scanner scanner = new Scanner(System.in);
         System.out.print("Inducir un error en el coordinador? (S/N): ");
         boolean induceCoordinatorError = scanner.nextLine().trim().equalsIgnoreCase("S");
 
         // Si el coordinador falla, el programa se termina
         if (induceCoordinatorError) {
-            System.out.println("\u001B[31mEl coordinador ha fallado. Terminando programa...\u001B[0m");
+            Log.error("El coordinador ha fallado. Terminando programa...");
             System.exit(1);
         }
 
+        // Modo multiproceso (-Dmapreduce.cluster.workers=N): los nodos son procesos WorkerMain aparte en lugar de
+        // hilos de esta JVM. N workers se lanzan en esta máquina; otros pueden conectarse al puerto
+        // -Dmapreduce.cluster.port desde otros hosts. Los fallos se detectan por latidos, no con errores inducidos.
+        int clusterWorkers = Integer.getInteger("mapreduce.cluster.workers", 0);
+        boolean cluster = clusterWorkers > 0 || System.getProperty("mapreduce.cluster.port") != null;
+        if (cluster && approximate != null) {
+            Log.warn("El modo multiproceso no admite el modo aproximado. Se calculan los conteos exactos.");
+            approximate = null;
+        }
+        metrics.setting("approximate", approximate == null ? "none" : approximate.toString());
+
         // Inducir fallos en los nodos
-        System.out.print("Inducir un error en el nodo Map? (S/N): ");
-        boolean induceMapError = scanner.nextLine().trim().equalsIgnoreCase("S");
+        boolean induceMapError = false;
+        boolean induceShuffleError = false;
+        boolean induceReduceError = false;
+        boolean induceWorkerCrash = false;
+        if (cluster) {
+            System.out.print("Inducir la caída de un worker? (S/N): ");
+            induceWorkerCrash = scanner.nextLine().trim().equalsIgnoreCase("S");
+        } else {
+            System.out.print("Inducir un error en el nodo Map? (S/N): ");
+            induceMapError = scanner.nextLine().trim().equalsIgnoreCase("S");
 
-        System.out.print("Inducir un error en el nodo Shuffle? (S/N): ");
-        boolean induceShuffleError = scanner.nextLine().trim().equalsIgnoreCase("S");
+            System.out.print("Inducir un error en el nodo Shuffle? (S/N): ");
+            induceShuffleError = scanner.nextLine().trim().equalsIgnoreCase("S");
 
-        System.out.print("Inducir un error en el nodo Reduce? (S/N): ");
-        boolean induceReduceError = scanner.nextLine().trim().equalsIgnoreCase("S");
+            System.out.print("Inducir un error en el nodo Reduce? (S/N): ");
+            induceReduceError = scanner.nextLine().trim().equalsIgnoreCase("S");
+        }
 
         System.out.print("Inducir un error en el Nodo Final Reduce? (S/N): ");
         boolean induceFinalReduceError = scanner.nextLine().trim().equalsIgnoreCase("S");
 
-        System.out.print("¿En qué MapReducer quieres inducir los errores (1 o 2)? ");
-        int errorCoordinator = scanner.nextInt();
-
-        // Coordinador 1 procesa los primeros 20 chunks, comenzando en chunk 0
-        Coordinator coordinator1 = new Coordinator("MapReduce1", chunkSize, ruta, "MapReduce1/", 20, 0, 0, false, induceMapError && errorCoordinator == 1, induceShuffleError && errorCoordinator == 1, induceReduceError && errorCoordinator == 1);
+        int errorCoordinator = 1;
+        if (!cluster) {
+            System.out.print("¿En qué MapReducer quieres inducir los errores (1 o 2)? ");
+            errorCoordinator = scanner.nextInt();
+        }
 
-        // Coordinador 2 procesa los siguientes 21 chunks, comenzando en chunk 20
-        Coordinator coordinator2 = new Coordinator("MapReduce2", chunkSize, ruta, "MapReduce2/", 21, chunkSize * 20, 20, false, induceMapError && errorCoordinator == 2, induceShuffleError && errorCoordinator == 2, induceReduceError && errorCoordinator == 2);
+        // Los chunks se reparten según lo que queda por procesar del archivo: la primera mitad para cada coordinador
+        int totalChunks = (int) ((new File(ruta).length() - inputStart + chunkSize - 1) / chunkSize);
+        int chunks1 = totalChunks / 2;
 
-        // Procesar en paralelo
-        Thread process1 = new Thread(() -> {
-            try {
-                executeCoordinator(coordinator1, induceMapError && errorCoordinator == 1);
-            } catch (Exception e) {
-                e.printStackTrace();
+        List<String> clusterReduceFiles = Collections.emptyList();
+        if (cluster) {
+            if (totalChunks > 0) {
+                clusterReduceFiles = runCluster(ruta, chunkSize, inputStart, numReduceNodes, job, clusterWorkers, induceWorkerCrash);
             }
-        });
+        } else {
+            // Un solo planificador para las tareas de ambos coordinadores (hilos = núcleos, o -Dmapreduce.workers=N)
+            TaskScheduler scheduler = new TaskScheduler(TaskScheduler.defaultParallelism());
+            Log.info("Info: Planificador con " + scheduler.getParallelism() + " hilos.");
 
-        Thread process2 = new Thread(() -> {
+            // Coordinador 1 procesa la primera mitad de los chunks, comenzando en chunk 0
+            Coordinator coordinator1 = new Coordinator("MapReduce1", chunkSize, ruta, "MapReduce1/", chunks1, inputStart, 0, false, induceMapError && errorCoordinator == 1, induceShuffleError && errorCoordinator == 1, induceReduceError && errorCoordinator == 1);
+
+            // Coordinador 2 procesa el resto, comenzando donde terminó el coordinador 1
+            Coordinator coordinator2 = new Coordinator("MapReduce2", chunkSize, ruta, "MapReduce2/", totalChunks - chunks1, inputStart + (long) chunkSize * chunks1, chunks1, false, induceMapError && errorCoordinator == 2, induceShuffleError && errorCoordinator == 2, induceReduceError && errorCoordinator == 2);
+
+            coordinator1.setJob(job);
+            coordinator2.setJob(job);
+            coordinator1.setScheduler(scheduler);
+            coordinator2.setScheduler(scheduler);
+            coordinator1.setNumReduceNodes(numReduceNodes);
+            coordinator2.setNumReduceNodes(numReduceNodes);
+            coordinator1.setCompression(compression);
+            coordinator2.setCompression(compression);
+            coordinator1.setMetrics(metrics);
+            coordinator2.setMetrics(metrics);
+            metrics.setting("workers", scheduler.getParallelism());
+            coordinator1.setMaterializeChunks(materializeChunks);
+            coordinator2.setMaterializeChunks(materializeChunks);
+            coordinator1.setApproximate(approximate);
+            coordinator2.setApproximate(approximate);
+
+            // Procesar en paralelo (en modo incremental puede no haber nada nuevo)
+            ExecutorService coordinatorPool = Executors.newFixedThreadPool(2);
+            CompletableFuture<Void> process1 = totalChunks == 0 ? CompletableFuture.completedFuture(null) : CompletableFuture.runAsync(() -> runCoordinator(coordinator1), coordinatorPool);
+            CompletableFuture<Void> process2 = totalChunks == 0 ? CompletableFuture.completedFuture(null) : CompletableFuture.runAsync(() -> runCoordinator(coordinator2), coordinatorPool);
+
+            // Esperar a que ambos procesos terminen; si alguno falló no tiene sentido combinar resultados
             try {
-                executeCoordinator(coordinator2, induceMapError && errorCoordinator == 2);
-            } catch (Exception e) {
-                e.printStackTrace();
+                CompletableFuture.allOf(process1, process2).join();
+            } catch (CompletionException e) {
+                Log.error("Un coordinador falló: " + e.getCause().getMessage() + ". Abortando...");
+                e.getCause().printStackTrace();
+                System.exit(1);
+            } finally {
+                coordinatorPool.shutdown();
+                scheduler.shutdown();
             }
-        });
-
-        // Iniciar ambos procesos en paralelo
-        process1.start();
-        process2.start();
+        }
 
-        // Esperar a que ambos procesos terminen
-        process1.join();
-        process2.join();
+        // Combinar los resultados finales de ambos coordinadores (o del coordinador multiproceso)
+        // reduce_1 y reduce_2 cubren particiones distintas; solo se combinan los archivos de la misma partición
+        // En modo incremental cada grupo suma además los conteos guardados de las ejecuciones anteriores
+        String[][] reduceFiles = new String[numReduceNodes][];
+        for (int r = 0; r < numReduceNodes; r++) {
+            List<String> group = new ArrayList<>();
+            if (cluster) {
+                if (totalChunks > 0) {
+                    group.add(clusterReduceFiles.get(r));
+                }
+            } else if (totalChunks > 0) {
+                String reduceFile = "reduce_" + (r + 1) + (approximate != null ? ".sketch.bin" : ".bin");
+                group.add(Coordinator.defaultBaseDirectory() + "MapReduce1/" + reduceFile);
+                group.add(Coordinator.defaultBaseDirectory() + "MapReduce2/" + reduceFile);
+            }
+            if (incremental && incrementalState.baseFile(r) != null) {
+                group.add(incrementalState.baseFile(r));
+            }
+            reduceFiles[r] = group.toArray(new String[0]);
+        }
 
-        // Combinar los resultados finales de ambos coordinadores
-        String[] reduceFiles = {
-            "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/MapReduce1/reduce_1.txt",
-            "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/MapReduce1/reduce_2.txt",
-            "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/MapReduce2/reduce_1.txt",
-            "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/MapReduce2/reduce_2.txt"
-        };
+        // Los conteos guardados llegan hasta el último espacio; la palabra que sigue se vuelve a leer la próxima vez
+        long countedUntil = incremental ? IncrementalState.lastBoundary(ruta, inputStart) : 0;
+        byte[] pendingWord = incremental ? IncrementalState.pendingWord(ruta, countedUntil, WordCountJob.STOPWORD_BYTES) : null;
 
         // Reinicio del nodo Final Reduce si hay error
         int retryCount = 0;
         while (retryCount < 5) {  // Limitar el número de intentos
             try {
-                FinalReduceNode finalReduceNode = new FinalReduceNode(reduceFiles, "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/final_result.txt", induceFinalReduceError);
+                FinalReduceNode<?, ?> finalReduceNode = new FinalReduceNode<>(reduceFiles, job, finalOutput, !indexedOutput, induceFinalReduceError);
+                finalReduceNode.setIndexedOutput(indexedOutput);
+                finalReduceNode.setMetrics(metrics);
+                finalReduceNode.setApproximate(approximate);
+                if (incremental) {
+                    finalReduceNode.setSnapshot(incrementalState.nextBaseFiles(), pendingWord);
+                }
                 finalReduceNode.combineReduceResults(); // Combinar los resultados en un solo archivo final
                 break; // Salir del bucle si no hay error
             } catch (Exception e) {
-                System.out.println("Reiniciando Nodo Final Reduce después del fallo...");
+                Log.warn("Reiniciando Nodo Final Reduce después del fallo...");
                 Thread.sleep(5000); // Simula el tiempo de reinicio
         
                 // Intentamos realizar la combinación de nuevo después de reiniciar
                 try {
-                    FinalReduceNode finalReduceNodeRetry = new FinalReduceNode(reduceFiles, "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/final_result.txt", false);
+                    FinalReduceNode<?, ?> finalReduceNodeRetry = new FinalReduceNode<>(reduceFiles, job, finalOutput, !indexedOutput, false);
+                    finalReduceNodeRetry.setIndexedOutput(indexedOutput);
+                    finalReduceNodeRetry.setMetrics(metrics);
+                    finalReduceNodeRetry.setApproximate(approximate);
+                    if (incremental) {
+                        finalReduceNodeRetry.setSnapshot(incrementalState.nextBaseFiles(), pendingWord);
+                    }
                     finalReduceNodeRetry.combineReduceResults();
                     break;  // Salir del bucle si la combinación es exitosa
                 } catch (Exception retryException) {
-                    System.out.println("El nodo Final Reduce falló de nuevo. Intento " + (retryCount + 1) + " fallido.");
+                    Log.error("El nodo Final Reduce falló de nuevo. Intento " + (retryCount + 1) + " fallido.");
                 }
 
                 retryCount++;
@@ -100,23 +250,49 @@ public class Main {
         }
 
         if (retryCount == 5) {
-            System.out.println("Nodo Final Reduce falló múltiples veces. Abortando.");
+            Log.error("Nodo Final Reduce falló múltiples veces. Abortando.");
+        } else if (incremental) {
+            // Recién con el resultado escrito se publica el nuevo offset
+            incrementalState.commit(countedUntil);
         }
-    }
 
-    private static void executeCoordinator(Coordinator coordinator, boolean induceMapError) throws Exception {
-        coordinator.startProcessing();
+        String report = System.getProperty("mapreduce.report", "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/job_report.json");
+        metrics.writeReport(report);
+        Log.info("Info: Informe del trabajo en " + report + ".");
+        Log.flush();
+    }
 
-        List<String> chunks = coordinator.split();
-        coordinator.executeMap(chunks);
+    // Reparte el trabajo entre procesos WorkerMain; devuelve los reduce_N.bin ya descargados a esta máquina
+    private static List<String> runCluster(String ruta, int chunkSize, long inputStart, int numReduceNodes, Job<?, ?> job, int localWorkers, boolean induceWorkerCrash) throws Exception {
+        ClusterCoordinator cluster = new ClusterCoordinator(ruta, chunkSize, inputStart, "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Chunks/Cluster/",
+                4, numReduceNodes, job.getName());
+        cluster.setPort(Integer.getInteger("mapreduce.cluster.port", 0));
+        cluster.setHeartbeatTimeout(Long.getLong("mapreduce.cluster.heartbeatTimeout", 5000));
+        cluster.start();
+        try {
+            cluster.launchLocalWorkers(localWorkers, induceWorkerCrash);
+            return cluster.awaitCompletion();
+        } catch (IOException e) {
+            Log.error("El coordinador multiproceso falló: " + e.getMessage() + ". Abortando...");
+            System.exit(1);
+            return null;
+        } finally {
+            cluster.shutdown();
+        }
+    }
 
-        if (induceMapError) {
-            //System.out.println("\u001B[31mEl nodo Map ha fallado. Reiniciando nodo Map...\u001B[0m");
-            Thread.sleep(5000); // Simula el tiempo de reinicio del nodo Map
-            //System.out.println("\u001B[32mNodo Map reiniciado. Continuando procesamiento...\u001B[0m");
+    private static void runCoordinator(Coordinator coordinator) {
+        try {
+            executeCoordinator(coordinator);
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
+    }
+
+    private static void executeCoordinator(Coordinator coordinator) throws Exception {
+        coordinator.startProcessing();
 
-        coordinator.executeShuffle(chunks.size());
-        coordinator.executeReduce();
+        // Split, Map, Shuffle y Reduce se solapan; el Map fallido se reasigna sin detener a los demás
+        coordinator.execute();
     }
 }
\ No newline at end of file
@@ -1,111 +1,226 @@
 import java.io.*; 
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.Callable;
 
-public class MapNode implements Callable<Map<String, List<Integer>>> {
+public class MapNode<K, V> implements Callable<Integer> {
 
-    private List<String> chunkFiles;
-    private String outputFilePath;
+    private List<InputSplit> chunkFiles;
+    private String outputFilePrefix;
+    private int numPartitions;
+    private Job<K, V> job; // Qué se mapea, cómo se combinan los valores y a qué partición va cada clave
+    private long mappingWindow; // Tamaño máximo de split que se lee con mmap; los mayores se leen por bloques
+    private long memoryBudget; // Bytes de tabla antes de volcar un run ordenado a disco
     private String coordinatorId;
     private int nodeId;
-    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
-        "the", "ab", "and", "of", "to", "in", "a", "was", "he", "it", "his", "that", "with", "for", "had", "as", "at", "by", 
-        "on", "not", "b", "be", "is", "were", "but", "from", "which", "or", "this", "have", "him", "all", "her", "so", 
-        "when", "no", "if", "would", "out", "about", "there", "been", "more", "one", "who", "up", "their", "could", 
-        "what", "some", "into", "said", "than", "any", "only", "where", "every", "other", "through", "before", "these", 
-        "after", "should", "again", "over", "down", "those", "because", "such", "while", "then", "they", "them", 
-        "were", "until", "very", "having", "upon", "against", "each", "during", "whether", "however", "even", "nor", 
-        "though", "thus", "once", "never", "ever", "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p", "q", "r", "s", "t", "u", "v", "w", "x", "y", "z",
-        "ab", "ac", "ad", "ae", "af", "ag", "ah", "ai", "aj", "ak", "al", "am", "an", "ao", "ap", "aq", "ar", "as", "at", "au", "av", "aw", "ax", "ay", "az",
-        "bc", "bd", "be", "bf", "bg", "bh", "bi", "bj", "bk", "bl", "bm", "bn", "bo", "bp", "bq", "br", "bs", "bt", "bu", "bv", "bw", "bx", "by", "bz",
-        "cd", "ce", "cf", "cg", "ch", "ci", "cj", "ck", "cl", "cm", "cn", "co", "cp", "cq", "cr", "cs", "ct", "cu", "cv", "cw", "cx", "cy", "cz",
-        "de", "df", "dg", "dh", "di", "dj", "dk", "dl", "dm", "dn", "do", "dp", "dq", "dr", "ds", "dt", "du", "dv", "dw", "dx", "dy", "dz",
-        "ef", "eg", "eh", "ei", "ej", "ek", "el", "em", "en", "eo", "ep", "eq", "er", "es", "et", "eu", "ev", "ew", "ex", "ey", "ez",
-        "fg", "fh", "fi", "fj", "fk", "fl", "fm", "fn", "fo", "fp", "fq", "fr", "fs", "ft", "fu", "fv", "fw", "fx", "fy", "fz",
-        "gh", "gi", "gj", "gk", "gl", "gm", "gn", "go", "gp", "gq", "gr", "gs", "gt", "gu", "gv", "gw", "gx", "gy", "gz",
-        "hi", "hj", "hk", "hl", "hm", "hn", "ho", "hp", "hq", "hr", "hs", "ht", "hu", "hv", "hw", "hx", "hy", "hz",
-        "ij", "ik", "il", "im", "in", "io", "ip", "iq", "ir", "is", "it", "iu", "iv", "iw", "ix", "iy", "iz",
-        "jk", "jl", "jm", "jn", "jo", "jp", "jq", "jr", "js", "jt", "ju", "jv", "jw", "jx", "jy", "jz",
-        "kl", "km", "kn", "ko", "kp", "kq", "kr", "ks", "kt", "ku", "kv", "kw", "kx", "ky", "kz",
-        "lm", "ln", "lo", "lp", "lq", "lr", "ls", "lt", "lu", "lv", "lw", "lx", "ly", "lz",
-        "mn", "mo", "mp", "mq", "mr", "ms", "mt", "mu", "mv", "mw", "mx", "my", "mz",
-        "no", "np", "nq", "nr", "ns", "nt", "nu", "nv", "nw", "nx", "ny", "nz",
-        "op", "oq", "or", "os", "ot", "ou", "ov", "ow", "ox", "oy", "oz",
-        "pq", "pr", "ps", "pt", "pu", "pv", "pw", "px", "py", "pz",
-        "qr", "qs", "qt", "qu", "qv", "qw", "qx", "qy", "qz",
-        "rs", "rt", "ru", "rv", "rw", "rx", "ry", "rz",
-        "st", "su", "sv", "sw", "sx", "sy", "sz",
-        "tu", "tv", "tw", "tx", "ty", "tz",
-        "uv", "uw", "ux", "uy", "uz",
-        "vw", "vx", "vy", "vz",
-        "wx", "wy", "wz",
-        "xy", "xz",
-        "yz"
-    ));
     private boolean induceError;
     private boolean reassigned;
+    private CompressionCodec compression;
+    private TaskMetrics metrics = TaskMetrics.unreported("map");
+    private volatile long bytesProcessed; // Avance del nodo, lo consulta la ejecución especulativa
 
-    public MapNode(List<String> chunkFiles, String outputFilePath, String coordinatorId, int nodeId, boolean induceError, boolean reassigned) {
+    public MapNode(List<InputSplit> chunkFiles, String outputFilePrefix, int numPartitions, Job<K, V> job, long mappingWindow, long memoryBudget, String coordinatorId, int nodeId, boolean induceError, boolean reassigned) {
         this.chunkFiles = chunkFiles;
-        this.outputFilePath = outputFilePath;
+        this.outputFilePrefix = outputFilePrefix;
+        this.numPartitions = numPartitions;
+        this.job = job;
+        this.mappingWindow = mappingWindow;
+        this.memoryBudget = memoryBudget;
         this.coordinatorId = coordinatorId;
         this.nodeId = nodeId;
         this.induceError = induceError;
         this.reassigned = reassigned;
     }
 
+    // Compresión de los archivos que escribe el nodo (null = sin comprimir)
+    public void setCompression(CompressionCodec compression) {
+        this.compression = compression;
+    }
+
+    // Contadores de este intento; por defecto no se informan
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public boolean isError() {
         return induceError;
     }
 
+    // Fracción de los bytes de entrada ya tokenizados
+    public double getProgress() {
+        long totalBytes = 0;
+        for (InputSplit chunkFile : chunkFiles) {
+            totalBytes += chunkFile.getLength();
+        }
+        return totalBytes == 0 ? 0 : (double) bytesProcessed / totalBytes;
+    }
+
+    // Nombre del archivo que guarda la partición `partition` de la salida de un chunk
+    public static String partitionFile(String outputFilePrefix, int partition) {
+        return outputFilePrefix + "_part_" + partition + ".bin";
+    }
+
     @Override
-    public Map<String, List<Integer>> call() throws Exception {
+    public Integer call() throws Exception {
+        metrics.start();
+        boolean succeeded = false;
+        try {
+            int distinctWords = map();
+            succeeded = true;
+            return distinctWords;
+        } finally {
+            metrics.end(succeeded);
+        }
+    }
+
+    private int map() throws Exception {
         // Simular un fallo inducido en el nodo Map
         if (induceError) {
-            System.out.println("\u001B[31mError inducido en el Nodo Map " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de chunkFiles.\u001B[0m");
+            Log.error("Error inducido en el Nodo Map " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de chunkFiles.");
             throw new Exception("Nodo Map " + nodeId + " del " + coordinatorId + " falló intencionalmente.");
         }
 
         // Mensaje si es un nodo reasignado
         if (reassigned) {
-            System.out.println("\u001B[33mNodo Map " + nodeId + " del " + coordinatorId + " reasignado. Procesando chunkFiles...\u001B[0m");
+            Log.warn("Nodo Map " + nodeId + " del " + coordinatorId + " reasignado. Procesando chunkFiles...");
+        }
+
+        // Combinamos localmente en la tabla: una sola entrada por clave en lugar de una por par emitido.
+        // Si la tabla supera el presupuesto de memoria se vuelca a disco y se mezcla al final.
+        // Los valores que no son long se acumulan serializados y se combinan al ordenarlos.
+        SpillingWordCounter wordCount = null;
+        SpillingRecordBuffer<V> records = null;
+        MapOutput output;
+        if (job.hasLongValues()) {
+            wordCount = new SpillingWordCounter(job.getLongCombiner(), memoryBudget, outputFilePrefix, compression);
+            output = new TableOutput(wordCount);
+        } else {
+            records = new SpillingRecordBuffer<>(job.getCombiner(), job.getValueSerializer(), memoryBudget, outputFilePrefix, compression);
+            output = new BufferOutput(records);
+        }
+        Mapper<Long, ByteBuffer, K, V> mapper = job.createMapper();
+        SplitReader splitReader = new SplitReader(mappingWindow);
+        long mapStart = System.nanoTime();
+        for (InputSplit chunkFile : chunkFiles) {
+            splitReader.map(chunkFile, mapper, output, blockLength -> bytesProcessed += blockLength);
+            mapper.cleanup(output);
+            metrics.addBytesRead(chunkFile.getLength());
+            Log.debug("MAP Nodo " + nodeId + " del " + coordinatorId + " finalizó exitosamente el procesamiento de " + chunkFile.getName());
+        }
+        long writeStart = System.nanoTime();
+        metrics.addPhase("map", writeStart - mapStart);
+        metrics.addRecordsIn(output.records);
+
+        int distinctWords = wordCount != null ? saveMapOutput(wordCount) : saveMapOutput(records);
+        metrics.addPhase("write", System.nanoTime() - writeStart);
+        metrics.addRecordsOut(distinctWords);
+        metrics.addSpills(wordCount != null ? wordCount.getSpillCount() : records.getSpillCount());
+        for (int p = 0; p < numPartitions; p++) {
+            metrics.addBytesWritten(new File(partitionFile(outputFilePrefix, p)).length());
         }
+        return distinctWords;
+    }
 
-        Map<String, List<Integer>> wordCount = new TreeMap<>();
-        for (String chunkFile : chunkFiles) {
-            try (BufferedReader br = new BufferedReader(new FileReader(chunkFile))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    // Limpiar la línea eliminando todo lo que no sea letras y pasando a minúsculas
-                    line = line.replaceAll("[^a-zA-Z\\s]", "").toLowerCase();
-                    String[] words = line.split("\\s+");
-                    for (String word : words) {
-                        if (!word.isEmpty() && !STOPWORDS.contains(word)) {
-                            // Cada palabra es independiente, no acumulamos aquí
-                            wordCount.computeIfAbsent(word, k -> new ArrayList<>()).add(1);
-                        }
-                    }
+    // Escribe un archivo por partición; cada clave va a la partición que le asigna el particionador del trabajo
+    // Cada partición queda ordenada por clave, así el Shuffle puede mezclarlas sin cargarlas en memoria
+    private int saveMapOutput(SpillingWordCounter wordCount) throws IOException {
+        SpillWriter[] writers = new SpillWriter[numPartitions];
+        Partitioner partitioner = job.getPartitioner();
+        int[] distinctWords = new int[1];
+        try {
+            for (int p = 0; p < numPartitions; p++) {
+                writers[p] = new SpillWriter(partitionFile(outputFilePrefix, p), compression);
+            }
+            long[] value = new long[1];
+            wordCount.drainTo((key, offset, length, count) -> {
+                value[0] = count;
+                writers[partitioner.getPartition(key, offset, length, numPartitions)].write(key, offset, length, value, 1);
+                distinctWords[0]++;
+            });
+        } finally {
+            for (SpillWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-            System.out.println("MAP Nodo " + nodeId + " del " + coordinatorId + " finalizó exitosamente el procesamiento de " + new File(chunkFile).getName());
-        
         }
-        saveMapOutput(wordCount, outputFilePath);
-        return wordCount;
+        return distinctWords[0];
     }
 
-    private void saveMapOutput(Map<String, List<Integer>> wordCount, String filePath) {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            for (Map.Entry<String, List<Integer>> entry : wordCount.entrySet()) {
-                for (Integer count : entry.getValue()) {
-                    writer.write("(" + entry.getKey() + ", " + count + ")\n");
+    // Igual, con los valores en bytes (versión 3 o 4 del formato intermedio)
+    private int saveMapOutput(SpillingRecordBuffer<V> records) throws IOException {
+        SpillWriter[] writers = new SpillWriter[numPartitions];
+        Partitioner partitioner = job.getPartitioner();
+        int[] distinctKeys = new int[1];
+        try {
+            for (int p = 0; p < numPartitions; p++) {
+                writers[p] = new SpillWriter(partitionFile(outputFilePrefix, p), compression, true);
+            }
+            records.drainTo((key, keyOffset, keyLength, value, valueOffset, valueLength) -> {
+                writers[partitioner.getPartition(key, keyOffset, keyLength, numPartitions)].write(key, keyOffset, keyLength, value, valueOffset, valueLength);
+                distinctKeys[0]++;
+            });
+        } finally {
+            for (SpillWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return distinctKeys[0];
     }
-}
 
+    private abstract class MapOutput implements Output<K, V> {
+        long records; // Pares emitidos por el Mapper
+    }
+
+    // Los pares que emite el Mapper van directo a la tabla de combinación, ya serializados
+    private class TableOutput extends MapOutput {
+
+        private final SpillingWordCounter table;
+        private final Serializer<K> keySerializer = job.getKeySerializer();
+        private final LongValueSerializer<V> valueSerializer = (LongValueSerializer<V>) job.getValueSerializer();
+
+        TableOutput(SpillingWordCounter table) {
+            this.table = table;
+        }
+
+        @Override
+        public void collect(K key, V value) throws IOException {
+            byte[] bytes = keySerializer.serialize(key);
+            records++;
+            table.add(bytes, 0, bytes.length, valueSerializer.toLong(value));
+        }
+
+        @Override
+        public void collectSerialized(byte[] key, int offset, int length, long value) throws IOException {
+            records++;
+            table.add(key, offset, length, value);
+        }
+    }
+
+    // Valores que no son long: el par se serializa entero al buffer
+    private class BufferOutput extends MapOutput {
+
+        private final SpillingRecordBuffer<V> buffer;
+        private final Serializer<K> keySerializer = job.getKeySerializer();
+        private final ValueSerializer<V> valueSerializer = job.getValueSerializer();
+
+        BufferOutput(SpillingRecordBuffer<V> buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void collect(K key, V value) throws IOException {
+            byte[] keyBytes = keySerializer.serialize(key);
+            byte[] valueBytes = valueSerializer.serialize(value);
+            records++;
+            buffer.add(keyBytes, 0, keyBytes.length, valueBytes, 0, valueBytes.length);
+        }
+
+        @Override
+        public void collectSerialized(byte[] key, int offset, int length, long value) {
+            throw new UnsupportedOperationException("collectSerialized solo sirve para trabajos con valores long (" + job.getName() + ")");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+import java.io.IOException;
+
+// Fase Map de un trabajo: recibe cada registro de entrada y emite pares (clave, valor) intermedios.
+// Se crea una instancia por tarea, así puede guardar estado entre registros (p. ej. una palabra cortada entre bloques).
+public interface Mapper<KIn, VIn, KOut, VOut> {
+
+    void map(KIn key, VIn value, Output<KOut, VOut> output) throws IOException;
+
+    // Para registros que empiezan en el split y terminan después de su final (p. ej. un bigrama cuya segunda
+    // palabra está en el split siguiente): al terminar los bloques del split, mientras esto devuelva true
+    // el motor le pasa a mapPastEnd() los bytes que siguen al split, en bloques pequeños. El Mapper del
+    // split siguiente no debe emitir esos registros, así cada uno sale una sola vez.
+    default boolean needsPastEnd() {
+        return false;
+    }
+
+    default void mapPastEnd(KIn key, VIn value, Output<KOut, VOut> output) throws IOException {
+    }
+
+    // Se llama al terminar cada split, para emitir lo que haya quedado pendiente
+    default void cleanup(Output<KOut, VOut> output) throws IOException {
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Cuenta pares de palabras consecutivas ("bigramas"), con el mismo tokenizador y las mismas stopwords
+// que WordCountJob. El par que cruza el final de un split lo emite el Mapper de ese split, leyendo
+// después del final hasta la siguiente palabra; el split siguiente empieza sin palabra anterior.
+public class NGramCountJob implements Job<String, Long> {
+
+    @Override
+    public String getName() {
+        return "bigrams";
+    }
+
+    @Override
+    public Mapper<Long, ByteBuffer, String, Long> createMapper() {
+        return new BigramMapper();
+    }
+
+    @Override
+    public LongCombiner getCombiner() {
+        return new SumCombiner();
+    }
+
+    @Override
+    public Reducer<String, Long, Long> createReducer() {
+        return new WordCountJob.SumReducer<>();
+    }
+
+    @Override
+    public Serializer<String> getKeySerializer() {
+        return Serializer.STRING;
+    }
+
+    @Override
+    public ValueSerializer<Long> getValueSerializer() {
+        return ValueSerializer.LONG;
+    }
+
+    private static class BigramMapper implements Mapper<Long, ByteBuffer, String, Long> {
+
+        private Output<String, Long> output;
+        private String previous;
+        private boolean pastEnd; // Ya se leyó todo el split: solo falta la palabra que sigue a `previous`
+        private final WordTokenizer tokenizer = new WordTokenizer(WordCountJob.STOPWORD_BYTES, this::word);
+
+        private void word(byte[] token, int length) throws IOException {
+            if (pastEnd && previous == null) {
+                return; // El resto del bloque es del split siguiente
+            }
+            String word = new String(token, 0, length, StandardCharsets.US_ASCII);
+            if (previous != null) {
+                output.collect(previous + " " + word, 1L);
+            }
+            previous = pastEnd ? null : word;
+        }
+
+        @Override
+        public void map(Long offset, ByteBuffer block, Output<String, Long> output) throws IOException {
+            this.output = output;
+            tokenizer.feed(block);
+        }
+
+        @Override
+        public boolean needsPastEnd() {
+            return !pastEnd || previous != null;
+        }
+
+        @Override
+        public void mapPastEnd(Long offset, ByteBuffer block, Output<String, Long> output) throws IOException {
+            this.output = output;
+            if (!pastEnd) {
+                // La última palabra del split queda completa: el split termina antes de un espacio
+                tokenizer.finish();
+                pastEnd = true;
+            }
+            if (previous != null) {
+                tokenizer.feed(block);
+            }
+        }
+
+        @Override
+        public void cleanup(Output<String, Long> output) throws IOException {
+            this.output = output;
+            tokenizer.finish();
+            previous = null;
+            pastEnd = false;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+import java.io.IOException;
+
+// Destino de los pares que emite un Mapper
+public interface Output<K, V> {
+
+    void collect(K key, V value) throws IOException;
+
+    // Camino rápido para mappers que ya tienen la clave serializada y el valor codificado como long
+    // (solo en trabajos con LongValueSerializer): no crea ningún objeto por registro (es el que usa el conteo de palabras)
+    void collectSerialized(byte[] key, int offset, int length, long value) throws IOException;
+}
@@ -0,0 +1,16 @@
+import java.io.*;
+import java.nio.file.*;
+
+// Publicación de la salida de una tarea: cada intento escribe en archivos temporales propios y
+// solo el intento confirmado los renombra a su nombre definitivo. El renombrado es atómico
+// (mismo directorio), así quien lee el nombre definitivo nunca ve un archivo a medio escribir.
+public class OutputCommitter {
+
+    public static void commit(String attemptFile, String finalFile) throws IOException {
+        Files.move(Paths.get(attemptFile), Paths.get(finalFile), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void discard(String attemptFile) {
+        new File(attemptFile).delete();
+    }
+}
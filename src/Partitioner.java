@@ -0,0 +1,7 @@
+// Decide a qué partición (y por lo tanto a qué nodo Shuffle/Reduce) va cada clave intermedia.
+// Trabaja sobre la clave ya serializada: se llama una vez por clave distinta al escribir la salida Map
+// y así no hay que reconstruir el objeto.
+public interface Partitioner {
+
+    int getPartition(byte[] key, int offset, int length, int numPartitions);
+}
@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+// Lista ordenada y sin repetidos de identificadores de documento: el valor del índice invertido.
+// Se serializa como varint(tamaño) y las diferencias entre identificadores consecutivos en varint,
+// así una lista larga de documentos cercanos ocupa uno o dos bytes por documento.
+public class PostingList {
+
+    public static final ValueSerializer<PostingList> SERIALIZER = new ValueSerializer<PostingList>() {
+        @Override
+        public byte[] serialize(PostingList list) {
+            byte[] bytes = new byte[10 + list.size * 10];
+            int position = writeVarLong(bytes, 0, list.size);
+            long previous = 0;
+            for (int i = 0; i < list.size; i++) {
+                position = writeVarLong(bytes, position, list.ids[i] - previous);
+                previous = list.ids[i];
+            }
+            return Arrays.copyOf(bytes, position);
+        }
+
+        @Override
+        public PostingList deserialize(byte[] bytes, int offset, int length) {
+            int[] position = {offset};
+            int size = (int) readVarLong(bytes, position);
+            PostingList list = new PostingList(size);
+            long id = 0;
+            for (int i = 0; i < size; i++) {
+                id += readVarLong(bytes, position);
+                list.ids[i] = id;
+            }
+            list.size = size;
+            return list;
+        }
+    };
+
+    private long[] ids;
+    private int size;
+
+    public PostingList() {
+        this(4);
+    }
+
+    private PostingList(int capacity) {
+        this.ids = new long[Math.max(capacity, 1)];
+    }
+
+    public static PostingList of(long id) {
+        PostingList list = new PostingList(1);
+        list.ids[0] = id;
+        list.size = 1;
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    // Agrega los documentos de `other` y devuelve esta misma lista. Si todos vienen después de los que
+    // ya tiene (lo normal dentro de un Map, que recorre la entrada en orden) solo se copian al final.
+    public PostingList merge(PostingList other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (size == 0 || other.ids[0] >= ids[size - 1]) {
+            int from = size > 0 && other.ids[0] == ids[size - 1] ? 1 : 0;
+            if (size + other.size - from > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(size + other.size - from, ids.length * 2));
+            }
+            System.arraycopy(other.ids, from, ids, size, other.size - from);
+            size += other.size - from;
+            return this;
+        }
+        long[] merged = new long[size + other.size];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < size || j < other.size) {
+            long next;
+            if (j == other.size || (i < size && ids[i] <= other.ids[j])) {
+                next = ids[i++];
+            } else {
+                next = other.ids[j++];
+            }
+            if (n == 0 || merged[n - 1] != next) {
+                merged[n++] = next;
+            }
+        }
+        ids = merged;
+        size = n;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(ids[i]);
+        }
+        return text.append(']').toString();
+    }
+
+    private static int writeVarLong(byte[] bytes, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Lectura anticipada de un rango de archivo con doble buffer: mientras quien llama procesa un bloque,
+// AsynchronousFileChannel ya está leyendo el siguiente en el otro buffer, así el disco y la CPU
+// trabajan a la vez dentro de la misma tarea. La memoria es fija (dos bloques por lector).
+// -Dmapreduce.io.async=false vuelve a la lectura síncrona (para comparar).
+public class ReadAhead implements Closeable {
+
+    public static final boolean ENABLED = !"false".equals(System.getProperty("mapreduce.io.async"));
+
+    private final String filePath;
+    private final AsynchronousFileChannel channel;
+    private final long end;
+    private long nextPosition; // Dónde empieza el bloque que se está leyendo por adelantado
+    private ByteBuffer current;
+    private ByteBuffer ahead;
+    private Future<Integer> pending;
+
+    public ReadAhead(String filePath, long start, long length, int blockSize, boolean direct) throws IOException {
+        this.filePath = filePath;
+        this.channel = AsynchronousFileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.end = start + length;
+        this.nextPosition = start;
+        this.current = direct ? ByteBuffer.allocateDirect(blockSize) : ByteBuffer.allocate(blockSize);
+        this.ahead = direct ? ByteBuffer.allocateDirect(blockSize) : ByteBuffer.allocate(blockSize);
+        readAhead();
+    }
+
+    // Flujo de todo el archivo: con lectura anticipada, o un FileInputStream si está desactivada
+    public static InputStream openStream(String filePath, int blockSize) throws IOException {
+        if (!ENABLED) {
+            return new FileInputStream(filePath);
+        }
+        return new ReadAhead(filePath, 0, new File(filePath).length(), blockSize, false).asInputStream();
+    }
+
+    // Siguiente bloque (null al final del rango). Sigue siendo válido solo hasta la próxima llamada:
+    // en ese momento su buffer pasa a recibir la lectura anticipada.
+    public ByteBuffer next() throws IOException {
+        if (pending == null) {
+            return null;
+        }
+        ByteBuffer filled = ahead;
+        awaitBlock(filled);
+        ahead = current;
+        current = filled;
+        current.flip();
+        if (!current.hasRemaining()) {
+            pending = null;
+            return null;
+        }
+        readAhead();
+        return current;
+    }
+
+    // Lanza la lectura del siguiente bloque en `ahead`
+    private void readAhead() {
+        ahead.clear();
+        ahead.limit((int) Math.min(ahead.capacity(), end - nextPosition));
+        pending = channel.read(ahead, nextPosition);
+    }
+
+    // Espera la lectura pendiente y completa el bloque si el canal devolvió menos de lo pedido
+    private void awaitBlock(ByteBuffer block) throws IOException {
+        try {
+            int n = pending.get();
+            while (n >= 0) {
+                nextPosition += n;
+                if (!block.hasRemaining()) {
+                    break;
+                }
+                n = channel.read(block, nextPosition).get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException("Error leyendo " + filePath, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lectura de " + filePath + " interrumpida");
+        }
+    }
+
+    // Los bloques vistos como InputStream (cerrarlo cierra el canal)
+    public InputStream asInputStream() {
+        return new InputStream() {
+            private ByteBuffer block = ByteBuffer.allocate(0);
+
+            @Override
+            public int read() throws IOException {
+                return available() > 0 || refill() ? block.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!block.hasRemaining() && !refill()) {
+                    return -1;
+                }
+                int n = Math.min(len, block.remaining());
+                block.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return block.remaining();
+            }
+
+            @Override
+            public void close() throws IOException {
+                ReadAhead.this.close();
+            }
+
+            private boolean refill() throws IOException {
+                ByteBuffer next = next();
+                if (next == null) {
+                    return false;
+                }
+                block = next;
+                return true;
+            }
+        };
+    }
+
+    // Una lectura todavía pendiente termina con error al cerrar el canal; su buffer ya no se usa
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
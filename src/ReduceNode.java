@@ -2,71 +2,163 @@ import java.io.*;
 import java.util.*;
 import java.util.concurrent.Callable;
 
-public class ReduceNode implements Callable<Map<String, Integer>> {
+public class ReduceNode<K, V> implements Callable<Integer> {
 
     private List<String> shuffleFiles;
     private String outputFilePath;
+    private Job<K, V> job;
     private String coordinatorId;
     private int nodeId;
     private boolean induceError;
+    private CompressionCodec compression;
+    private TaskMetrics metrics = TaskMetrics.unreported("reduce");
+    private volatile long bytesProcessed; // Avance del nodo, lo consulta la ejecución especulativa
 
-    public ReduceNode(List<String> shuffleFiles, String outputFilePath, String coordinatorId, int nodeId, boolean induceError) {
+    public ReduceNode(List<String> shuffleFiles, String outputFilePath, Job<K, V> job, String coordinatorId, int nodeId, boolean induceError) {
         this.shuffleFiles = shuffleFiles;
         this.outputFilePath = outputFilePath;
+        this.job = job;
         this.coordinatorId = coordinatorId;
         this.nodeId = nodeId;
         this.induceError = induceError;
     }
 
+    // Compresión de los archivos que escribe el nodo (null = sin comprimir)
+    public void setCompression(CompressionCodec compression) {
+        this.compression = compression;
+    }
+
+    // Contadores de este intento; por defecto no se informan
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public boolean isError() {
         return induceError;
     }
 
+    // Fracción de los bytes de los archivos Shuffle ya reducidos
+    public double getProgress() {
+        long totalBytes = 0;
+        for (String shuffleFile : shuffleFiles) {
+            totalBytes += new File(shuffleFile).length();
+        }
+        return totalBytes == 0 ? 0 : (double) bytesProcessed / totalBytes;
+    }
+
     @Override
-    public Map<String, Integer> call() throws Exception {
+    public Integer call() throws Exception {
+        metrics.start();
+        boolean succeeded = false;
+        try {
+            int distinctKeys = reduce();
+            succeeded = true;
+            return distinctKeys;
+        } finally {
+            metrics.end(succeeded);
+        }
+    }
+
+    private int reduce() throws Exception {
         // Simulamos un fallo inducido en el nodo Reduce
         if (induceError) {
-            System.out.println("\u001B[31mError inducido en el Nodo Reduce " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de shuffleFiles.\u001B[0m");
+            Log.error("Error inducido en el Nodo Reduce " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de shuffleFiles.");
             throw new Exception("Nodo Reduce " + nodeId + " del " + coordinatorId + " falló intencionalmente.");
         }
 
-        Map<String, Integer> finalCounts = new TreeMap<>();
-        for (String shuffleFile : shuffleFiles) {
-            try (BufferedReader br = new BufferedReader(new FileReader(shuffleFile))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    // Limpiar la línea y parsear la palabra y los conteos
-                    String cleanedLine = line.replaceAll("[^a-zA-Z0-9,\\[\\]]", "");
-                    String[] parts = cleanedLine.split(",", 2);
-                    String word = parts[0].replace("(", "").trim();
-
-                    String[] counts = parts[1].replace("[", "").replace("]", "").trim().split(",");
-                    int sum = 0;
-                    for (String count : counts) {
-                        if (!count.isEmpty()) {
-                            sum += Integer.parseInt(count.trim());
-                        }
+        // Cada archivo Shuffle es una partición distinta y ya viene ordenado, así que la mezcla entrega
+        // cada clave una sola vez, con todos sus valores, y en orden: la salida se escribe tal cual sale
+        Reducer<K, V, V> reducer = job.createReducer();
+        Serializer<K> keySerializer = job.getKeySerializer();
+        ValueSerializer<V> valueSerializer = job.getValueSerializer();
+        boolean longValues = job.hasLongValues();
+        ValueView<V> values = new ValueView<>(valueSerializer);
+        int distinctKeys = 0;
+        long keysRead = 0;
+        long records = 0;
+        try (SpillMerger merger = new SpillMerger(shuffleFiles);
+             SpillWriter writer = new SpillWriter(outputFilePath, compression, !longValues)) {
+            long[] value = new long[1];
+            while (merger.next()) {
+                K key = keySerializer.deserialize(merger.keyBytes(), 0, merger.keyLength());
+                if (longValues) {
+                    values.reset(merger.values(), merger.valueCount());
+                } else {
+                    values.reset(merger.valueBytes(), merger.valueEnds(), merger.valueCount());
+                }
+                records += merger.valueCount();
+                V reduced = reducer.reduce(key, values);
+                if (reduced != null) {
+                    if (longValues) {
+                        value[0] = ((LongValueSerializer<V>) valueSerializer).toLong(reduced);
+                        writer.write(merger.keyBytes(), 0, merger.keyLength(), value, 1);
+                    } else {
+                        byte[] bytes = valueSerializer.serialize(reduced);
+                        writer.write(merger.keyBytes(), 0, merger.keyLength(), bytes, 0, bytes.length);
                     }
-                    finalCounts.merge(word, sum, Integer::sum);
+                    distinctKeys++;
+                }
+                if ((++keysRead & 1023) == 0) {
+                    bytesProcessed = merger.bytesRead();
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-            System.out.println("REDUCE Nodo " + nodeId + " del " + coordinatorId + " finalizó exitosamente el procesamiento de " + new File(shuffleFile).getName());
-
+            bytesProcessed = merger.bytesRead();
         }
-        saveReduceOutput(finalCounts, outputFilePath);
-        
-        return finalCounts;
+        metrics.addBytesRead(bytesProcessed);
+        metrics.addRecordsIn(records);
+        metrics.addRecordsOut(distinctKeys);
+        metrics.addBytesWritten(new File(outputFilePath).length());
+        Log.debug("REDUCE Nodo " + nodeId + " del " + coordinatorId + " finalizó exitosamente el procesamiento de " + shuffleFiles.size() + " archivos Shuffle");
+        return distinctKeys;
     }
 
-    private void saveReduceOutput(Map<String, Integer> finalCounts, String filePath) {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            for (Map.Entry<String, Integer> entry : finalCounts.entrySet()) {
-                writer.write("(" + entry.getKey() + ", " + entry.getValue() + ")\n");
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    // Los valores de la clave actual, convertidos al tipo del trabajo a medida que se recorren
+    // (desde los long del camino rápido o desde sus bytes serializados)
+    private static class ValueView<V> implements Iterable<V> {
+
+        private final ValueSerializer<V> serializer;
+        private long[] values;
+        private byte[] valueBytes;
+        private int[] valueEnds;
+        private int count;
+
+        ValueView(ValueSerializer<V> serializer) {
+            this.serializer = serializer;
+        }
+
+        void reset(long[] values, int count) {
+            this.values = values;
+            this.count = count;
+        }
+
+        void reset(byte[] valueBytes, int[] valueEnds, int count) {
+            this.valueBytes = valueBytes;
+            this.valueEnds = valueEnds;
+            this.count = count;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < count;
+                }
+
+                @Override
+                public V next() {
+                    if (index >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    if (valueEnds == null) {
+                        return ((LongValueSerializer<V>) serializer).fromLong(values[index++]);
+                    }
+                    int start = index == 0 ? 0 : valueEnds[index - 1];
+                    return serializer.deserialize(valueBytes, start, valueEnds[index++] - start);
+                }
+            };
         }
     }
 }
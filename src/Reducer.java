@@ -0,0 +1,7 @@
+// Fase Reduce de un trabajo: recibe una clave con todos sus valores intermedios (ya agrupados por el Shuffle)
+// y devuelve el valor final de esa clave, o null para no emitirla. La clave no cambia, así la salida
+// de cada Reduce queda ordenada y el Final Reduce puede combinar la de varios coordinadores.
+public interface Reducer<K, VIn, VOut> {
+
+    VOut reduce(K key, Iterable<VIn> values);
+}
@@ -0,0 +1,279 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Lector del resultado indexado que escribe ResultStoreWriter. El archivo se mapea en memoria y al
+// abrirlo solo se leen el cierre y el índice disperso (una clave por bloque): una búsqueda consulta
+// el filtro de Bloom, ubica el bloque con búsqueda binaria en el índice y recorre solo ese bloque,
+// así que el sistema operativo carga nada más las páginas que se tocan.
+// Se puede usar desde varios hilos a la vez.
+//
+//   java -cp <clases> ResultStore <archivo> get <clave> | prefix <prefijo> | range <desde> <hasta>
+public class ResultStore implements Closeable {
+
+    private final String filePath;
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final long entryCount;
+    private final int indexOffset; // Fin del último bloque
+    private final byte[][] blockFirstKeys;
+    private final int[] blockOffsets;
+    private final BloomFilter bloom;
+
+    // Registros de un recorrido en orden de clave, al estilo de SpillReader
+    public class Cursor {
+
+        private final byte[] to; // Primera clave que ya no entra (null = hasta el final)
+        private final byte[] prefix; // Solo claves con este prefijo (null = todas)
+        private int block;
+        private int position;
+        private int blockEnd;
+        private byte[] key = new byte[64];
+        private int keyLength;
+        private long value;
+        private boolean pending; // La clave actual ya se leyó pero next() todavía no la entregó
+        private boolean done;
+
+        Cursor(int block, byte[] from, byte[] to, byte[] prefix) {
+            this.to = to;
+            this.prefix = prefix;
+            if (blockOffsets.length == 0) {
+                done = true;
+                return;
+            }
+            this.block = block;
+            this.position = blockOffsets[block];
+            this.blockEnd = blockEnd(block);
+            // Se saltan las claves del bloque anteriores a `from`
+            if (from != null) {
+                while (!pending && !done) {
+                    if (!readEntry()) {
+                        done = true;
+                    } else if (Arrays.compareUnsigned(key, 0, keyLength, from, 0, from.length) >= 0) {
+                        pending = true;
+                    }
+                }
+            }
+        }
+
+        public boolean next() {
+            if (done) {
+                return false;
+            }
+            if (pending) {
+                pending = false;
+            } else if (!readEntry()) {
+                done = true;
+                return false;
+            }
+            if ((to != null && Arrays.compareUnsigned(key, 0, keyLength, to, 0, to.length) >= 0)
+                    || (prefix != null && !hasPrefix(key, keyLength, prefix))) {
+                done = true;
+                return false;
+            }
+            return true;
+        }
+
+        public byte[] keyBytes() {
+            return key;
+        }
+
+        public int keyLength() {
+            return keyLength;
+        }
+
+        public String key() {
+            return new String(key, 0, keyLength, StandardCharsets.UTF_8);
+        }
+
+        public long value() {
+            return value;
+        }
+
+        // Lee el siguiente registro (pasando al bloque siguiente si hace falta); false al final del archivo
+        private boolean readEntry() {
+            if (position == blockEnd) {
+                if (++block == blockOffsets.length) {
+                    return false;
+                }
+                position = blockOffsets[block];
+                blockEnd = blockEnd(block);
+            }
+            int shared = (int) readVarLong();
+            int unshared = (int) readVarLong();
+            if (key.length < shared + unshared) {
+                key = Arrays.copyOf(key, Math.max(shared + unshared, key.length * 2));
+            }
+            data.get(position, key, shared, unshared);
+            position += unshared;
+            keyLength = shared + unshared;
+            value = readVarLong();
+            return true;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                int b = data.get(position++);
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+    }
+
+    public ResultStore(String filePath) throws IOException {
+        this.filePath = filePath;
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < 5 + ResultStoreWriter.FOOTER_SIZE) {
+            channel.close();
+            throw new IOException(filePath + " no es un resultado indexado");
+        }
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException(filePath + " supera los 2 GB que se pueden mapear de una vez");
+        }
+        this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int footer = (int) size - ResultStoreWriter.FOOTER_SIZE;
+        if (data.getInt(0) != ResultStoreWriter.MAGIC || data.get(4) != ResultStoreWriter.VERSION || data.getInt(footer + 24) != ResultStoreWriter.MAGIC) {
+            channel.close();
+            throw new IOException(filePath + " no es un resultado indexado");
+        }
+        this.indexOffset = (int) data.getLong(footer);
+        int bloomOffset = (int) data.getLong(footer + 8);
+        this.entryCount = data.getLong(footer + 16);
+
+        // El índice disperso se copia al heap: es chico (una clave por bloque) y se consulta en cada búsqueda
+        int[] position = {indexOffset};
+        int blockCount = (int) readVarLong(position);
+        this.blockFirstKeys = new byte[blockCount][];
+        this.blockOffsets = new int[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            byte[] firstKey = new byte[(int) readVarLong(position)];
+            data.get(position[0], firstKey);
+            position[0] += firstKey.length;
+            blockFirstKeys[b] = firstKey;
+            blockOffsets[b] = (int) readVarLong(position);
+        }
+        this.bloom = BloomFilter.read(data, bloomOffset);
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    // Valor de la clave, o null si no está
+    public Long get(String key) {
+        return get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long get(byte[] key) {
+        if (!bloom.mightContain(WordSketch.hash(key, 0, key.length))) {
+            return null;
+        }
+        int block = blockFor(key);
+        if (block < 0) {
+            return null;
+        }
+        Cursor cursor = new Cursor(block, key, null, null);
+        if (cursor.next() && Arrays.equals(cursor.key, 0, cursor.keyLength, key, 0, key.length)) {
+            return cursor.value;
+        }
+        return null;
+    }
+
+    // Claves que empiezan con `prefix`, en orden
+    public Cursor prefix(String prefix) {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        return scan(bytes, null, bytes);
+    }
+
+    // Claves desde `from` (incluida) hasta `to` (excluida), en orden; null = sin límite de ese lado
+    public Cursor range(String from, String to) {
+        return scan(from == null ? null : from.getBytes(StandardCharsets.UTF_8), to == null ? null : to.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    private Cursor scan(byte[] from, byte[] to, byte[] prefix) {
+        int block = from == null ? 0 : Math.max(0, blockFor(from));
+        return new Cursor(block, from, to, prefix);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Último bloque cuya primera clave es <= key (-1 si la clave es menor que todas)
+    private int blockFor(byte[] key) {
+        int low = 0;
+        int high = blockFirstKeys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(blockFirstKeys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private int blockEnd(int block) {
+        return block + 1 < blockOffsets.length ? blockOffsets[block + 1] : indexOffset;
+    }
+
+    private static boolean hasPrefix(byte[] key, int keyLength, byte[] prefix) {
+        return keyLength >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private long readVarLong(int[] position) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            int b = data.get(position[0]++);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Uso: ResultStore <archivo> get <clave> | prefix <prefijo> | range <desde> <hasta>");
+            System.exit(2);
+        }
+        try (ResultStore store = new ResultStore(args[0])) {
+            switch (args[1]) {
+                case "get":
+                    Long value = store.get(args[2]);
+                    System.out.println(value == null ? "(" + args[2] + ") no está en " + store.filePath : "(" + args[2] + ", " + value + ")");
+                    break;
+                case "prefix":
+                    print(store.prefix(args[2]));
+                    break;
+                case "range":
+                    print(store.range(args[2], args.length > 3 ? args[3] : null));
+                    break;
+                default:
+                    System.err.println("Operación desconocida: " + args[1]);
+                    System.exit(2);
+            }
+        }
+    }
+
+    private static void print(Cursor cursor) {
+        while (cursor.next()) {
+            System.out.println("(" + cursor.key() + ", " + cursor.value() + ")");
+        }
+    }
+}
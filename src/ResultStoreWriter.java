@@ -0,0 +1,134 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Escritor del resultado indexado (final_result.idx) que lee ResultStore. Las claves deben llegar en
+// orden estricto de bytes sin signo, el mismo de los archivos de SpillWriter.
+//
+// Formato del archivo:
+//   cabecera:  "MRIX" (4 bytes) + versión (1 byte)
+//   bloques:   hasta BLOCK_ENTRIES registros; cada uno es varint(bytes compartidos con la clave
+//              anterior), varint(bytes restantes), esos bytes y varint(valor). El primero de cada
+//              bloque no comparte nada, así un bloque se puede leer sin los anteriores. Una búsqueda
+//              recorre a lo sumo un bloque, por eso son cortos (cientos de bytes con palabras).
+//   índice:    varint(número de bloques) y por bloque varint(largo), primera clave y varint(offset)
+//   Bloom:     int(número de hashes), int(número de longs) y los longs del filtro
+//   cierre:    long(offset del índice), long(offset del Bloom), long(número de registros),
+//              "MRIX" y el CRC32 de todo lo anterior (4 bytes, como en los archivos de SpillWriter)
+public class ResultStoreWriter implements Closeable {
+
+    public static final int MAGIC = 0x4D524958; // "MRIX"
+    public static final int VERSION = 1;
+    public static final int BLOCK_ENTRIES = 32;
+    public static final int FOOTER_SIZE = 8 + 8 + 8 + 4 + 4;
+
+    private static final int BLOOM_BITS_PER_KEY = 10;
+
+    private final CRC32 checksum = new CRC32();
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private long position;
+
+    private byte[] lastKey = new byte[64];
+    private int lastKeyLength = -1;
+    private long entryCount;
+
+    // Índice disperso: primera clave y offset de cada bloque
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private int blockCount;
+
+    // Hashes de todas las claves; el filtro se arma al cerrar, cuando se sabe cuántas son
+    private long[] hashes = new long[1024];
+
+    public ResultStoreWriter(String filePath) throws IOException {
+        this.file = new FileOutputStream(filePath);
+        this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, checksum), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        position = 5;
+    }
+
+    public void write(byte[] key, int offset, int length, long value) throws IOException {
+        if (lastKeyLength >= 0 && Arrays.compareUnsigned(lastKey, 0, lastKeyLength, key, offset, offset + length) >= 0) {
+            throw new IllegalArgumentException("Las claves del resultado indexado deben llegar ordenadas y sin repetir");
+        }
+        int shared = 0;
+        if (entryCount % BLOCK_ENTRIES == 0) {
+            // Bloque nuevo: su primera clave entra completa en el índice
+            writeIndexVarLong(length);
+            index.write(key, offset, length);
+            writeIndexVarLong(position);
+            blockCount++;
+        } else {
+            int max = Math.min(lastKeyLength, length);
+            while (shared < max && lastKey[shared] == key[offset + shared]) {
+                shared++;
+            }
+        }
+        writeVarLong(shared);
+        writeVarLong(length - shared);
+        out.write(key, offset + shared, length - shared);
+        position += length - shared;
+        writeVarLong(value);
+
+        if (lastKey.length < length) {
+            lastKey = new byte[Math.max(length, lastKey.length * 2)];
+        }
+        System.arraycopy(key, offset, lastKey, 0, length);
+        lastKeyLength = length;
+        if (entryCount == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        hashes[(int) entryCount++] = WordSketch.hash(key, offset, length);
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            writeVarLong(blockCount);
+            index.writeTo(out);
+            position += index.size();
+
+            long bloomOffset = position;
+            BloomFilter bloom = BloomFilter.create(entryCount, BLOOM_BITS_PER_KEY);
+            for (int i = 0; i < entryCount; i++) {
+                bloom.add(hashes[i]);
+            }
+            bloom.writeTo(out);
+
+            out.writeLong(indexOffset);
+            out.writeLong(bloomOffset);
+            out.writeLong(entryCount);
+            out.writeInt(MAGIC);
+            out.flush();
+            // El CRC va fuera del área que cubre
+            new DataOutputStream(file).writeInt((int) checksum.getValue());
+        } finally {
+            file.close();
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            position++;
+        }
+        out.writeByte((int) value);
+        position++;
+    }
+
+    private void writeIndexVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            index.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        index.write((int) value);
+    }
+}
@@ -0,0 +1,46 @@
+import java.nio.charset.StandardCharsets;
+
+// Convierte las claves de un trabajo a bytes y de vuelta. El motor ordena y agrupa las claves por sus
+// bytes (orden sin signo), así que el serializador también define el orden de la salida.
+public interface Serializer<T> {
+
+    byte[] serialize(T value);
+
+    T deserialize(byte[] bytes, int offset, int length);
+
+    // Texto en UTF-8 (el orden de bytes coincide con el orden de los caracteres)
+    Serializer<String> STRING = new Serializer<String>() {
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] bytes, int offset, int length) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+    };
+
+    // Enteros de 8 bytes big-endian con el bit de signo invertido, para que el orden de bytes sea el numérico
+    Serializer<Long> LONG = new Serializer<Long>() {
+        @Override
+        public byte[] serialize(Long value) {
+            long bits = value ^ Long.MIN_VALUE;
+            byte[] bytes = new byte[8];
+            for (int i = 7; i >= 0; i--) {
+                bytes[i] = (byte) bits;
+                bits >>>= 8;
+            }
+            return bytes;
+        }
+
+        @Override
+        public Long deserialize(byte[] bytes, int offset, int length) {
+            long bits = 0;
+            for (int i = offset; i < offset + 8; i++) {
+                bits = (bits << 8) | (bytes[i] & 0xFF);
+            }
+            return bits ^ Long.MIN_VALUE;
+        }
+    };
+}
@@ -0,0 +1,170 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Cliente de ShuffleServer: trae varias salidas remotas a la vez, con un máximo de descargas en
+// paralelo y de bytes en vuelo (las descargas grandes esperan a que terminen otras en lugar de
+// saturar la red y el disco de golpe). Sin compresión el archivo se recibe con transferFrom
+// directo al disco; con un códec se descomprime bloque por bloque con BlockInputStream.
+public class ShuffleFetcher {
+
+    // Archivo remoto a descargar y dónde dejarlo
+    public static class Source {
+        final String host;
+        final int port;
+        final String remotePath;
+        final String localPath;
+
+        public Source(String host, int port, String remotePath, String localPath) {
+            this.host = host;
+            this.port = port;
+            this.remotePath = remotePath;
+            this.localPath = localPath;
+        }
+    }
+
+    // Descarga fallida; dice de qué worker, para que el coordinador pueda rehacer lo que tenía
+    public static class FetchException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final String address;
+
+        FetchException(Source source, IOException cause) {
+            super("FETCH " + source.host + ":" + source.port + " " + cause.getMessage(), cause);
+            this.address = source.host + ":" + source.port;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+    }
+
+    private final int parallelFetches;
+    private final int maxInFlightBytes;
+    private final CompressionCodec codec; // Compresión pedida al servidor (null = ninguna)
+
+    public ShuffleFetcher(int parallelFetches, int maxInFlightBytes, CompressionCodec codec) {
+        this.parallelFetches = parallelFetches;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.codec = codec;
+    }
+
+    // Descarga todas las fuentes; si alguna falla se cancelan las demás y se lanza ese error
+    public void fetchAll(List<Source> sources) throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlightBytes);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelFetches, sources.size())), runnable -> {
+            Thread thread = new Thread(runnable, "shuffle-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletionService<Void> fetches = new ExecutorCompletionService<>(pool);
+            for (Source source : sources) {
+                fetches.submit(() -> {
+                    fetch(source, inFlight);
+                    return null;
+                });
+            }
+            for (int i = 0; i < sources.size(); i++) {
+                try {
+                    fetches.take().get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Descarga una sola fuente, sin límite de bytes en vuelo
+    public void fetch(Source source) throws IOException {
+        fetch(source, null);
+    }
+
+    private void fetch(Source source, Semaphore inFlight) throws IOException {
+        String tmp = source.localPath + ".tmp";
+        int permits = 0;
+        try (SocketChannel channel = SocketChannel.open()) {
+            channel.socket().connect(new InetSocketAddress(source.host, source.port), ClusterProtocol.CONNECT_TIMEOUT);
+            byte[] path = source.remotePath.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer request = ByteBuffer.allocate(4 + path.length + 1);
+            request.putInt(path.length).put(path).put(codec == null ? 0 : codec.getId()).flip();
+            while (request.hasRemaining()) {
+                channel.write(request);
+            }
+            ByteBuffer header = ByteBuffer.allocate(9);
+            readFully(channel, header);
+            long length = header.getLong(0);
+            CompressionCodec compression = CompressionCodec.forId(header.get(8));
+            if (length < 0) {
+                throw new FileNotFoundException(source.remotePath + " no existe");
+            }
+            if (inFlight != null) {
+                // Un archivo más grande que el límite pasa solo, ocupando todo el cupo
+                permits = (int) Math.min(length, maxInFlightBytes);
+                inFlight.acquire(permits);
+            }
+            try (FileChannel file = FileChannel.open(Paths.get(tmp), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (compression != null) {
+                    receiveCompressed(channel, file, length, compression);
+                } else {
+                    long received = 0;
+                    while (received < length) {
+                        long n = file.transferFrom(channel, received, length - received);
+                        if (n <= 0) {
+                            throw new EOFException("Descarga de " + source.remotePath + " cortada");
+                        }
+                        received += n;
+                    }
+                }
+            }
+            OutputCommitter.commit(tmp, source.localPath);
+        } catch (IOException e) {
+            new File(tmp).delete();
+            throw new FetchException(source, e);
+        } catch (InterruptedException e) {
+            new File(tmp).delete();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Descarga de " + source.remotePath + " interrumpida");
+        } finally {
+            if (permits > 0) {
+                inFlight.release(permits);
+            }
+        }
+    }
+
+    private static void receiveCompressed(SocketChannel channel, FileChannel file, long length, CompressionCodec codec) throws IOException {
+        // El flujo no se cierra: cerrarlo cerraría el canal, que lo cierra fetch()
+        InputStream blocks = new BlockInputStream(new BufferedInputStream(Channels.newInputStream(channel)), codec);
+        byte[] raw = new byte[BlockOutputStream.BLOCK_SIZE];
+        long received = 0;
+        int n;
+        while ((n = blocks.read(raw)) > 0) {
+            ByteBuffer out = ByteBuffer.wrap(raw, 0, n);
+            while (out.hasRemaining()) {
+                file.write(out);
+            }
+            received += n;
+        }
+        if (received != length) {
+            throw new EOFException("Descarga comprimida incompleta (" + received + " de " + length + " bytes)");
+        }
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Conexión cerrada a mitad de la descarga");
+            }
+        }
+    }
+}
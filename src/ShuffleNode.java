@@ -2,7 +2,7 @@ import java.io.*;
 import java.util.*;
 import java.util.concurrent.Callable;
 
-public class ShuffleNode implements Callable<Map<String, List<Integer>>> {
+public class ShuffleNode implements Callable<Integer> {
 
     private List<String> mapFiles;
     private String outputFilePath;
@@ -10,6 +10,8 @@ public class ShuffleNode implements Callable<Map<String, List<Integer>>> {
     private int nodeId;
     private boolean induceError;
     private boolean reassigned;
+    private CompressionCodec compression;
+    private TaskMetrics metrics = TaskMetrics.unreported("shuffle");
 
     public ShuffleNode(List<String> mapFiles, String outputFilePath, String coordinatorId, int nodeId, boolean induceError, boolean reassigned) {
         this.mapFiles = mapFiles;
@@ -21,52 +23,67 @@ public class ShuffleNode implements Callable<Map<String, List<Integer>>> {
 
     }
 
+    // Compresión de los archivos que escribe el nodo (null = sin comprimir)
+    public void setCompression(CompressionCodec compression) {
+        this.compression = compression;
+    }
+
+    // Contadores de este intento; por defecto no se informan
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public boolean isError() {
         return induceError;
     }
 
     @Override
-    public Map<String, List<Integer>> call() throws Exception {
+    public Integer call() throws Exception {
+        metrics.start();
+        boolean succeeded = false;
+        try {
+            int groupedWords = merge();
+            succeeded = true;
+            return groupedWords;
+        } finally {
+            metrics.end(succeeded);
+        }
+    }
+
+    private int merge() throws Exception {
         // Simular un fallo inducido en el nodo Shuffle
         if (induceError) {
-            System.out.println("\u001B[31mError inducido en el Nodo Shuffle " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de mapFiles.\u001B[0m");
+            Log.error("Error inducido en el Nodo Shuffle " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de mapFiles.");
             throw new Exception("Nodo Shuffle " + nodeId + " del " + coordinatorId + " falló intencionalmente.");
         }
 
         if (reassigned) {
-            System.out.println("\u001B[33mNodo Shuffle " + nodeId + " del " + coordinatorId + " reasignado. Procesando mapFiles...\u001B[0m");
+            Log.warn("Nodo Shuffle " + nodeId + " del " + coordinatorId + " reasignado. Procesando mapFiles...");
         }
 
-        Map<String, List<Integer>> shuffledData = new TreeMap<>();
-        for (String mapFile : mapFiles) {
-            try (BufferedReader br = new BufferedReader(new FileReader(mapFile))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    // Separar la palabra y el conteo desde el archivo
-                    String cleanedLine = line.replaceAll("[^a-zA-Z0-9,()]", "");
-                    String[] parts = cleanedLine.split(",");
-                    String word = parts[0].replace("(", "");
-                    int count = Integer.parseInt(parts[1].replace(")", "").trim());
-                    shuffledData.computeIfAbsent(word, k -> new ArrayList<>()).add(count);
+        // Los archivos Map vienen ordenados por clave: se mezclan en streaming y cada palabra sale
+        // agrupada con sus conteos parciales, sin guardar la partición completa en memoria.
+        // Los valores se copian tal cual, sean long o bytes serializados.
+        int groupedWords = 0;
+        long records = 0;
+        try (SpillMerger merger = new SpillMerger(mapFiles);
+             SpillWriter writer = new SpillWriter(outputFilePath, compression, merger.hasByteValues())) {
+            while (merger.next()) {
+                if (merger.hasByteValues()) {
+                    writer.write(merger.keyBytes(), 0, merger.keyLength(), merger.valueBytes(), merger.valueEnds(), merger.valueCount());
+                } else {
+                    writer.write(merger.keyBytes(), 0, merger.keyLength(), merger.values(), merger.valueCount());
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
+                records += merger.valueCount();
+                groupedWords++;
             }
-            System.out.println("SHUFFLE Nodo " + nodeId + " del " + coordinatorId + " finalizó exitosamente el procesamiento de " + new File(mapFile).getName());
-        
+            metrics.addBytesRead(merger.bytesRead());
         }
-        saveShuffleOutput(shuffledData, outputFilePath);
-
-        return shuffledData;
-    }
+        metrics.addRecordsIn(records);
+        metrics.addRecordsOut(groupedWords);
+        metrics.addBytesWritten(new File(outputFilePath).length());
+        Log.debug("SHUFFLE Nodo " + nodeId + " del " + coordinatorId + " finalizó exitosamente la mezcla de " + mapFiles.size() + " archivos Map");
 
-    private void saveShuffleOutput(Map<String, List<Integer>> shuffledData, String filePath) {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            for (Map.Entry<String, List<Integer>> entry : shuffledData.entrySet()) {
-                writer.write("(" + entry.getKey() + ", " + entry.getValue().toString() + ")\n");
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        return groupedWords;
     }
 }
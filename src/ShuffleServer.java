@@ -0,0 +1,205 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+// Servicio de descarga de las salidas de un worker (particiones Map y archivos Reduce), con NIO:
+// un solo hilo y un Selector atienden todas las descargas a la vez sin un hilo por cliente.
+//
+// Petición:  <largo de la ruta:int> <ruta UTF-8> <id del CompressionCodec:byte, 0 = ninguno>
+// Respuesta: <largo del archivo:long, -1 si no existe> <id del códec usado:byte> y el contenido
+//  - sin compresión el contenido va tal cual con FileChannel.transferTo (cero copias: del caché de
+//    páginas al socket sin pasar por el heap),
+//  - con un códec va en los mismos bloques que BlockOutputStream (y su marca de fin), que se
+//    comprimen a medida que el socket admite más datos.
+// Un códec que el servidor no conoce se responde sin compresión.
+// Solo se sirven archivos dentro de `rootDirectory`.
+public class ShuffleServer implements Closeable {
+
+    private final File rootDirectory;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread thread;
+
+    public ShuffleServer(File rootDirectory) throws IOException {
+        this.rootDirectory = rootDirectory.getCanonicalFile();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(0));
+        this.server.configureBlocking(false);
+        this.selector = Selector.open();
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::serve, "shuffle-server");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        selector.close();
+        server.close();
+    }
+
+    private void serve() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                Log.warn("Servidor de descargas: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (key.isAcceptable()) {
+            SocketChannel client = server.accept();
+            if (client != null) {
+                client.configureBlocking(false);
+                client.register(selector, SelectionKey.OP_READ, new Transfer());
+            }
+            return;
+        }
+        Transfer transfer = (Transfer) key.attachment();
+        SocketChannel client = (SocketChannel) key.channel();
+        try {
+            if (key.isReadable() && transfer.readRequest(client)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (key.isWritable() && transfer.write(client)) {
+                transfer.close();
+                client.close();
+            }
+        } catch (IOException e) {
+            // El cliente se fue a mitad de la descarga; la reintenta él
+            transfer.close();
+            client.close();
+        }
+    }
+
+    // Estado de una descarga en curso
+    private class Transfer implements Closeable {
+
+        private ByteBuffer request = ByteBuffer.allocate(4);
+        private boolean requestLengthRead;
+        private ByteBuffer header;
+        private FileChannel file;
+        private long position;
+        private long length;
+        private CompressionCodec codec;
+        private byte[] raw;
+        private ByteBuffer frame; // Marco comprimido pendiente de enviar (se reutiliza entre bloques)
+        private boolean endSent;
+
+        // Devuelve true cuando la petición llegó completa y la respuesta está lista
+        boolean readRequest(SocketChannel client) throws IOException {
+            if (client.read(request) < 0) {
+                throw new EOFException("Petición incompleta");
+            }
+            if (request.hasRemaining()) {
+                return false;
+            }
+            if (!requestLengthRead) {
+                int pathLength = request.getInt(0);
+                if (pathLength <= 0 || pathLength > 64 * 1024) {
+                    throw new IOException("Petición inválida");
+                }
+                request = ByteBuffer.allocate(pathLength + 1);
+                requestLengthRead = true;
+                return readRequest(client);
+            }
+            String path = new String(request.array(), 0, request.capacity() - 1, StandardCharsets.UTF_8);
+            try {
+                codec = CompressionCodec.forId(request.get(request.capacity() - 1));
+            } catch (IOException e) {
+                codec = null;
+            }
+            File target = new File(path).getCanonicalFile();
+            header = ByteBuffer.allocate(9);
+            if (target.getPath().startsWith(rootDirectory.getPath() + File.separator) && target.isFile()) {
+                file = FileChannel.open(target.toPath(), StandardOpenOption.READ);
+                length = file.size();
+                header.putLong(length);
+            } else {
+                header.putLong(-1);
+            }
+            header.put(codec == null ? 0 : codec.getId()).flip();
+            if (codec != null) {
+                raw = new byte[BlockOutputStream.BLOCK_SIZE];
+                frame = ByteBuffer.allocate(8 + codec.maxCompressedLength(BlockOutputStream.BLOCK_SIZE));
+                frame.limit(0);
+            }
+            return true;
+        }
+
+        // Escribe lo que el socket admita sin bloquear; devuelve true al terminar
+        boolean write(SocketChannel client) throws IOException {
+            if (header.hasRemaining()) {
+                client.write(header);
+                if (header.hasRemaining()) {
+                    return false;
+                }
+            }
+            if (file == null) {
+                return true;
+            }
+            while (position < length || (frame != null && (frame.hasRemaining() || !endSent))) {
+                long written;
+                if (codec != null) {
+                    if (!frame.hasRemaining()) {
+                        nextFrame();
+                    }
+                    written = client.write(frame);
+                } else {
+                    written = file.transferTo(position, length - position, client);
+                    position += written;
+                }
+                if (written == 0) {
+                    return false; // El socket está lleno; se sigue cuando vuelva a admitir datos
+                }
+            }
+            return true;
+        }
+
+        // Comprime el siguiente bloque del archivo en un marco independiente (o arma la marca de fin)
+        private void nextFrame() throws IOException {
+            if (position == length) {
+                frame.clear().putLong(0).flip();
+                endSent = true;
+                return;
+            }
+            int rawLength = (int) Math.min(BlockOutputStream.BLOCK_SIZE, length - position);
+            ByteBuffer target = ByteBuffer.wrap(raw, 0, rawLength);
+            while (target.hasRemaining()) {
+                if (file.read(target, position + target.position()) < 0) {
+                    throw new EOFException("El archivo se acortó durante la descarga");
+                }
+            }
+            position += rawLength;
+            frame.clear().limit(BlockOutputStream.encodeBlock(codec, raw, 0, rawLength, frame.array()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+// Nodo Map del modo aproximado: en lugar de contar cada clave exactamente y particionar la salida,
+// resume los pares que emite el Mapper en un WordSketch de tamaño fijo (sketch_chunk_N.bin).
+// Supone valores que se suman (el combinador del trabajo no se usa).
+public class SketchMapNode<K, V> implements Callable<Integer> {
+
+    private List<InputSplit> chunkFiles;
+    private String outputFilePath;
+    private Job<K, V> job;
+    private SketchSpec spec;
+    private long mappingWindow;
+    private String coordinatorId;
+    private int nodeId;
+    private boolean induceError;
+    private boolean reassigned;
+    private TaskMetrics metrics = TaskMetrics.unreported("map");
+    private volatile long bytesProcessed; // Avance del nodo, lo consulta la ejecución especulativa
+
+    public SketchMapNode(List<InputSplit> chunkFiles, String outputFilePath, Job<K, V> job, SketchSpec spec, long mappingWindow, String coordinatorId, int nodeId, boolean induceError, boolean reassigned) {
+        this.chunkFiles = chunkFiles;
+        this.outputFilePath = outputFilePath;
+        this.job = job;
+        this.spec = spec;
+        this.mappingWindow = mappingWindow;
+        this.coordinatorId = coordinatorId;
+        this.nodeId = nodeId;
+        this.induceError = induceError;
+        this.reassigned = reassigned;
+    }
+
+    // Contadores de este intento; por defecto no se informan
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Fracción de los bytes de entrada ya tokenizados
+    public double getProgress() {
+        long totalBytes = 0;
+        for (InputSplit chunkFile : chunkFiles) {
+            totalBytes += chunkFile.getLength();
+        }
+        return totalBytes == 0 ? 0 : (double) bytesProcessed / totalBytes;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        metrics.start();
+        boolean succeeded = false;
+        try {
+            int distinctEstimate = map();
+            succeeded = true;
+            return distinctEstimate;
+        } finally {
+            metrics.end(succeeded);
+        }
+    }
+
+    private int map() throws Exception {
+        if (induceError) {
+            Log.error("Error inducido en el Nodo Map " + nodeId + " del " + coordinatorId + ". Fallo en el procesamiento de chunkFiles.");
+            throw new Exception("Nodo Map " + nodeId + " del " + coordinatorId + " falló intencionalmente.");
+        }
+        if (reassigned) {
+            Log.warn("Nodo Map " + nodeId + " del " + coordinatorId + " reasignado. Procesando chunkFiles...");
+        }
+
+        WordSketch sketch = spec.newSketch();
+        Mapper<Long, ByteBuffer, K, V> mapper = job.createMapper();
+        SketchOutput output = new SketchOutput(sketch);
+        SplitReader splitReader = new SplitReader(mappingWindow);
+        long mapStart = System.nanoTime();
+        for (InputSplit chunkFile : chunkFiles) {
+            splitReader.map(chunkFile, mapper, output, blockLength -> bytesProcessed += blockLength);
+            mapper.cleanup(output);
+            metrics.addBytesRead(chunkFile.getLength());
+            Log.debug("MAP Nodo " + nodeId + " del " + coordinatorId + " resumió " + chunkFile.getName() + " en un sketch");
+        }
+        long writeStart = System.nanoTime();
+        metrics.addPhase("map", writeStart - mapStart);
+        metrics.addRecordsIn(output.records);
+
+        sketch.writeTo(outputFilePath);
+        metrics.addPhase("write", System.nanoTime() - writeStart);
+        metrics.addRecordsOut(sketch.getTotal());
+        metrics.addBytesWritten(new File(outputFilePath).length());
+        return (int) Math.min(Integer.MAX_VALUE, sketch.distinctEstimate());
+    }
+
+    // Los pares que emite el Mapper van directo al sketch, ya serializados
+    private class SketchOutput implements Output<K, V> {
+
+        private final WordSketch sketch;
+        private final Serializer<K> keySerializer = job.getKeySerializer();
+        private final LongValueSerializer<V> valueSerializer = (LongValueSerializer<V>) job.getValueSerializer(); // Main solo activa los sketches con valores long
+        private long records;
+
+        SketchOutput(WordSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        @Override
+        public void collect(K key, V value) throws IOException {
+            byte[] bytes = keySerializer.serialize(key);
+            records++;
+            sketch.add(bytes, 0, bytes.length, valueSerializer.toLong(value));
+        }
+
+        @Override
+        public void collectSerialized(byte[] key, int offset, int length, long value) throws IOException {
+            records++;
+            sketch.add(key, offset, length, value);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+// Nodo Reduce del modo aproximado: combina los sketches de varios Map en uno del mismo tamaño
+// (sin sketches de entrada escribe uno vacío, para que el Final Reduce siempre tenga sus archivos)
+public class SketchReduceNode implements Callable<Integer> {
+
+    private List<String> sketchFiles;
+    private String outputFilePath;
+    private SketchSpec spec;
+    private String coordinatorId;
+    private int nodeId;
+    private boolean induceError;
+    private TaskMetrics metrics = TaskMetrics.unreported("reduce");
+    private volatile int merged; // Sketches ya combinados, para la ejecución especulativa
+
+    public SketchReduceNode(List<String> sketchFiles, String outputFilePath, SketchSpec spec, String coordinatorId, int nodeId, boolean induceError) {
+        this.sketchFiles = sketchFiles;
+        this.outputFilePath = outputFilePath;
+        this.spec = spec;
+        this.coordinatorId = coordinatorId;
+        this.nodeId = nodeId;
+        this.induceError = induceError;
+    }
+
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public double getProgress() {
+        return sketchFiles.isEmpty() ? 0 : (double) merged / sketchFiles.size();
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        metrics.start();
+        boolean succeeded = false;
+        try {
+            int distinctEstimate = reduce();
+            succeeded = true;
+            return distinctEstimate;
+        } finally {
+            metrics.end(succeeded);
+        }
+    }
+
+    private int reduce() throws Exception {
+        if (induceError) {
+            Log.error("Error inducido en el Nodo Reduce " + nodeId + " del " + coordinatorId + ". Fallo en la combinación de sketches.");
+            throw new Exception("Nodo Reduce " + nodeId + " del " + coordinatorId + " falló intencionalmente.");
+        }
+
+        WordSketch result = spec.newSketch();
+        for (String sketchFile : sketchFiles) {
+            WordSketch sketch = WordSketch.readFrom(sketchFile);
+            metrics.addBytesRead(new File(sketchFile).length());
+            metrics.addRecordsIn(sketch.getTotal());
+            result.merge(sketch);
+            merged++;
+        }
+        result.writeTo(outputFilePath);
+        metrics.addRecordsOut(result.getTotal());
+        metrics.addBytesWritten(new File(outputFilePath).length());
+        Log.debug("REDUCE Nodo " + nodeId + " del " + coordinatorId + " combinó " + sketchFiles.size() + " sketches");
+        return (int) Math.min(Integer.MAX_VALUE, result.distinctEstimate());
+    }
+}
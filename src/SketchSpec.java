@@ -0,0 +1,61 @@
+// Parámetros del modo aproximado (-Dmapreduce.approximate=true): cuántas claves se exportan y con
+// qué error. Los sketches solo se pueden combinar si se crearon con los mismos parámetros.
+//   mapreduce.approx.topK           claves más frecuentes en el resultado (200)
+//   mapreduce.approx.epsilon        error de cada conteo como fracción del total de ocurrencias (1e-4)
+//   mapreduce.approx.delta          probabilidad de que un conteo supere ese error (1e-3)
+//   mapreduce.approx.distinctError  error relativo típico del número de claves distintas (0,01)
+public class SketchSpec {
+
+    private final int topK;
+    private final double epsilon;
+    private final double delta;
+    private final double distinctError;
+
+    public SketchSpec(int topK, double epsilon, double delta, double distinctError) {
+        if (topK <= 0 || epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1 || distinctError <= 0 || distinctError >= 1) {
+            throw new IllegalArgumentException("Parámetros del modo aproximado fuera de rango: " + topK + ", " + epsilon + ", " + delta + ", " + distinctError);
+        }
+        this.topK = topK;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.distinctError = distinctError;
+    }
+
+    // null si no se pidió el modo aproximado
+    public static SketchSpec fromProperties() {
+        if (!Boolean.getBoolean("mapreduce.approximate")) {
+            return null;
+        }
+        return new SketchSpec(Integer.getInteger("mapreduce.approx.topK", 200),
+                Double.parseDouble(System.getProperty("mapreduce.approx.epsilon", "1e-4")),
+                Double.parseDouble(System.getProperty("mapreduce.approx.delta", "1e-3")),
+                Double.parseDouble(System.getProperty("mapreduce.approx.distinctError", "0.01")));
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public double getDistinctError() {
+        return distinctError;
+    }
+
+    // Space-Saving con 1/epsilon contadores garantiza el mismo error que el Count-Min (y nunca menos de topK)
+    public WordSketch newSketch() {
+        return new WordSketch(new SpaceSaving(Math.max(topK, (int) Math.ceil(1 / epsilon))),
+                CountMinSketch.forError(epsilon, delta), new HyperLogLog(HyperLogLog.precisionFor(distinctError)));
+    }
+
+    @Override
+    public String toString() {
+        return "topK=" + topK + " epsilon=" + epsilon + " delta=" + delta + " distinctError=" + distinctError;
+    }
+}
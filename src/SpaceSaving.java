@@ -0,0 +1,213 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Claves más frecuentes con memoria fija (algoritmo Space-Saving): guarda `capacity` contadores y,
+// cuando llega una clave nueva con la tabla llena, reemplaza a la de menor conteo heredando ese
+// conteo como error. Toda clave con más de total / capacity ocurrencias está en la tabla, y el conteo
+// de cada una sobreestima el real en a lo sumo su error.
+//
+// Las claves se buscan en una tabla de direccionamiento abierto (sondeo lineal, borrado por
+// desplazamiento hacia atrás) y el mínimo se encuentra con un heap indexado por entrada.
+public class SpaceSaving {
+
+    private final int capacity;
+    private final byte[][] keys;
+    private final long[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;      // Entradas ordenadas como min-heap por conteo
+    private final int[] heapIndex; // Posición de cada entrada en el heap
+    private final int[] slots;     // Entrada + 1 por slot; 0 = vacío
+    private final int mask;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.keys = new byte[capacity][];
+        this.hashes = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2];
+        this.mask = slots.length - 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] key(int entry) {
+        return keys[entry];
+    }
+
+    public long count(int entry) {
+        return counts[entry];
+    }
+
+    public long error(int entry) {
+        return errors[entry];
+    }
+
+    // Conteo mínimo de la tabla: lo que puede haber sumado cualquier clave que no está (0 si no se llenó)
+    public long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    // Entrada de la clave, o -1 si no está en la tabla
+    public int entryOf(byte[] key, int offset, int length, long hash) {
+        return lookup(key, offset, length, hash);
+    }
+
+    public void add(byte[] key, int offset, int length, long hash, long count) {
+        add(key, offset, length, hash, count, 0);
+    }
+
+    // Suma `count` a la clave; `error` es la sobreestimación que ya trae ese conteo
+    public void add(byte[] key, int offset, int length, long hash, long count, long error) {
+        int entry = lookup(key, offset, length, hash);
+        if (entry >= 0) {
+            counts[entry] += count;
+            errors[entry] += error;
+            siftDown(heapIndex[entry]);
+            return;
+        }
+        if (size < capacity) {
+            entry = size++;
+            heap[entry] = entry;
+            heapIndex[entry] = entry;
+            counts[entry] = count;
+            errors[entry] = error;
+            store(entry, key, offset, length, hash);
+            siftUp(entry);
+            return;
+        }
+        // Tabla llena: la clave nueva toma el lugar de la de menor conteo
+        entry = heap[0];
+        long evicted = counts[entry];
+        remove(entry);
+        counts[entry] = evicted + count;
+        errors[entry] = evicted + error;
+        store(entry, key, offset, length, hash);
+        siftDown(0);
+    }
+
+    // Entradas ordenadas por conteo descendente (a igual conteo, por clave)
+    public int[] entriesByCount() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : Arrays.compareUnsigned(keys[a], keys[b]));
+        int[] entries = new int[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = order[i];
+        }
+        return entries;
+    }
+
+    private int lookup(byte[] key, int offset, int length, long hash) {
+        for (int slot = (int) hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && Arrays.equals(keys[entry], 0, keys[entry].length, key, offset, offset + length)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private void store(int entry, byte[] key, int offset, int length, long hash) {
+        keys[entry] = Arrays.copyOfRange(key, offset, offset + length);
+        hashes[entry] = hash;
+        int slot = (int) hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+    }
+
+    // Saca la entrada de la tabla de slots y corre hacia atrás las que quedaron después del hueco
+    private void remove(int entry) {
+        int slot = (int) hashes[entry] & mask;
+        while (slots[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        for (int next = (hole + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+            int home = (int) hashes[slots[next] - 1] & mask;
+            // Se mueve si su posición ideal no está entre el hueco (excluido) y donde está ahora
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void siftUp(int position) {
+        int entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[entry]) {
+                break;
+            }
+            moveTo(heap[parent], position);
+            position = parent;
+        }
+        moveTo(entry, position);
+    }
+
+    private void siftDown(int position) {
+        int entry = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[entry] <= counts[heap[child]]) {
+                break;
+            }
+            moveTo(heap[child], position);
+            position = child;
+        }
+        moveTo(entry, position);
+    }
+
+    private void moveTo(int entry, int position) {
+        heap[position] = entry;
+        heapIndex[entry] = position;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(capacity);
+        out.writeInt(size);
+        for (int entry = 0; entry < size; entry++) {
+            out.writeShort(keys[entry].length);
+            out.write(keys[entry]);
+            out.writeLong(counts[entry]);
+            out.writeLong(errors[entry]);
+        }
+    }
+
+    static SpaceSaving readFrom(DataInputStream in) throws IOException {
+        SpaceSaving summary = new SpaceSaving(in.readInt());
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            byte[] key = new byte[in.readUnsignedShort()];
+            in.readFully(key);
+            long count = in.readLong();
+            long error = in.readLong();
+            summary.add(key, 0, key.length, WordSketch.hash(key, 0, key.length), count, error);
+        }
+        return summary;
+    }
+}
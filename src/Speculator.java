@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ejecución especulativa de las tareas de una fase (al estilo de Hadoop):
+// sigue el tiempo y el avance de cada tarea en curso y, si una va muy por detrás de la mediana de las
+// que ya terminaron, lanza una copia de respaldo. Gana la primera copia que termina: solo esa confirma
+// su salida (renombrado atómico) y la otra descarta la suya, así un duplicado nunca pisa el resultado.
+public class Speculator {
+
+    // Una tarea que puede ejecutarse varias veces; cada intento escribe en archivos propios
+    public interface TaskAttempt<T> {
+        CompletableFuture<T> launch(int attempt, boolean backup);
+
+        // Publica la salida del intento ganador bajo los nombres definitivos
+        void commit(int attempt, T result) throws IOException;
+
+        // Borra la salida de un intento perdedor o fallido
+        void abort(int attempt);
+
+        // Fracción completada del intento (0 si no se conoce)
+        default double progress(int attempt) {
+            return 0;
+        }
+
+        // System.nanoTime() en que el intento empezó a ejecutarse (0 = sigue en la cola del planificador,
+        // -1 = no se sabe: se toma el momento en que se lanzó)
+        default long startedNanos(int attempt) {
+            return -1;
+        }
+    }
+
+    private static final long CHECK_INTERVAL_MS = 500;
+    private static final double SLOWDOWN_THRESHOLD = 1.5; // Respaldo si la estimación supera 1.5 veces la mediana
+    private static final long MIN_ELAPSED_MS = 1000; // No se especula con tareas que llevan menos de esto corriendo
+
+    private final String phase;
+    private final String coordinatorId;
+    private final int minCompleted; // Tareas terminadas necesarias antes de fiarse de la mediana
+    private final boolean enabled; // false = solo confirma la salida de cada tarea, nunca lanza respaldos
+    private final List<Long> completedDurations = new ArrayList<>();
+    private final AtomicInteger attemptIds = new AtomicInteger();
+
+    public Speculator(String phase, String coordinatorId, int minCompleted, boolean enabled) {
+        this.phase = phase;
+        this.coordinatorId = coordinatorId;
+        this.minCompleted = minCompleted;
+        this.enabled = enabled;
+    }
+
+    public <T> CompletableFuture<T> execute(String taskName, TaskAttempt<T> task) {
+        return new RunningTask<>(taskName, task).start();
+    }
+
+    private synchronized void recordDuration(long millis) {
+        completedDurations.add(millis);
+    }
+
+    // Mediana de las duraciones terminadas, o -1 si todavía hay muy pocas
+    private synchronized long medianDuration() {
+        if (completedDurations.size() < minCompleted) {
+            return -1;
+        }
+        List<Long> sorted = new ArrayList<>(completedDurations);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private class RunningTask<T> {
+
+        private final String taskName;
+        private final TaskAttempt<T> task;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final int firstAttempt = attemptIds.getAndIncrement();
+        private int runningAttempts;
+        private boolean committed;
+        private boolean backupLaunched;
+        private long launchNanos;
+
+        RunningTask(String taskName, TaskAttempt<T> task) {
+            this.taskName = taskName;
+            this.task = task;
+        }
+
+        synchronized CompletableFuture<T> start() {
+            launchNanos = System.nanoTime();
+            launch(firstAttempt, false);
+            if (enabled) {
+                scheduleCheck();
+            }
+            return result;
+        }
+
+        private void launch(int attempt, boolean backup) {
+            runningAttempts++;
+            long attemptLaunch = System.nanoTime();
+            task.launch(attempt, backup).whenComplete((value, error) -> finish(attempt, attemptLaunch, value, error));
+        }
+
+        // Momento en que el intento empezó a correr; el tiempo en la cola no cuenta como lentitud
+        private long startedNanos(int attempt, long launched) {
+            long started = task.startedNanos(attempt);
+            return started < 0 ? launched : started;
+        }
+
+        // Sincronizado con check() para que no se lance un respaldo mientras la tarea se da por fallida
+        private synchronized void finish(int attempt, long attemptLaunch, T value, Throwable error) {
+            runningAttempts--;
+            if (error == null && !committed) {
+                committed = true;
+                try {
+                    task.commit(attempt, value);
+                    recordDuration((System.nanoTime() - startedNanos(attempt, attemptLaunch)) / 1_000_000);
+                    result.complete(value);
+                } catch (IOException e) {
+                    task.abort(attempt);
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            // Intento perdedor (la otra copia ya confirmó) o fallido
+            task.abort(attempt);
+            if (error != null && runningAttempts == 0 && !committed) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        private void scheduleCheck() {
+            CompletableFuture.delayedExecutor(CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS).execute(this::check);
+        }
+
+        private synchronized void check() {
+            if (result.isDone() || backupLaunched) {
+                return;
+            }
+            long started = startedNanos(firstAttempt, launchNanos);
+            if (started == 0) {
+                // Sigue en la cola: una copia solo agregaría más trabajo a la misma cola
+                scheduleCheck();
+                return;
+            }
+            long elapsed = (System.nanoTime() - started) / 1_000_000;
+            long median = medianDuration();
+            // La duración total se extrapola del avance; sin avance informado todavía no hay con qué compararla
+            double progress = task.progress(firstAttempt);
+            if (median >= 0 && elapsed >= MIN_ELAPSED_MS && progress > 0) {
+                double estimated = elapsed / progress;
+                if (estimated > SLOWDOWN_THRESHOLD * median) {
+                    backupLaunched = true;
+                    Log.warn(phase + " " + taskName + " del " + coordinatorId + " va lenta (" + elapsed + " ms, "
+                            + Math.round(progress * 100) + "%; mediana " + median + " ms). Lanzando copia de respaldo...");
+                    launch(attemptIds.getAndIncrement(), true);
+                    return;
+                }
+            }
+            scheduleCheck();
+        }
+    }
+}
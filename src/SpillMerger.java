@@ -0,0 +1,169 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Mezcla k-way de archivos intermedios ya ordenados por clave. Cada next() entrega una clave
+// con todos los valores que traía esa clave en cualquiera de los archivos, así la memoria
+// depende del número de archivos y no del tamaño de la entrada ni del vocabulario.
+// Los archivos con registros deben tener todos el mismo tipo de valores (long o bytes).
+public class SpillMerger implements Closeable {
+
+    private final PriorityQueue<SpillReader> queue = new PriorityQueue<>(SpillMerger::compareKeys);
+    private final List<SpillReader> readers = new ArrayList<>();
+
+    private byte[] keyBuffer = new byte[64];
+    private int keyLength;
+    private long[] values = new long[16];
+    private boolean byteValues;
+    private byte[] valueBytes = new byte[256];
+    private int[] valueEnds = new int[16];
+    private int valueCount;
+
+    public SpillMerger(List<String> sortedFiles) throws IOException {
+        try {
+            for (String file : sortedFiles) {
+                SpillReader reader = new SpillReader(file);
+                readers.add(reader);
+                advance(reader);
+            }
+            // Un archivo vacío no cuenta: una partición sin claves se escribe con el formato por defecto
+            SpillReader first = queue.peek();
+            byteValues = first != null && first.hasByteValues();
+            for (SpillReader reader : queue) {
+                if (reader.hasByteValues() != byteValues) {
+                    throw new IOException("No se pueden mezclar archivos con valores long y con valores en bytes: " + sortedFiles);
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public boolean next() throws IOException {
+        SpillReader head = queue.poll();
+        if (head == null) {
+            return false;
+        }
+        keyLength = head.keyLength();
+        if (keyLength > keyBuffer.length) {
+            keyBuffer = new byte[Math.max(keyLength, keyBuffer.length * 2)];
+        }
+        System.arraycopy(head.keyBytes(), 0, keyBuffer, 0, keyLength);
+        valueCount = 0;
+        appendValues(head);
+        advance(head);
+
+        // Se juntan los registros de la misma clave que vengan de los demás archivos
+        while (!queue.isEmpty() && Arrays.equals(queue.peek().keyBytes(), 0, queue.peek().keyLength(), keyBuffer, 0, keyLength)) {
+            SpillReader reader = queue.poll();
+            appendValues(reader);
+            advance(reader);
+        }
+        return true;
+    }
+
+    public byte[] keyBytes() {
+        return keyBuffer;
+    }
+
+    public int keyLength() {
+        return keyLength;
+    }
+
+    public int valueCount() {
+        return valueCount;
+    }
+
+    public long value(int index) {
+        return values[index];
+    }
+
+    public long[] values() {
+        return values;
+    }
+
+    // Con valores en bytes (ver SpillReader.valueEnds)
+    public boolean hasByteValues() {
+        return byteValues;
+    }
+
+    public byte[] valueBytes() {
+        return valueBytes;
+    }
+
+    public int[] valueEnds() {
+        return valueEnds;
+    }
+
+    // Bytes leídos entre todos los archivos
+    public long bytesRead() {
+        long bytesRead = 0;
+        for (SpillReader reader : readers) {
+            bytesRead += reader.bytesRead();
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Todos los lectores, no solo los de la cola: si el constructor o next() fallan a mitad de
+        // camino puede haber alguno abierto fuera de ella (cerrar uno ya cerrado no hace nada)
+        IOException failure = null;
+        for (SpillReader reader : readers) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        queue.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void appendValues(SpillReader reader) {
+        if (byteValues) {
+            appendByteValues(reader);
+            return;
+        }
+        if (valueCount + reader.valueCount() > values.length) {
+            values = Arrays.copyOf(values, Math.max(valueCount + reader.valueCount(), values.length * 2));
+        }
+        for (int i = 0; i < reader.valueCount(); i++) {
+            values[valueCount++] = reader.value(i);
+        }
+    }
+
+    private void appendByteValues(SpillReader reader) {
+        int count = reader.valueCount();
+        if (valueCount + count > valueEnds.length) {
+            valueEnds = Arrays.copyOf(valueEnds, Math.max(valueCount + count, valueEnds.length * 2));
+        }
+        int start = valueCount == 0 ? 0 : valueEnds[valueCount - 1];
+        int length = count == 0 ? 0 : reader.valueEnds()[count - 1];
+        if (start + length > valueBytes.length) {
+            valueBytes = Arrays.copyOf(valueBytes, Math.max(start + length, valueBytes.length * 2));
+        }
+        System.arraycopy(reader.valueBytes(), 0, valueBytes, start, length);
+        for (int i = 0; i < count; i++) {
+            valueEnds[valueCount++] = start + reader.valueEnds()[i];
+        }
+    }
+
+    private void advance(SpillReader reader) throws IOException {
+        if (reader.next()) {
+            queue.add(reader);
+        } else {
+            reader.close();
+        }
+    }
+
+    private static int compareKeys(SpillReader a, SpillReader b) {
+        return Arrays.compareUnsigned(a.keyBytes(), 0, a.keyLength(), b.keyBytes(), 0, b.keyLength());
+    }
+}
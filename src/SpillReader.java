@@ -0,0 +1,232 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Lector del formato binario intermedio (ver SpillWriter). Reutiliza los buffers de clave y
+// valores entre registros, así que key()/value() solo son válidos hasta la siguiente llamada a next().
+public class SpillReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String filePath;
+    private final InputStream file;
+    private final InputStream in; // `file`, o un BlockInputStream sobre él si el archivo está comprimido
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int checksumMark; // Inicio de los bytes del buffer aún no sumados al CRC
+    private final CRC32 checksum = new CRC32();
+
+    private byte[] keyBuffer = new byte[64];
+    private int keyLength;
+    private long[] values = new long[16];
+    private final boolean byteValues; // Versiones 3 y 4: valores en bytes en lugar de varint
+    private byte[] valueBytes = new byte[256];
+    private int[] valueEnds = new int[16];
+    private int valueCount;
+    private long recordCount;
+    private long bytesRead; // Bytes leídos del archivo hasta ahora (para informar avance)
+    private boolean finished;
+    private boolean closed;
+
+    // Detecta por la cabecera si el archivo está comprimido y con qué códec
+    public SpillReader(String filePath) throws IOException {
+        this.filePath = filePath;
+        this.file = ReadAhead.openStream(filePath, BUFFER_SIZE); // El siguiente bloque se lee mientras se procesa este
+        try {
+            byte[] header = file.readNBytes(6);
+            int magic = header.length < 5 ? 0 : ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+            int version = header.length < 5 ? 0 : header[4];
+            boolean compressed = version == SpillWriter.COMPRESSED_VERSION || version == SpillWriter.COMPRESSED_BYTES_VERSION;
+            if (magic != SpillWriter.MAGIC || version < SpillWriter.VERSION || version > SpillWriter.COMPRESSED_BYTES_VERSION
+                    || (compressed && header.length < 6)) {
+                throw new IOException("El archivo " + filePath + " no tiene formato intermedio válido.");
+            }
+            this.byteValues = version == SpillWriter.BYTES_VERSION || version == SpillWriter.COMPRESSED_BYTES_VERSION;
+            if (!compressed) {
+                // El sexto byte ya es contenido
+                checksum.update(header, 0, 5);
+                System.arraycopy(header, 5, buffer, 0, header.length - 5);
+                limit = header.length - 5;
+                bytesRead = header.length;
+                this.in = file;
+            } else {
+                checksum.update(header, 0, 6);
+                this.in = new BlockInputStream(new BufferedInputStream(file, BUFFER_SIZE), CompressionCodec.forId(header[5]));
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // Avanza al siguiente registro; devuelve false al llegar al final (tras validar el CRC)
+    public boolean next() throws IOException {
+        if (finished) {
+            return false;
+        }
+        long keyField = readVarLong();
+        if (keyField == 0) {
+            finish();
+            return false;
+        }
+
+        keyLength = (int) keyField - 1;
+        if (keyLength > keyBuffer.length) {
+            keyBuffer = new byte[Math.max(keyLength, keyBuffer.length * 2)];
+        }
+        readBytes(keyBuffer, 0, keyLength);
+
+        valueCount = (int) readVarLong();
+        if (byteValues) {
+            readByteValues();
+        } else {
+            if (valueCount > values.length) {
+                values = new long[Math.max(valueCount, values.length * 2)];
+            }
+            for (int i = 0; i < valueCount; i++) {
+                values[i] = readVarLong();
+            }
+        }
+        recordCount++;
+        return true;
+    }
+
+    public String key() {
+        return new String(keyBuffer, 0, keyLength, StandardCharsets.UTF_8);
+    }
+
+    public byte[] keyBytes() {
+        return keyBuffer;
+    }
+
+    public int keyLength() {
+        return keyLength;
+    }
+
+    public int valueCount() {
+        return valueCount;
+    }
+
+    public long value(int index) {
+        return values[index];
+    }
+
+    public boolean hasByteValues() {
+        return byteValues;
+    }
+
+    // Con valores en bytes: el valor i ocupa [valueEnds()[i - 1], valueEnds()[i]) de valueBytes() (el primero empieza en 0)
+    public byte[] valueBytes() {
+        return valueBytes;
+    }
+
+    public int[] valueEnds() {
+        return valueEnds;
+    }
+
+    // Bytes del archivo leídos hasta ahora (comprimidos, si lo está)
+    public long bytesRead() {
+        return in instanceof BlockInputStream ? 6 + ((BlockInputStream) in).getBytesRead() : bytesRead;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < valueCount; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        file.close();
+    }
+
+    private void finish() throws IOException {
+        long expectedRecords = readVarLong();
+        updateChecksum();
+        // El CRC calculado se toma antes de leer el guardado: si sus 4 bytes cruzan el final del buffer,
+        // fill() los sumaría también
+        int actualCrc = (int) checksum.getValue();
+        int expectedCrc = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        if (expectedRecords != recordCount || expectedCrc != actualCrc) {
+            throw new IOException("El archivo " + filePath + " está corrupto (CRC o número de registros no coincide).");
+        }
+        finished = true;
+    }
+
+    private void readByteValues() throws IOException {
+        if (valueCount > valueEnds.length) {
+            valueEnds = new int[Math.max(valueCount, valueEnds.length * 2)];
+        }
+        int end = 0;
+        for (int i = 0; i < valueCount; i++) {
+            int length = (int) readVarLong();
+            if (end + length > valueBytes.length) {
+                valueBytes = Arrays.copyOf(valueBytes, Math.max(end + length, valueBytes.length * 2));
+            }
+            readBytes(valueBytes, end, length);
+            end += length;
+            valueEnds[i] = end;
+        }
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new IOException("Varint inválido en " + filePath);
+            }
+        }
+    }
+
+    private void readBytes(byte[] target, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            if (position == limit) {
+                fill();
+            }
+            int n = Math.min(end - offset, limit - position);
+            System.arraycopy(buffer, position, target, offset, n);
+            position += n;
+            offset += n;
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            fill();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private void fill() throws IOException {
+        updateChecksum();
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            throw new EOFException("Fin inesperado del archivo " + filePath);
+        }
+        position = 0;
+        limit = n;
+        checksumMark = 0;
+        bytesRead += n;
+    }
+
+    private void updateChecksum() {
+        checksum.update(buffer, checksumMark, position - checksumMark);
+        checksumMark = position;
+    }
+}
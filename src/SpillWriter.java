@@ -0,0 +1,190 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+// Escritor del formato binario intermedio compartido por todas las fases (Map, Shuffle, Reduce).
+//
+// Formato del archivo:
+//   cabecera:  "MRSP" (4 bytes) + versión (1 byte)
+//   registro:  varint(largo clave + 1), bytes UTF-8 de la clave, varint(número de valores), valores en varint
+//   cierre:    varint 0, varint(número de registros), CRC32 de todo lo anterior (4 bytes)
+//
+// Con compresión (versión 2) la cabecera lleva además el id del códec, todo lo que sigue va en bloques
+// de BlockOutputStream y al final se repiten los 4 bytes del CRC sin comprimir, para que JobManifest
+// pueda seguir identificando el archivo por sus últimos 4 bytes.
+//
+// Los trabajos cuyos valores no son long (ver ValueSerializer) usan las versiones 3 (sin comprimir) y
+// 4 (comprimida): el mismo formato, pero cada valor va como varint(largo) seguido de sus bytes.
+public class SpillWriter implements Closeable {
+
+    public static final int MAGIC = 0x4D525350; // "MRSP"
+    public static final int VERSION = 1;
+    public static final int COMPRESSED_VERSION = 2;
+    public static final int BYTES_VERSION = 3;
+    public static final int COMPRESSED_BYTES_VERSION = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream file;
+    private final OutputStream out; // `file`, o un BlockOutputStream sobre él si hay compresión
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private final CRC32 checksum = new CRC32();
+    private final boolean byteValues;
+    private long recordCount;
+
+    public SpillWriter(String filePath) throws IOException {
+        this(filePath, null);
+    }
+
+    // `codec` null = sin compresión (versión 1)
+    public SpillWriter(String filePath, CompressionCodec codec) throws IOException {
+        this(filePath, codec, false);
+    }
+
+    // `byteValues`: los valores son bytes serializados en lugar de long (versiones 3 y 4)
+    public SpillWriter(String filePath, CompressionCodec codec, boolean byteValues) throws IOException {
+        this.byteValues = byteValues;
+        writeInt(MAGIC);
+        if (codec == null) {
+            this.file = WriteBehindOutputStream.open(filePath); // Cada buffer lleno se escribe mientras se llena el siguiente
+            this.out = file;
+            writeByte(byteValues ? BYTES_VERSION : VERSION);
+        } else {
+            this.file = WriteBehindOutputStream.open(filePath);
+            writeByte(byteValues ? COMPRESSED_BYTES_VERSION : COMPRESSED_VERSION);
+            writeByte(codec.getId());
+            // La cabecera va sin comprimir, así el lector sabe con qué códec seguir
+            checksum.update(buffer, 0, position);
+            file.write(buffer, 0, position);
+            position = 0;
+            this.out = new BlockOutputStream(file, codec);
+        }
+    }
+
+    public void write(byte[] key, int offset, int length, long[] values, int valueCount) throws IOException {
+        if (byteValues) {
+            throw new IllegalStateException("El archivo guarda valores en bytes, no long");
+        }
+        writeVarLong(length + 1);
+        writeBytes(key, offset, length);
+        writeVarLong(valueCount);
+        for (int i = 0; i < valueCount; i++) {
+            writeVarLong(values[i]);
+        }
+        recordCount++;
+    }
+
+    // Registro con valores en bytes: el valor i ocupa [valueEnds[i - 1], valueEnds[i]) de `values` (el primero empieza en 0)
+    public void write(byte[] key, int offset, int length, byte[] values, int[] valueEnds, int valueCount) throws IOException {
+        if (!byteValues) {
+            throw new IllegalStateException("El archivo guarda valores long, no bytes");
+        }
+        writeVarLong(length + 1);
+        writeBytes(key, offset, length);
+        writeVarLong(valueCount);
+        int start = 0;
+        for (int i = 0; i < valueCount; i++) {
+            writeVarLong(valueEnds[i] - start);
+            writeBytes(values, start, valueEnds[i] - start);
+            start = valueEnds[i];
+        }
+        recordCount++;
+    }
+
+    // Registro con un solo valor en bytes
+    public void write(byte[] key, int offset, int length, byte[] value, int valueOffset, int valueLength) throws IOException {
+        if (!byteValues) {
+            throw new IllegalStateException("El archivo guarda valores long, no bytes");
+        }
+        writeVarLong(length + 1);
+        writeBytes(key, offset, length);
+        writeVarLong(1);
+        writeVarLong(valueLength);
+        writeBytes(value, valueOffset, valueLength);
+        recordCount++;
+    }
+
+    public boolean hasByteValues() {
+        return byteValues;
+    }
+
+    public void write(String key, long value) throws IOException {
+        if (byteValues) {
+            throw new IllegalStateException("El archivo guarda valores en bytes, no long");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(keyBytes.length + 1);
+        writeBytes(keyBytes, 0, keyBytes.length);
+        writeVarLong(1);
+        writeVarLong(value);
+        recordCount++;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeVarLong(0);
+            writeVarLong(recordCount);
+            flushBuffer();
+            // El CRC va fuera del área que cubre
+            int crc = (int) checksum.getValue();
+            byte[] trailer = {(byte) (crc >>> 24), (byte) (crc >>> 16), (byte) (crc >>> 8), (byte) crc};
+            out.write(trailer);
+            if (out != file) {
+                ((BlockOutputStream) out).finish();
+                file.write(trailer);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        if (position + 10 > buffer.length) {
+            flushBuffer();
+        }
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(length, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void flushBuffer() throws IOException {
+        checksum.update(buffer, 0, position);
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
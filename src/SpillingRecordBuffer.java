@@ -0,0 +1,201 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Equivalente de SpillingWordCounter para los trabajos cuyos valores no son long: cada par se copia ya
+// serializado a un único arreglo de bytes y, cuando se supera el presupuesto de memoria, los registros se
+// ordenan por clave, se combinan los valores de cada clave con el Combiner del trabajo y se vuelcan a un
+// run. Al terminar, los runs se mezclan con SpillMerger. El orden es estable: los valores de una misma
+// clave se combinan en el orden en que se emitieron.
+public class SpillingRecordBuffer<V> {
+
+    public interface RecordSink {
+        void accept(byte[] key, int keyOffset, int keyLength, byte[] value, int valueOffset, int valueLength) throws IOException;
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Combiner<V> combiner;
+    private final ValueSerializer<V> serializer;
+    private final long memoryBudget;
+    private final String spillFilePrefix;
+    private final List<String> runs = new ArrayList<>();
+    private int spillCount;
+    private final CompressionCodec compression; // Compresión de los runs (null = sin comprimir)
+
+    private byte[] arena; // Clave y valor de cada registro, uno detrás del otro
+    private int arenaSize;
+    private int[] recordOffsets;
+    private int[] keyLengths;
+    private int[] valueLengths;
+    private int size;
+
+    public SpillingRecordBuffer(Combiner<V> combiner, ValueSerializer<V> serializer, long memoryBudget, String spillFilePrefix, CompressionCodec compression) {
+        this.combiner = combiner;
+        this.serializer = serializer;
+        this.memoryBudget = memoryBudget;
+        this.spillFilePrefix = spillFilePrefix;
+        this.compression = compression;
+        allocate();
+    }
+
+    public void add(byte[] key, int keyOffset, int keyLength, byte[] value, int valueOffset, int valueLength) throws IOException {
+        if (size == recordOffsets.length) {
+            int capacity = size * 2;
+            recordOffsets = Arrays.copyOf(recordOffsets, capacity);
+            keyLengths = Arrays.copyOf(keyLengths, capacity);
+            valueLengths = Arrays.copyOf(valueLengths, capacity);
+        }
+        int length = keyLength + valueLength;
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(key, keyOffset, arena, arenaSize, keyLength);
+        System.arraycopy(value, valueOffset, arena, arenaSize + keyLength, valueLength);
+        recordOffsets[size] = arenaSize;
+        keyLengths[size] = keyLength;
+        valueLengths[size] = valueLength;
+        arenaSize += length;
+        size++;
+        if (memoryUsage() > memoryBudget) {
+            spill();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Runs volcados a disco en total (sigue valiendo después de drainTo, que los borra)
+    public int getSpillCount() {
+        return spillCount;
+    }
+
+    // Memoria aproximada que ocupa el buffer, en bytes
+    public long memoryUsage() {
+        return arena.length + (long) recordOffsets.length * (4 + 4 + 4);
+    }
+
+    // Entrega todas las claves ordenadas, cada una con un solo valor ya combinado
+    public void drainTo(RecordSink sink) throws IOException {
+        if (runs.isEmpty()) {
+            writeCombined(sink);
+            allocate();
+            return;
+        }
+
+        spill();
+        try (SpillMerger merger = new SpillMerger(runs)) {
+            while (merger.next()) {
+                byte[] values = merger.valueBytes();
+                int[] ends = merger.valueEnds();
+                if (merger.valueCount() == 1) {
+                    sink.accept(merger.keyBytes(), 0, merger.keyLength(), values, 0, ends[0]);
+                    continue;
+                }
+                V accumulated = serializer.deserialize(values, 0, ends[0]);
+                for (int i = 1; i < merger.valueCount(); i++) {
+                    accumulated = combiner.combine(accumulated, serializer.deserialize(values, ends[i - 1], ends[i] - ends[i - 1]));
+                }
+                byte[] bytes = serializer.serialize(accumulated);
+                sink.accept(merger.keyBytes(), 0, merger.keyLength(), bytes, 0, bytes.length);
+            }
+        } finally {
+            for (String run : runs) {
+                new File(run).delete();
+            }
+            runs.clear();
+        }
+    }
+
+    private void spill() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        String run = spillFilePrefix + "_run_" + runs.size() + ".bin";
+        try (SpillWriter writer = new SpillWriter(run, compression, true)) {
+            writeCombined(writer::write);
+        }
+        runs.add(run);
+        spillCount++;
+        allocate();
+    }
+
+    // Recorre los registros en orden de clave; los de una misma clave quedan seguidos y se combinan
+    private void writeCombined(RecordSink sink) throws IOException {
+        int[] order = sortedRecords();
+        int i = 0;
+        while (i < size) {
+            int first = order[i];
+            int keyOffset = recordOffsets[first];
+            int keyLength = keyLengths[first];
+            int j = i + 1;
+            while (j < size && compare(first, order[j]) == 0) {
+                j++;
+            }
+            if (j - i == 1) {
+                sink.accept(arena, keyOffset, keyLength, arena, keyOffset + keyLength, valueLengths[first]);
+            } else {
+                V accumulated = value(first);
+                for (int k = i + 1; k < j; k++) {
+                    accumulated = combiner.combine(accumulated, value(order[k]));
+                }
+                byte[] bytes = serializer.serialize(accumulated);
+                sink.accept(arena, keyOffset, keyLength, bytes, 0, bytes.length);
+            }
+            i = j;
+        }
+    }
+
+    private V value(int record) {
+        return serializer.deserialize(arena, recordOffsets[record] + keyLengths[record], valueLengths[record]);
+    }
+
+    private void allocate() {
+        arena = new byte[INITIAL_CAPACITY * 16];
+        arenaSize = 0;
+        recordOffsets = new int[INITIAL_CAPACITY];
+        keyLengths = new int[INITIAL_CAPACITY];
+        valueLengths = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private int compare(int a, int b) {
+        return Arrays.compareUnsigned(arena, recordOffsets[a], recordOffsets[a] + keyLengths[a],
+                arena, recordOffsets[b], recordOffsets[b] + keyLengths[b]);
+    }
+
+    // Mergesort de abajo hacia arriba sobre índices primitivos: estable, así los valores de una
+    // clave conservan el orden de emisión
+    private int[] sortedRecords() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size - width; low += 2 * width) {
+                merge(order, buffer, low, low + width, Math.min(low + 2 * width, size));
+            }
+        }
+        return order;
+    }
+
+    private void merge(int[] order, int[] buffer, int low, int middle, int high) {
+        if (compare(order[middle - 1], order[middle]) <= 0) {
+            return; // Las dos mitades ya están en orden
+        }
+        System.arraycopy(order, low, buffer, low, high - low);
+        int i = low;
+        int j = middle;
+        for (int k = low; k < high; k++) {
+            if (j >= high || (i < middle && compare(buffer[i], buffer[j]) <= 0)) {
+                order[k] = buffer[i++];
+            } else {
+                order[k] = buffer[j++];
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// WordCountTable con presupuesto de memoria por tarea: cuando la tabla lo supera se escribe
+// ordenada a un archivo temporal (run) y se vacía. Al terminar, los runs se mezclan con
+// SpillMerger y se combinan los conteos de la misma palabra, así el heap queda acotado
+// sin importar el tamaño de la entrada ni del vocabulario.
+public class SpillingWordCounter {
+
+    public interface RecordSink {
+        void accept(byte[] key, int offset, int length, long value) throws IOException;
+    }
+
+    private final LongCombiner combiner;
+    private final long memoryBudget;
+    private final String spillFilePrefix;
+    private final WordCountTable table;
+    private final List<String> runs = new ArrayList<>();
+    private int spillCount;
+    private final CompressionCodec compression; // Compresión de los runs (null = sin comprimir)
+
+    public SpillingWordCounter(LongCombiner combiner, long memoryBudget, String spillFilePrefix, CompressionCodec compression) {
+        this.combiner = combiner;
+        this.compression = compression;
+        this.memoryBudget = memoryBudget;
+        this.spillFilePrefix = spillFilePrefix;
+        this.table = new WordCountTable(combiner);
+    }
+
+    public void add(byte[] key, int offset, int length, long value) throws IOException {
+        table.add(key, offset, length, value);
+        if (table.memoryUsage() > memoryBudget) {
+            spill();
+        }
+    }
+
+    // Runs volcados a disco en total (sigue valiendo después de drainTo, que los borra)
+    public int getSpillCount() {
+        return spillCount;
+    }
+
+    // Entrega todas las palabras ordenadas por clave, con sus conteos ya combinados
+    public void drainTo(RecordSink sink) throws IOException {
+        if (runs.isEmpty()) {
+            byte[] keys = table.keyArena();
+            for (int entry : table.sortedEntries()) {
+                sink.accept(keys, table.keyOffset(entry), table.keyLength(entry), table.count(entry));
+            }
+            table.clear();
+            return;
+        }
+
+        spill();
+        try (SpillMerger merger = new SpillMerger(runs)) {
+            while (merger.next()) {
+                long value = merger.value(0);
+                for (int i = 1; i < merger.valueCount(); i++) {
+                    value = combiner.combine(value, merger.value(i));
+                }
+                sink.accept(merger.keyBytes(), 0, merger.keyLength(), value);
+            }
+        } finally {
+            for (String run : runs) {
+                new File(run).delete();
+            }
+            runs.clear();
+        }
+    }
+
+    private void spill() throws IOException {
+        if (table.size() == 0) {
+            return;
+        }
+        String run = spillFilePrefix + "_run_" + runs.size() + ".bin";
+        try (SpillWriter writer = new SpillWriter(run, compression)) {
+            table.writeTo(writer, true);
+        }
+        runs.add(run);
+        spillCount++;
+        table.clear();
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+
+// Entrega los bytes de un InputSplit sin decodificarlos a String.
+// Si el rango cabe en la ventana de mapeo se usa FileChannel.map (cero copias);
+// si es más grande se lee por bloques con el mismo canal.
+// Con lectura anticipada (ReadAhead.ENABLED) siempre se está trayendo el bloque siguiente mientras el
+// Mapper procesa el actual: el rango mapeado se entrega en ventanas de PREFETCH_WINDOW y la siguiente se
+// carga con load() en otro hilo; los splits grandes y los comprimidos se leen con ReadAhead.
+public class SplitReader {
+
+    public static final long DEFAULT_MAPPING_WINDOW = 256L * 1024 * 1024;
+    private static final int STREAM_BLOCK_SIZE = 1024 * 1024;
+    private static final int PREFETCH_WINDOW = 8 * 1024 * 1024;
+    private static final int PAST_END_BLOCK_SIZE = 4 * 1024; // Lo que se lee tras el split suele ser una palabra o una línea
+
+    // Hilos que traen a memoria las páginas de la siguiente ventana mapeada
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "split-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface BlockConsumer {
+        void accept(ByteBuffer block) throws IOException;
+    }
+
+    private final long mappingWindow;
+
+    public SplitReader(long mappingWindow) {
+        this.mappingWindow = mappingWindow;
+    }
+
+    // Pasa el split por el Mapper bloque a bloque y después, mientras el Mapper lo pida, los bytes que
+    // siguen al split en la entrada original (ver Mapper.needsPastEnd). La clave de cada bloque es su
+    // offset en la entrada original, también en los chunks materializados. `progress` recibe el largo
+    // de cada bloque del split. No llama a cleanup().
+    public <K, V> void map(InputSplit split, Mapper<Long, ByteBuffer, K, V> mapper, Output<K, V> output, LongConsumer progress) throws IOException {
+        InputSplit source = split.getSource();
+        long[] blockOffset = {source.getStart()};
+        read(split, block -> {
+            int blockLength = block.remaining();
+            mapper.map(blockOffset[0], block, output);
+            blockOffset[0] += blockLength;
+            progress.accept(blockLength);
+        });
+        if (!mapper.needsPastEnd()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(source.getFilePath()), StandardOpenOption.READ)) {
+            ByteBuffer block = ByteBuffer.allocate(PAST_END_BLOCK_SIZE);
+            long position = source.getStart() + source.getLength();
+            do {
+                block.clear();
+                int bytesRead = channel.read(block, position);
+                if (bytesRead <= 0) {
+                    return; // Fin de la entrada: lo pendiente se emite en cleanup()
+                }
+                block.flip();
+                mapper.mapPastEnd(position, block, output);
+                position += bytesRead;
+            } while (mapper.needsPastEnd());
+        }
+    }
+
+    public void read(InputSplit split, BlockConsumer consumer) throws IOException {
+        if (split.getCodec() != null) {
+            readCompressed(split, consumer);
+            return;
+        }
+        if (ReadAhead.ENABLED && split.getLength() > mappingWindow) {
+            try (ReadAhead blocks = new ReadAhead(split.getFilePath(), split.getStart(), split.getLength(), STREAM_BLOCK_SIZE, true)) {
+                ByteBuffer block;
+                while ((block = blocks.next()) != null) {
+                    consumer.accept(block);
+                }
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(split.getFilePath()), StandardOpenOption.READ)) {
+            if (split.getLength() <= mappingWindow) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, split.getStart(), split.getLength());
+                if (ReadAhead.ENABLED) {
+                    readMapped(mapped, consumer);
+                } else {
+                    consumer.accept(mapped);
+                }
+            } else {
+                ByteBuffer block = ByteBuffer.allocateDirect(STREAM_BLOCK_SIZE);
+                long position = split.getStart();
+                long end = split.getStart() + split.getLength();
+                while (position < end) {
+                    block.clear();
+                    block.limit((int) Math.min(block.capacity(), end - position));
+                    int bytesRead = channel.read(block, position);
+                    if (bytesRead < 0) {
+                        break;
+                    }
+                    position += bytesRead;
+                    block.flip();
+                    consumer.accept(block);
+                }
+            }
+        }
+    }
+
+    // Entrega el rango mapeado por ventanas; mientras el Mapper procesa una, la siguiente se carga
+    // desde el disco en otro hilo (sin esperarla: si no llegó a tiempo, el Mapper la lee él mismo)
+    private static void readMapped(MappedByteBuffer mapped, BlockConsumer consumer) throws IOException {
+        int length = mapped.limit();
+        for (int offset = 0; offset < length; offset += PREFETCH_WINDOW) {
+            int next = offset + PREFETCH_WINDOW;
+            if (next < length) {
+                MappedByteBuffer window = mapped.slice(next, Math.min(PREFETCH_WINDOW, length - next));
+                CompletableFuture.runAsync(window::load, PREFETCH);
+            }
+            consumer.accept(mapped.slice(offset, Math.min(PREFETCH_WINDOW, length - offset)));
+        }
+    }
+
+    // Chunk comprimido: se descomprime bloque por bloque en un buffer reutilizable
+    private void readCompressed(InputSplit split, BlockConsumer consumer) throws IOException {
+        try (InputStream in = new BlockInputStream(ReadAhead.openStream(split.getFilePath(), STREAM_BLOCK_SIZE), split.getCodec())) {
+            byte[] buffer = new byte[STREAM_BLOCK_SIZE];
+            int n;
+            while ((n = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                consumer.accept(ByteBuffer.wrap(buffer, 0, n));
+            }
+        }
+    }
+}
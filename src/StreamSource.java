@@ -0,0 +1,191 @@
+import java.io.*;
+import java.net.*;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+// Fuente de bytes para el modo streaming. read() nunca bloquea más de `pollMillis`:
+// devuelve 0 si por ahora no llegó nada, así el bucle puede cerrar ventanas a tiempo aunque la fuente esté callada.
+public interface StreamSource extends Closeable {
+
+    // Bytes leídos, 0 si no hay datos todavía, -1 si la fuente terminó
+    int read(byte[] buffer) throws IOException;
+
+    // "tail:/ruta" sigue un archivo que crece, "socket:9999" escucha en un puerto local,
+    // "pipe:/ruta" lee un FIFO o un archivo hasta el final y "stdin" lee la entrada estándar
+    static StreamSource open(String spec, long pollMillis) throws IOException {
+        if (spec.startsWith("tail:")) {
+            return new TailFileSource(spec.substring("tail:".length()), pollMillis);
+        } else if (spec.startsWith("socket:")) {
+            return new SocketSource(Integer.parseInt(spec.substring("socket:".length())), pollMillis);
+        } else if (spec.startsWith("pipe:")) {
+            return new StreamInputSource(new FileInputStream(spec.substring("pipe:".length())), pollMillis);
+        } else if (spec.equals("stdin")) {
+            return new StreamInputSource(System.in, pollMillis);
+        }
+        throw new IllegalArgumentException("Fuente de streaming desconocida: " + spec);
+    }
+
+    // Lee lo que se va agregando al final de un archivo (como tail -f). Empieza en el final actual;
+    // si el archivo se trunca o se rota, vuelve a leer desde el principio.
+    class TailFileSource implements StreamSource {
+
+        private final String filePath;
+        private final long pollMillis;
+        private RandomAccessFile raf;
+        private long position;
+
+        TailFileSource(String filePath, long pollMillis) throws IOException {
+            this.filePath = filePath;
+            this.pollMillis = pollMillis;
+            this.raf = new RandomAccessFile(filePath, "r");
+            this.position = raf.length();
+        }
+
+        @Override
+        public int read(byte[] buffer) throws IOException {
+            long length = new File(filePath).length();
+            if (length < position) {
+                Log.warn(filePath + " se truncó o rotó. Leyendo desde el principio...");
+                raf.close();
+                raf = new RandomAccessFile(filePath, "r");
+                position = 0;
+            }
+            if (length == position) {
+                sleep(pollMillis);
+                return 0;
+            }
+            raf.seek(position);
+            int n = raf.read(buffer, 0, (int) Math.min(buffer.length, length - position));
+            if (n > 0) {
+                position += n;
+            }
+            return Math.max(n, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+
+    // Acepta conexiones en un puerto local, una a la vez; cuando un cliente cierra se espera al siguiente
+    class SocketSource implements StreamSource {
+
+        private final ServerSocket server;
+        private Socket client;
+        private InputStream in;
+
+        SocketSource(int port, long pollMillis) throws IOException {
+            this.server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+            this.server.setSoTimeout((int) pollMillis);
+            Log.info("Info: Esperando datos en el puerto " + port + "...");
+        }
+
+        @Override
+        public int read(byte[] buffer) throws IOException {
+            try {
+                if (client == null) {
+                    client = server.accept();
+                    client.setSoTimeout(server.getSoTimeout());
+                    in = client.getInputStream();
+                }
+                int n = in.read(buffer);
+                if (n < 0) {
+                    client.close();
+                    client = null;
+                    return 0;
+                }
+                return n;
+            } catch (SocketTimeoutException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (client != null) {
+                client.close();
+            }
+            server.close();
+        }
+    }
+
+    // Entrada estándar o FIFO: un hilo aparte hace las lecturas bloqueantes y deja los bloques en una
+    // cola acotada (si el procesamiento se atrasa, el lector se frena en lugar de acumular memoria)
+    class StreamInputSource implements StreamSource {
+
+        private static final byte[] END = new byte[0];
+
+        private final InputStream in;
+        private final long pollMillis;
+        private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(64);
+        private byte[] current;
+        private int currentPosition;
+
+        StreamInputSource(InputStream in, long pollMillis) {
+            this.in = in;
+            this.pollMillis = pollMillis;
+            Thread reader = new Thread(this::readLoop, "stream-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readLoop() {
+            byte[] buffer = new byte[64 * 1024];
+            try {
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    if (n > 0) {
+                        blocks.put(Arrays.copyOf(buffer, n));
+                    }
+                }
+            } catch (IOException e) {
+                Log.error("Error leyendo la fuente de streaming: " + e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                blocks.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer) throws IOException {
+            if (current == null || currentPosition == current.length) {
+                try {
+                    current = blocks.poll(pollMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Lectura de streaming interrumpida");
+                }
+                currentPosition = 0;
+                if (current == null) {
+                    return 0;
+                }
+                if (current == END) {
+                    return -1;
+                }
+            }
+            int n = Math.min(buffer.length, current.length - currentPosition);
+            System.arraycopy(current, currentPosition, buffer, 0, n);
+            currentPosition += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lectura de streaming interrumpida");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+// Modo streaming: en lugar de procesar Input.txt de una vez, consume una fuente viva y emite el
+// conteo de cada ventana de tiempo apenas se cierra. Usa el mismo tokenizador y las mismas stopwords que WordCountJob.
+//
+// Configuración (propiedades del sistema):
+//   -Dmapreduce.stream.source=tail:/ruta | socket:9999 | pipe:/ruta | stdin   (por defecto sigue Input.txt)
+//   -Dmapreduce.stream.window=60000   tamaño de la ventana en ms
+//   -Dmapreduce.stream.slide=60000    cada cuánto se emite una ventana (igual a window = ventanas fijas)
+//   -Dmapreduce.stream.batch=1000     micro-lote: cada cuánto se tokeniza lo leído y se revisan las ventanas
+//   -Dmapreduce.stream.top=10         palabras que se muestran por ventana
+//   -Dmapreduce.stream.maxDistinct=1000000   palabras distintas por panel antes de descartar las nuevas
+public class StreamingMain {
+
+    public static void main(String[] args) throws Exception {
+        String source = System.getProperty("mapreduce.stream.source", "tail:/Users/alexperez/Documents/GitHub/DM1/M_Final/Input.txt");
+        long windowMillis = Long.getLong("mapreduce.stream.window", 60000);
+        long slideMillis = Long.getLong("mapreduce.stream.slide", windowMillis);
+        long batchMillis = Long.getLong("mapreduce.stream.batch", 1000);
+        int topWords = Integer.getInteger("mapreduce.stream.top", 10);
+        int maxDistinct = Integer.getInteger("mapreduce.stream.maxDistinct", 1000000);
+        String resultFilePath = "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/stream_result.txt";
+
+        Log.info("Info: Streaming desde " + source + " con ventanas de " + windowMillis + " ms cada " + slideMillis
+                + " ms (micro-lotes de " + batchMillis + " ms).");
+
+        try (StreamSource stream = StreamSource.open(source, Math.max(1, batchMillis / 4));
+             PrintWriter results = new PrintWriter(new FileWriter(resultFilePath, true), true)) {
+            WindowedWordCounter windows = new WindowedWordCounter(windowMillis, slideMillis, maxDistinct,
+                    (start, end, counts, droppedWords) -> emitWindow(start, end, counts, droppedWords, topWords, results));
+            WordTokenizer tokenizer = new WordTokenizer(WordCountJob.STOPWORD_BYTES, windows::add);
+
+            byte[] batch = new byte[4 * 1024 * 1024];
+            byte[] buffer = new byte[64 * 1024];
+            windows.advanceTo(System.currentTimeMillis());
+            boolean open = true;
+            while (open) {
+                // Se junta un micro-lote: hasta que pasa `batchMillis` o el buffer ya no admite otra lectura
+                int batchLength = 0;
+                long batchEnd = System.currentTimeMillis() + batchMillis;
+                while (batchLength + buffer.length <= batch.length && System.currentTimeMillis() < batchEnd) {
+                    int n = stream.read(buffer);
+                    if (n < 0) {
+                        open = false;
+                        break;
+                    }
+                    System.arraycopy(buffer, 0, batch, batchLength, n);
+                    batchLength += n;
+                }
+                // Primero se cierran las ventanas vencidas, así el lote cuenta en la ventana en que llegó.
+                // Una palabra cortada entre lotes queda en el tokenizador hasta el siguiente separador.
+                windows.advanceTo(System.currentTimeMillis());
+                tokenizer.feed(batch, 0, batchLength);
+            }
+            tokenizer.finish();
+            windows.flush();
+        }
+    }
+
+    private static void emitWindow(long start, long end, WordCountTable counts, long droppedWords, int topWords, PrintWriter results) {
+        // Las `topWords` con más ocurrencias, con un montículo de tamaño fijo
+        PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingLong(counts::count));
+        long totalWords = droppedWords;
+        for (int entry = 0; entry < counts.size(); entry++) {
+            totalWords += counts.count(entry);
+            top.add(entry);
+            if (top.size() > topWords) {
+                top.poll();
+            }
+        }
+        List<Integer> ranking = new ArrayList<>(top);
+        ranking.sort(Comparator.comparingLong(counts::count).reversed());
+
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss.SSS");
+        StringBuilder line = new StringBuilder("[" + time.format(new Date(start)) + ", " + time.format(new Date(end)) + ") palabras=" + totalWords
+                + " distintas=" + counts.size() + (droppedWords > 0 ? " descartadas=" + droppedWords : "") + " top:");
+        for (int entry : ranking) {
+            line.append(" (").append(counts.key(entry)).append(", ").append(counts.count(entry)).append(")");
+        }
+        Log.success("Ventana " + line);
+        results.println(line);
+    }
+}
@@ -0,0 +1,7 @@
+public class SumCombiner implements LongCombiner {
+
+    @Override
+    public long combine(long accumulated, long value) {
+        return accumulated + value;
+    }
+}
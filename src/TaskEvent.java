@@ -0,0 +1,46 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Evento JFR de cada tarea (intento) del trabajo. Solo cuesta algo si hay una grabación activa:
+// -Dmapreduce.jfr=true la inicia el propio trabajo, o -XX:StartFlightRecording desde fuera.
+// En JDK Mission Control las tareas quedan en la misma línea de tiempo que las pausas de GC y la E/S.
+@Name("mapreduce.Task")
+@Label("MapReduce Task")
+@Category("MapReduce")
+public class TaskEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Task")
+    String task;
+
+    @Label("Node")
+    int node;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Status")
+    String status;
+
+    @Label("Records In")
+    long recordsIn;
+
+    @Label("Records Out")
+    long recordsOut;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Spills")
+    int spills;
+}
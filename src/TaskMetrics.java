@@ -0,0 +1,173 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Contadores de un intento de tarea (Map, Shuffle, Reduce o Final Reduce). Cada nodo escribe los
+// suyos desde un solo hilo y al final de call(); el informe los lee cuando la tarea ya terminó.
+// Los contadores por registro se acumulan en variables locales del nodo y se pasan aquí una sola vez.
+public class TaskMetrics {
+
+    private final JobMetrics job; // null = tarea fuera de un trabajo (benchmarks, workers): no se informa
+    private final String stage;
+    private final String name;
+    private final int node;
+    private final int attempt;
+    private final long queuedNanos;
+    private volatile long startNanos; // 0 = todavía en la cola (lo consulta la ejecución especulativa)
+    private long endNanos;
+    private String status = "queued";
+    private long recordsIn;
+    private long recordsOut;
+    private long bytesRead;
+    private long bytesWritten;
+    private int spills;
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private TaskEvent event;
+
+    TaskMetrics(JobMetrics job, String stage, String name, int node, int attempt) {
+        this.job = job;
+        this.stage = stage;
+        this.name = name;
+        this.node = node;
+        this.attempt = attempt;
+        this.queuedNanos = System.nanoTime();
+    }
+
+    // Métricas sueltas para un nodo creado fuera de un Coordinator
+    public static TaskMetrics unreported(String stage) {
+        return new TaskMetrics(null, stage, stage, 0, 0);
+    }
+
+    // La tarea sale de la cola del planificador y empieza a ejecutarse
+    public void start() {
+        startNanos = System.nanoTime();
+        event = new TaskEvent();
+        event.begin();
+    }
+
+    public void end(boolean succeeded) {
+        endNanos = System.nanoTime();
+        synchronized (this) {
+            if (!status.equals("aborted")) {
+                status = succeeded ? "succeeded" : "failed";
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.task = name;
+            event.node = node;
+            event.attempt = attempt;
+            event.status = status;
+            event.recordsIn = recordsIn;
+            event.recordsOut = recordsOut;
+            event.bytesRead = bytesRead;
+            event.bytesWritten = bytesWritten;
+            event.spills = spills;
+            event.commit();
+        }
+        if (job != null) {
+            job.taskEnded(this);
+        }
+    }
+
+    // Intento descartado: perdió contra su copia de respaldo (o al revés); puede seguir corriendo.
+    // A un intento que ya falló también se le limpian los archivos, pero sigue contando como fallido
+    public synchronized void aborted() {
+        if (!status.equals("failed")) {
+            status = "aborted";
+        }
+    }
+
+    public void addRecordsIn(long records) {
+        recordsIn += records;
+    }
+
+    public void addRecordsOut(long records) {
+        recordsOut += records;
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead += bytes;
+    }
+
+    public void addBytesWritten(long bytes) {
+        bytesWritten += bytes;
+    }
+
+    public void addSpills(int count) {
+        spills += count;
+    }
+
+    // Tiempo dentro de la tarea en una sub-fase (p. ej. "map" y "write" en el nodo Map)
+    public void addPhase(String phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    synchronized String getStatus() {
+        return status;
+    }
+
+    String getStage() {
+        return stage;
+    }
+
+    boolean hasStarted() {
+        return startNanos != 0;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getEndNanos() {
+        return endNanos;
+    }
+
+    long getQueueWaitNanos() {
+        return startNanos - queuedNanos;
+    }
+
+    long getRunNanos() {
+        return endNanos - startNanos;
+    }
+
+    long getRecordsIn() {
+        return recordsIn;
+    }
+
+    long getRecordsOut() {
+        return recordsOut;
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    int getSpills() {
+        return spills;
+    }
+
+    String toJson() {
+        StringBuilder phases = new StringBuilder();
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            phases.append(phases.length() == 0 ? "" : ", ").append(JobMetrics.quote(phase.getKey())).append(": ").append(phase.getValue() / 1_000_000);
+        }
+        return "{\"stage\": " + JobMetrics.quote(stage)
+                + ", \"task\": " + JobMetrics.quote(name)
+                + ", \"node\": " + node
+                + ", \"attempt\": " + attempt
+                + ", \"status\": " + JobMetrics.quote(getStatus())
+                + ", \"queueWaitMillis\": " + (hasStarted() ? getQueueWaitNanos() / 1_000_000 : -1)
+                + ", \"runMillis\": " + (endNanos != 0 ? getRunNanos() / 1_000_000 : -1)
+                + ", \"recordsIn\": " + recordsIn
+                + ", \"recordsOut\": " + recordsOut
+                + ", \"bytesRead\": " + bytesRead
+                + ", \"bytesWritten\": " + bytesWritten
+                + ", \"spills\": " + spills
+                + ", \"phaseMillis\": {" + phases + "}}";
+    }
+}
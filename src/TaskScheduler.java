@@ -0,0 +1,52 @@
+import java.util.concurrent.*;
+
+// Planificador único para las tareas Map, Shuffle y Reduce de todos los coordinadores.
+// Es un ForkJoinPool: cada hilo tiene su cola y los hilos libres roban trabajo de los demás,
+// así un hilo ocioso toma la siguiente tarea pendiente sin importar de qué coordinador vino.
+public class TaskScheduler {
+
+    // Propiedad del sistema para fijar el número de hilos; por defecto uno por núcleo
+    public static final String PARALLELISM_PROPERTY = "mapreduce.workers";
+
+    private final ForkJoinPool pool;
+
+    public TaskScheduler(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public static int defaultParallelism() {
+        return Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // Encola la tarea y la expone como CompletableFuture para encadenar las fases
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(task, pool);
+    }
+
+    // Igual que submit, pero la tarea entra a la cola después de `delayMillis` sin ocupar un hilo mientras espera
+    public <T> CompletableFuture<T> submit(Callable<T> task, long delayMillis) {
+        return submit(task, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, pool));
+    }
+
+    private static <T> CompletableFuture<T> submit(Callable<T> task, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Cierra el planificador y espera a que terminen las tareas en curso
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+}
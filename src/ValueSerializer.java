@@ -0,0 +1,23 @@
+// Convierte los valores de un trabajo a bytes y de vuelta; así viajan por el motor y se guardan en los
+// archivos intermedios. Los valores que caben en 64 bits (conteos, sumas, máximos, marcas de tiempo)
+// conviene serializarlos con un LongValueSerializer: el motor los guarda como varint y los combina en
+// tablas primitivas (WordCountTable), que es lo que mantiene rápidas las fases Map y Shuffle.
+// Cualquier otro valor (listas, estructuras) pasa por sus bytes y se combina con el Combiner del trabajo.
+public interface ValueSerializer<V> {
+
+    byte[] serialize(V value);
+
+    V deserialize(byte[] bytes, int offset, int length);
+
+    LongValueSerializer<Long> LONG = new LongValueSerializer<Long>() {
+        @Override
+        public long toLong(Long value) {
+            return value;
+        }
+
+        @Override
+        public Long fromLong(long value) {
+            return value;
+        }
+    };
+}
@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.util.*;
+
+// Conteo de palabras por ventanas de tiempo para el modo streaming.
+// El tiempo se divide en paneles de `slideMillis`; una ventana de `windowMillis` es la suma de sus
+// últimos windowMillis / slideMillis paneles (ventana deslizante), o un solo panel si ambos son iguales
+// (ventana fija). Solo se guardan los paneles que todavía entran en alguna ventana, y cada panel admite
+// a lo sumo `maxDistinctPerPane` palabras distintas: con eso la memoria queda acotada aunque la fuente no pare.
+public class WindowedWordCounter {
+
+    public interface WindowSink {
+        // `droppedWords` son ocurrencias de palabras nuevas que no entraron porque el panel estaba lleno
+        void accept(long windowStart, long windowEnd, WordCountTable counts, long droppedWords) throws IOException;
+    }
+
+    private static class Pane {
+        final long start;
+        final WordCountTable counts = new WordCountTable(new SumCombiner());
+        long droppedWords;
+
+        Pane(long start) {
+            this.start = start;
+        }
+    }
+
+    private final long windowMillis;
+    private final long slideMillis;
+    private final int maxDistinctPerPane;
+    private final WindowSink sink;
+    private final ArrayDeque<Pane> panes = new ArrayDeque<>();
+    private Pane current;
+
+    public WindowedWordCounter(long windowMillis, long slideMillis, int maxDistinctPerPane, WindowSink sink) {
+        if (slideMillis <= 0 || windowMillis % slideMillis != 0) {
+            throw new IllegalArgumentException("La ventana (" + windowMillis + " ms) debe ser múltiplo del deslizamiento (" + slideMillis + " ms)");
+        }
+        this.windowMillis = windowMillis;
+        this.slideMillis = slideMillis;
+        this.maxDistinctPerPane = maxDistinctPerPane;
+        this.sink = sink;
+    }
+
+    public void add(byte[] word, int length) {
+        WordCountTable counts = current.counts;
+        if (counts.size() < maxDistinctPerPane) {
+            counts.add(word, 0, length, 1);
+        } else if (!counts.addExisting(word, 0, length, 1)) {
+            current.droppedWords++;
+        }
+    }
+
+    // Cierra los paneles que terminaron antes de `now` y emite cada ventana que termina con ellos
+    public void advanceTo(long now) throws IOException {
+        long paneStart = now - Math.floorMod(now, slideMillis);
+        if (current == null) {
+            openPane(paneStart);
+            return;
+        }
+        if (current.start == paneStart) {
+            return;
+        }
+        long closedPane = current.start;
+        emit(closedPane + slideMillis);
+        // Tras un silencio largo no hace falta emitir una ventana vacía por cada panel: basta con las que
+        // todavía contienen el panel recién cerrado
+        long next = closedPane + slideMillis;
+        while (next < paneStart && next < closedPane + windowMillis) {
+            openPane(next);
+            emit(next + slideMillis);
+            next += slideMillis;
+        }
+        openPane(paneStart);
+    }
+
+    // Emite la ventana que termina con el panel actual (al cerrar la fuente)
+    public void flush() throws IOException {
+        if (current != null) {
+            emit(current.start + slideMillis);
+            current = null;
+            panes.clear();
+        }
+    }
+
+    private void openPane(long start) {
+        current = new Pane(start);
+        panes.addLast(current);
+        // Se descartan los paneles que ya no caben en ninguna ventana futura
+        while (panes.peekFirst().start <= start - windowMillis) {
+            panes.removeFirst();
+        }
+    }
+
+    private void emit(long windowEnd) throws IOException {
+        long windowStart = windowEnd - windowMillis;
+        WordCountTable window;
+        long droppedWords = 0;
+        if (windowMillis == slideMillis) {
+            window = current.counts;
+            droppedWords = current.droppedWords;
+        } else {
+            window = new WordCountTable(new SumCombiner());
+            byte[] keys;
+            for (Pane pane : panes) {
+                if (pane.start >= windowStart && pane.start < windowEnd) {
+                    keys = pane.counts.keyArena();
+                    for (int entry = 0; entry < pane.counts.size(); entry++) {
+                        window.add(keys, pane.counts.keyOffset(entry), pane.counts.keyLength(entry), pane.counts.count(entry));
+                    }
+                    droppedWords += pane.droppedWords;
+                }
+            }
+        }
+        sink.accept(windowStart, windowEnd, window, droppedWords);
+    }
+}
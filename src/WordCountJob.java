@@ -0,0 +1,107 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// El trabajo original: cuenta las ocurrencias de cada palabra (en minúsculas, sin stopwords)
+public class WordCountJob implements Job<String, Long> {
+
+    static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+        "the", "ab", "and", "of", "to", "in", "a", "was", "he", "it", "his", "that", "with", "for", "had", "as", "at", "by", 
+        "on", "not", "b", "be", "is", "were", "but", "from", "which", "or", "this", "have", "him", "all", "her", "so", 
+        "when", "no", "if", "would", "out", "about", "there", "been", "more", "one", "who", "up", "their", "could", 
+        "what", "some", "into", "said", "than", "any", "only", "where", "every", "other", "through", "before", "these", 
+        "after", "should", "again", "over", "down", "those", "because", "such", "while", "then", "they", "them", 
+        "were", "until", "very", "having", "upon", "against", "each", "during", "whether", "however", "even", "nor", 
+        "though", "thus", "once", "never", "ever", "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p", "q", "r", "s", "t", "u", "v", "w", "x", "y", "z",
+        "ab", "ac", "ad", "ae", "af", "ag", "ah", "ai", "aj", "ak", "al", "am", "an", "ao", "ap", "aq", "ar", "as", "at", "au", "av", "aw", "ax", "ay", "az",
+        "bc", "bd", "be", "bf", "bg", "bh", "bi", "bj", "bk", "bl", "bm", "bn", "bo", "bp", "bq", "br", "bs", "bt", "bu", "bv", "bw", "bx", "by", "bz",
+        "cd", "ce", "cf", "cg", "ch", "ci", "cj", "ck", "cl", "cm", "cn", "co", "cp", "cq", "cr", "cs", "ct", "cu", "cv", "cw", "cx", "cy", "cz",
+        "de", "df", "dg", "dh", "di", "dj", "dk", "dl", "dm", "dn", "do", "dp", "dq", "dr", "ds", "dt", "du", "dv", "dw", "dx", "dy", "dz",
+        "ef", "eg", "eh", "ei", "ej", "ek", "el", "em", "en", "eo", "ep", "eq", "er", "es", "et", "eu", "ev", "ew", "ex", "ey", "ez",
+        "fg", "fh", "fi", "fj", "fk", "fl", "fm", "fn", "fo", "fp", "fq", "fr", "fs", "ft", "fu", "fv", "fw", "fx", "fy", "fz",
+        "gh", "gi", "gj", "gk", "gl", "gm", "gn", "go", "gp", "gq", "gr", "gs", "gt", "gu", "gv", "gw", "gx", "gy", "gz",
+        "hi", "hj", "hk", "hl", "hm", "hn", "ho", "hp", "hq", "hr", "hs", "ht", "hu", "hv", "hw", "hx", "hy", "hz",
+        "ij", "ik", "il", "im", "in", "io", "ip", "iq", "ir", "is", "it", "iu", "iv", "iw", "ix", "iy", "iz",
+        "jk", "jl", "jm", "jn", "jo", "jp", "jq", "jr", "js", "jt", "ju", "jv", "jw", "jx", "jy", "jz",
+        "kl", "km", "kn", "ko", "kp", "kq", "kr", "ks", "kt", "ku", "kv", "kw", "kx", "ky", "kz",
+        "lm", "ln", "lo", "lp", "lq", "lr", "ls", "lt", "lu", "lv", "lw", "lx", "ly", "lz",
+        "mn", "mo", "mp", "mq", "mr", "ms", "mt", "mu", "mv", "mw", "mx", "my", "mz",
+        "no", "np", "nq", "nr", "ns", "nt", "nu", "nv", "nw", "nx", "ny", "nz",
+        "op", "oq", "or", "os", "ot", "ou", "ov", "ow", "ox", "oy", "oz",
+        "pq", "pr", "ps", "pt", "pu", "pv", "pw", "px", "py", "pz",
+        "qr", "qs", "qt", "qu", "qv", "qw", "qx", "qy", "qz",
+        "rs", "rt", "ru", "rv", "rw", "rx", "ry", "rz",
+        "st", "su", "sv", "sw", "sx", "sy", "sz",
+        "tu", "tv", "tw", "tx", "ty", "tz",
+        "uv", "uw", "ux", "uy", "uz",
+        "vw", "vx", "vy", "vz",
+        "wx", "wy", "wz",
+        "xy", "xz",
+        "yz"
+    ));
+    // Las mismas stopwords, consultables sobre bytes desde el tokenizador
+    static final ByteStringSet STOPWORD_BYTES = new ByteStringSet(STOPWORDS);
+
+    @Override
+    public String getName() {
+        return "wordcount";
+    }
+
+    @Override
+    public Mapper<Long, ByteBuffer, String, Long> createMapper() {
+        return new WordCountMapper();
+    }
+
+    @Override
+    public LongCombiner getCombiner() {
+        return new SumCombiner();
+    }
+
+    @Override
+    public Reducer<String, Long, Long> createReducer() {
+        return new SumReducer<>();
+    }
+
+    @Override
+    public Serializer<String> getKeySerializer() {
+        return Serializer.STRING;
+    }
+
+    @Override
+    public ValueSerializer<Long> getValueSerializer() {
+        return ValueSerializer.LONG;
+    }
+
+    // El tokenizador trabaja sobre los bytes del bloque: no se decodifica ni se crean líneas, y cada
+    // palabra (ya en minúsculas y que no es stopword) sale serializada con conteo 1, sin crear objetos
+    private static class WordCountMapper implements Mapper<Long, ByteBuffer, String, Long> {
+
+        private Output<String, Long> output;
+        private final WordTokenizer tokenizer = new WordTokenizer(STOPWORD_BYTES, (token, length) -> output.collectSerialized(token, 0, length, 1));
+
+        @Override
+        public void map(Long offset, ByteBuffer block, Output<String, Long> output) throws IOException {
+            this.output = output;
+            tokenizer.feed(block);
+        }
+
+        @Override
+        public void cleanup(Output<String, Long> output) throws IOException {
+            this.output = output;
+            tokenizer.finish();
+        }
+    }
+
+    // Suma los conteos parciales de una clave; también lo usan otros trabajos de conteo
+    static class SumReducer<K> implements Reducer<K, Long, Long> {
+
+        @Override
+        public Long reduce(K key, Iterable<Long> values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Tabla hash de direccionamiento abierto para contar palabras sin objetos por palabra.
+// Las claves se copian a un único arreglo de bytes (arena) y los conteos son long primitivos;
+// las entradas se guardan en orden de inserción y `slots` solo indexa esas entradas.
+// No mantiene orden: si se pide salida ordenada se ordena una sola vez al escribir.
+public class WordCountTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final LongCombiner combiner;
+
+    private int[] slots; // índice de entrada + 1; 0 = vacío
+    private int mask;
+
+    private byte[] arena;
+    private int arenaSize;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private int[] hashes;
+    private long[] counts;
+    private int size;
+
+    public WordCountTable(LongCombiner combiner) {
+        this.combiner = combiner;
+        allocate();
+    }
+
+    // Suma (o combina) `value` al conteo de la clave; la clave se copia solo la primera vez
+    public void add(byte[] key, int offset, int length, long value) {
+        int hash = hash(key, offset, length);
+        int slot = hash & mask;
+        int entry;
+        while ((entry = slots[slot] - 1) >= 0) {
+            if (hashes[entry] == hash && keyLengths[entry] == length
+                    && Arrays.equals(arena, keyOffsets[entry], keyOffsets[entry] + length, key, offset, offset + length)) {
+                counts[entry] = combiner.combine(counts[entry], value);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = insert(key, offset, length, hash, value) + 1;
+        if (size > slots.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    // Igual que add, pero solo si la clave ya está en la tabla; devuelve false si no estaba
+    public boolean addExisting(byte[] key, int offset, int length, long value) {
+        int hash = hash(key, offset, length);
+        int slot = hash & mask;
+        int entry;
+        while ((entry = slots[slot] - 1) >= 0) {
+            if (hashes[entry] == hash && keyLengths[entry] == length
+                    && Arrays.equals(arena, keyOffsets[entry], keyOffsets[entry] + length, key, offset, offset + length)) {
+                counts[entry] = combiner.combine(counts[entry], value);
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Memoria aproximada que ocupa la tabla, en bytes
+    public long memoryUsage() {
+        return (long) slots.length * 4 + arena.length + (long) keyOffsets.length * (4 + 4 + 4 + 8);
+    }
+
+    public byte[] keyArena() {
+        return arena;
+    }
+
+    public int keyOffset(int entry) {
+        return keyOffsets[entry];
+    }
+
+    public int keyLength(int entry) {
+        return keyLengths[entry];
+    }
+
+    public String key(int entry) {
+        return new String(arena, keyOffsets[entry], keyLengths[entry], StandardCharsets.UTF_8);
+    }
+
+    public long count(int entry) {
+        return counts[entry];
+    }
+
+    // Índices de las entradas ordenados por clave (orden de bytes sin signo, que en UTF-8 es el orden de los caracteres)
+    public int[] sortedEntries() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sort(order, 0, size - 1);
+        return order;
+    }
+
+    // Escribe todas las entradas como registros (clave, conteo); ordenadas solo si se pide
+    public void writeTo(SpillWriter writer, boolean sorted) throws IOException {
+        long[] value = new long[1];
+        int[] order = sorted ? sortedEntries() : null;
+        for (int i = 0; i < size; i++) {
+            int entry = sorted ? order[i] : i;
+            value[0] = counts[entry];
+            writer.write(arena, keyOffsets[entry], keyLengths[entry], value, 1);
+        }
+    }
+
+    // Vacía la tabla y vuelve a la capacidad inicial para liberar la memoria
+    public void clear() {
+        allocate();
+    }
+
+    private void allocate() {
+        slots = new int[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+        arena = new byte[INITIAL_CAPACITY * 8];
+        arenaSize = 0;
+        keyOffsets = new int[INITIAL_CAPACITY];
+        keyLengths = new int[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        counts = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private int insert(byte[] key, int offset, int length, int hash, long value) {
+        if (size == keyOffsets.length) {
+            int capacity = size * 2;
+            keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+            keyLengths = Arrays.copyOf(keyLengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(key, offset, arena, arenaSize, length);
+        keyOffsets[size] = arenaSize;
+        keyLengths[size] = length;
+        hashes[size] = hash;
+        counts[size] = value;
+        arenaSize += length;
+        return size++;
+    }
+
+    private void resize() {
+        int[] newSlots = new int[slots.length * 2];
+        int newMask = newSlots.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & newMask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newSlots[slot] = entry + 1;
+        }
+        slots = newSlots;
+        mask = newMask;
+    }
+
+    private static int hash(byte[] key, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + key[i];
+        }
+        // Mezclamos los bits altos porque el índice del slot usa solo los bajos
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int compare(int a, int b) {
+        return Arrays.compareUnsigned(arena, keyOffsets[a], keyOffsets[a] + keyLengths[a],
+                arena, keyOffsets[b], keyOffsets[b] + keyLengths[b]);
+    }
+
+    // Quicksort sobre índices primitivos (evita Integer y Comparator por comparación)
+    private void sort(int[] order, int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            if (compare(order[middle], order[low]) < 0) {
+                swap(order, middle, low);
+            }
+            if (compare(order[high], order[low]) < 0) {
+                swap(order, high, low);
+            }
+            if (compare(order[high], order[middle]) < 0) {
+                swap(order, high, middle);
+            }
+            int pivot = order[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(order[i], pivot) < 0) {
+                    i++;
+                }
+                while (compare(order[j], pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(order, i++, j--);
+                }
+            }
+            // Recursión sobre la parte pequeña, iteración sobre la grande
+            if (j - low < high - i) {
+                sort(order, low, j);
+                low = i;
+            } else {
+                sort(order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= low && compare(order[j], current) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+    private static void swap(int[] order, int i, int j) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+}
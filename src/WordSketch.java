@@ -0,0 +1,182 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Resumen de tamaño fijo de un conjunto de pares (clave, conteo) para el modo aproximado:
+//  - Space-Saving guarda las claves candidatas a más frecuentes con su conteo y su error,
+//  - Count-Min acota el conteo de cualquier clave (con él se ajustan las candidatas al combinar),
+//  - HyperLogLog estima cuántas claves distintas hubo,
+//  - y el total exacto de ocurrencias.
+// Dos sketches con los mismos parámetros se combinan sin perder las garantías, así que cada Map,
+// cada Reduce y el Final Reduce manejan siempre el mismo tamaño, sin importar el vocabulario.
+//
+// Archivo: "MRSK", versión, total, Space-Saving, Count-Min, HyperLogLog y el CRC32 de todo lo anterior
+// en los últimos 4 bytes (como en los archivos de SpillWriter, para que JobManifest lo verifique).
+public class WordSketch {
+
+    public static final int MAGIC = 0x4D52534B; // "MRSK"
+    private static final int VERSION = 1;
+
+    // Conteo estimado de una clave: el real está entre count - error y count
+    public static class Estimate {
+        public final byte[] key;
+        public final long count;
+        public final long error;
+
+        Estimate(byte[] key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private SpaceSaving heavyHitters;
+    private final CountMinSketch counts;
+    private final HyperLogLog distinct;
+    private long total;
+
+    WordSketch(SpaceSaving heavyHitters, CountMinSketch counts, HyperLogLog distinct) {
+        this.heavyHitters = heavyHitters;
+        this.counts = counts;
+        this.distinct = distinct;
+    }
+
+    public void add(byte[] key, int offset, int length, long count) {
+        long hash = hash(key, offset, length);
+        heavyHitters.add(key, offset, length, hash, count);
+        counts.add(hash, count);
+        distinct.add(hash);
+        total += count;
+    }
+
+    // Suma de ocurrencias de todas las claves (exacta)
+    public long getTotal() {
+        return total;
+    }
+
+    public long distinctEstimate() {
+        return distinct.estimate();
+    }
+
+    public double distinctRelativeError() {
+        return distinct.getRelativeError();
+    }
+
+    // Cota del error de cualquier conteo: total / contadores de Space-Saving
+    public long countErrorBound() {
+        return (long) Math.ceil((double) total / heavyHitters.getCapacity());
+    }
+
+    // Combina `other` en este sketch. En Space-Saving una clave que falta en un lado puede haber sumado
+    // hasta el mínimo de ese lado; de las candidatas quedan las de mayor conteo. Los conteos guardados
+    // no se acotan con el Count-Min: el mínimo de la tabla tiene que seguir siendo una cota de las
+    // claves que no están (el Count-Min se aplica al leer, en topK).
+    public void merge(WordSketch other) {
+        if (other.heavyHitters.getCapacity() != heavyHitters.getCapacity()) {
+            throw new IllegalArgumentException("No se pueden combinar sketches de " + heavyHitters.getCapacity() + " y " + other.heavyHitters.getCapacity() + " contadores");
+        }
+        counts.merge(other.counts);
+        distinct.merge(other.distinct);
+        total += other.total;
+
+        List<Estimate> candidates = new ArrayList<>();
+        collectCandidates(heavyHitters, other.heavyHitters, candidates, true);
+        collectCandidates(other.heavyHitters, heavyHitters, candidates, false);
+        candidates.sort((a, b) -> Long.compare(b.count, a.count));
+        SpaceSaving merged = new SpaceSaving(heavyHitters.getCapacity());
+        for (Estimate candidate : candidates.subList(0, Math.min(candidates.size(), merged.getCapacity()))) {
+            merged.add(candidate.key, 0, candidate.key.length, hash(candidate.key, 0, candidate.key.length), candidate.count, candidate.error);
+        }
+        heavyHitters = merged;
+    }
+
+    // Candidatas de `side`; las que también están en `otherSide` solo se agregan una vez (includeShared)
+    private void collectCandidates(SpaceSaving side, SpaceSaving otherSide, List<Estimate> candidates, boolean includeShared) {
+        for (int entry = 0; entry < side.size(); entry++) {
+            byte[] key = side.key(entry);
+            long hash = hash(key, 0, key.length);
+            int otherEntry = otherSide.entryOf(key, 0, key.length, hash);
+            if (otherEntry >= 0 && !includeShared) {
+                continue;
+            }
+            long count = side.count(entry);
+            long error = side.error(entry);
+            if (otherEntry >= 0) {
+                count += otherSide.count(otherEntry);
+                error += otherSide.error(otherEntry);
+            } else {
+                count += otherSide.minCount();
+                error += otherSide.minCount();
+            }
+            candidates.add(new Estimate(key, count, error));
+        }
+    }
+
+    // Las `k` claves de mayor conteo estimado, de mayor a menor
+    public List<Estimate> topK(int k) {
+        List<Estimate> top = new ArrayList<>();
+        for (int entry : heavyHitters.entriesByCount()) {
+            byte[] key = heavyHitters.key(entry);
+            long bounded = Math.min(heavyHitters.count(entry), counts.estimate(hash(key, 0, key.length)));
+            top.add(new Estimate(key, bounded, Math.min(heavyHitters.error(entry), bounded)));
+        }
+        top.sort((a, b) -> a.count != b.count ? Long.compare(b.count, a.count) : Arrays.compareUnsigned(a.key, b.key));
+        return top.subList(0, Math.min(k, top.size()));
+    }
+
+    public void writeTo(String file) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, checksum), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(total);
+            heavyHitters.writeTo(out);
+            counts.writeTo(out);
+            distinct.writeTo(out);
+            out.flush();
+            new DataOutputStream(fos).writeInt((int) checksum.getValue());
+        }
+    }
+
+    public static WordSketch readFrom(String file) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(file));
+        if (bytes.length < 9) {
+            throw new IOException("Sketch incompleto: " + file);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - 4);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(bytes.length - 4);
+        if (in.readInt() != (int) checksum.getValue()) {
+            throw new IOException("CRC inválido en " + file);
+        }
+        in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException(file + " no es un sketch de MapReduce");
+        }
+        long total = in.readLong();
+        SpaceSaving heavyHitters = SpaceSaving.readFrom(in);
+        WordSketch sketch = new WordSketch(heavyHitters, CountMinSketch.readFrom(in), HyperLogLog.readFrom(in));
+        sketch.total = total;
+        return sketch;
+    }
+
+    // Hash de 64 bits de la clave (FNV-1a con la mezcla final de MurmurHash3); Count-Min usa sus dos
+    // mitades y HyperLogLog los bits altos y los bajos
+    static long hash(byte[] key, int offset, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            h = (h ^ (key[i] & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Separa palabras directamente sobre los bytes de la entrada, con la misma semántica que
+// line.replaceAll("[^a-zA-Z\\s]", "").toLowerCase().split("\\s+"): los espacios en blanco separan
+// palabras y cualquier otro byte que no sea letra ASCII se descarta sin cortar la palabra.
+// Las letras se pasan a minúsculas al copiarlas al buffer reutilizable y las stopwords se descartan
+// ahí mismo, así que no se crea ningún objeto por palabra. Una palabra puede quedar repartida entre
+// dos bloques; se conserva hasta el siguiente separador.
+public class WordTokenizer {
+
+    public interface TokenSink {
+        void accept(byte[] token, int length) throws IOException;
+    }
+
+    private static final byte SKIP = 0;
+    private static final byte SEPARATOR = 1;
+
+    // Para cada byte: la letra en minúscula, SEPARATOR si es espacio en blanco, o SKIP si se descarta
+    private static final byte[] BYTE_CLASS = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            if (b >= 'a' && b <= 'z') {
+                BYTE_CLASS[b] = (byte) b;
+            } else if (b >= 'A' && b <= 'Z') {
+                BYTE_CLASS[b] = (byte) (b + ('a' - 'A'));
+            } else if (InputSplit.isWhitespace((byte) b)) {
+                BYTE_CLASS[b] = SEPARATOR;
+            } else {
+                BYTE_CLASS[b] = SKIP;
+            }
+        }
+    }
+
+    private final ByteStringSet stopwords;
+    private final TokenSink sink;
+    private byte[] token = new byte[64];
+    private int length;
+
+    public WordTokenizer(ByteStringSet stopwords, TokenSink sink) {
+        this.stopwords = stopwords;
+        this.sink = sink;
+    }
+
+    public void feed(ByteBuffer block) throws IOException {
+        if (block.hasArray()) {
+            feed(block.array(), block.arrayOffset() + block.position(), block.arrayOffset() + block.limit());
+        } else {
+            for (int i = block.position(), end = block.limit(); i < end; i++) {
+                accept(BYTE_CLASS[block.get(i) & 0xFF]);
+            }
+        }
+        block.position(block.limit());
+    }
+
+    public void feed(byte[] bytes, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            accept(BYTE_CLASS[bytes[i] & 0xFF]);
+        }
+    }
+
+    // Emite la última palabra pendiente al terminar la entrada
+    public void finish() throws IOException {
+        emit();
+    }
+
+    private void accept(byte byteClass) throws IOException {
+        if (byteClass > SEPARATOR) {
+            if (length == token.length) {
+                token = Arrays.copyOf(token, length * 2);
+            }
+            token[length++] = byteClass;
+        } else if (byteClass == SEPARATOR) {
+            emit();
+        }
+    }
+
+    private void emit() throws IOException {
+        if (length > 0) {
+            if (stopwords == null || !stopwords.contains(token, length)) {
+                sink.accept(token, length);
+            }
+            length = 0;
+        }
+    }
+}
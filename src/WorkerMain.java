@@ -0,0 +1,195 @@
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+// Worker del modo multiproceso: un proceso JVM aparte que se registra en el ClusterCoordinator,
+// le manda latidos, le pide tareas Map/Reduce de a una y sirve sus archivos de salida a los demás.
+// Si el proceso muere (o se queda sin mandar latidos, p. ej. por una pausa de GC larga) el
+// coordinador reparte sus tareas entre los workers que siguen vivos.
+//
+//   java -cp <clases> WorkerMain <host del coordinador>:<puerto>
+//
+// Propiedades: -Dmapreduce.worker.dir (carpeta local de trabajo), -Dmapreduce.worker.host (nombre con
+// el que lo encuentran los demás workers), -Dmapreduce.worker.heartbeat (ms entre latidos) y
+// -Dmapreduce.worker.crashAfterTasks=N (el proceso se cae de golpe tras N tareas, para probar la recuperación).
+// -Dmapreduce.compression comprime los archivos intermedios igual que en el modo de un solo proceso.
+// La ruta de la entrada que llega en cada tarea Map debe existir también en el host del worker.
+public class WorkerMain {
+
+    private final String coordinatorHost;
+    private final int coordinatorPort;
+    private final File workDirectory;
+    private final long heartbeatMillis;
+    private final int crashAfterTasks;
+    private Socket control;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private String workerId;
+    private int completedTasks;
+    private final ShuffleFetcher fetcher = newFetcher();
+    private final CompressionCodec compression = CompressionCodec.forName(System.getProperty("mapreduce.compression", "none"));
+
+    public WorkerMain(String coordinatorHost, int coordinatorPort, File workDirectory, long heartbeatMillis, int crashAfterTasks) {
+        this.coordinatorHost = coordinatorHost;
+        this.coordinatorPort = coordinatorPort;
+        this.workDirectory = workDirectory;
+        this.heartbeatMillis = heartbeatMillis;
+        this.crashAfterTasks = crashAfterTasks;
+    }
+
+    // -Dmapreduce.shuffle.compression=deflate comprime las descargas (no suma nada si los archivos ya
+    // están comprimidos con mapreduce.compression); parallelFetches y maxInFlight limitan cuántas
+    // descargas y cuántos bytes a la vez trae cada Reduce
+    static ShuffleFetcher newFetcher() {
+        return new ShuffleFetcher(Integer.getInteger("mapreduce.shuffle.parallelFetches", 4),
+                Integer.getInteger("mapreduce.shuffle.maxInFlight", 64 * 1024 * 1024),
+                CompressionCodec.forName(System.getProperty("mapreduce.shuffle.compression", "none")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] address = args[0].split(":");
+        File workDirectory = new File(System.getProperty("mapreduce.worker.dir",
+                "/Users/alexperez/Documents/GitHub/DM1/M_Final/MapReduce/src/Files/Workers/worker_" + ProcessHandle.current().pid()));
+        WorkerMain worker = new WorkerMain(address[0], Integer.parseInt(address[1]), workDirectory,
+                Long.getLong("mapreduce.worker.heartbeat", 1000), Integer.getInteger("mapreduce.worker.crashAfterTasks", 0));
+        worker.run();
+    }
+
+    public void run() throws Exception {
+        deleteDirectory(workDirectory);
+        workDirectory.mkdirs();
+
+        // Servidor de descargas: los Reduce de otros workers (y el coordinador) traen de aquí las salidas
+        ShuffleServer fetchServer = new ShuffleServer(workDirectory);
+        fetchServer.start();
+
+        control = new Socket();
+        control.connect(new InetSocketAddress(coordinatorHost, coordinatorPort), ClusterProtocol.CONNECT_TIMEOUT);
+        in = new DataInputStream(new BufferedInputStream(control.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(control.getOutputStream()));
+        String host = System.getProperty("mapreduce.worker.host", InetAddress.getLoopbackAddress().getHostAddress());
+        workerId = request("REGISTER", host, String.valueOf(fetchServer.getPort()))[1];
+        Log.info("Info: Worker " + workerId + " registrado en " + coordinatorHost + ":" + coordinatorPort + " (descargas en el puerto " + fetchServer.getPort() + ").");
+
+        Thread heartbeat = new Thread(this::sendHeartbeats, "worker-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+
+        try {
+            while (true) {
+                String[] task = request("PULL", workerId);
+                if (task[0].equals("EXIT")) {
+                    break;
+                } else if (task[0].equals("WAIT")) {
+                    Thread.sleep(Long.parseLong(task[1]));
+                } else {
+                    runTask(task);
+                }
+            }
+        } finally {
+            control.close();
+            fetchServer.close();
+        }
+        Log.success("Worker " + workerId + ": el coordinador terminó el trabajo. Saliendo.");
+    }
+
+    // Ejecuta la tarea y avisa el resultado; un fallo de la tarea se informa, no tumba al worker
+    private void runTask(String[] task) throws IOException {
+        String taskId = task[1];
+        String attempt = task[2];
+        try {
+            List<String> result = task[0].equals("MAP") ? runMap(task) : runReduce(task);
+            List<String> done = new ArrayList<>(Arrays.asList("DONE", workerId, taskId, attempt));
+            done.addAll(result);
+            request(done.toArray(new String[0]));
+        } catch (Exception e) {
+            Log.error("Worker " + workerId + ": " + taskId + " falló: " + e.getMessage());
+            request("FAILED", workerId, taskId, attempt, String.valueOf(e.getMessage()));
+        }
+        completedTasks++;
+        if (crashAfterTasks > 0 && completedTasks >= crashAfterTasks) {
+            // Caída abrupta: sin cerrar conexiones ni avisar, como un proceso que se queda sin memoria
+            Log.error("Error inducido: el worker " + workerId + " se cae tras " + completedTasks + " tareas.");
+            Runtime.getRuntime().halt(1);
+        }
+    }
+
+    // MAP <tarea> <intento> <trabajo> <entrada> <inicio> <largo> <chunk> <particiones> -> <resultado> <archivo por partición>
+    private List<String> runMap(String[] task) throws Exception {
+        Job<?, ?> job = Job.forName(task[3]);
+        InputSplit split = new InputSplit(task[4], Long.parseLong(task[5]), Long.parseLong(task[6]), Integer.parseInt(task[7]));
+        int numPartitions = Integer.parseInt(task[8]);
+        String prefix = new File(workDirectory, task[1] + ".attempt_" + task[2]).getPath();
+        MapNode<?, ?> mapNode = new MapNode<>(Collections.singletonList(split), prefix, numPartitions, job,
+                SplitReader.DEFAULT_MAPPING_WINDOW, 64L * 1024 * 1024, "worker " + workerId, 0, false, false);
+        mapNode.setCompression(compression);
+        List<String> result = new ArrayList<>();
+        result.add(String.valueOf(mapNode.call()));
+        for (int p = 0; p < numPartitions; p++) {
+            result.add(MapNode.partitionFile(prefix, p));
+        }
+        return result;
+    }
+
+    // REDUCE <tarea> <intento> <trabajo> <n> (<host> <puerto> <archivo>)*n -> <resultado> <archivo reduce>
+    // Los archivos remotos son las particiones de este Reduce en cada salida Map, en cualquier orden
+    private List<String> runReduce(String[] task) throws Exception {
+        Job<?, ?> job = Job.forName(task[3]);
+        int count = Integer.parseInt(task[4]);
+        String prefix = new File(workDirectory, task[1] + ".attempt_" + task[2]).getPath();
+        // Las particiones se descargan en paralelo; si falla una, el mensaje dice de qué worker era
+        // (FETCH <host>:<puerto>) y el coordinador rehace los Map que tenía
+        List<String> mapFiles = new ArrayList<>();
+        List<ShuffleFetcher.Source> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String localPath = prefix + "_fetch_" + i + ".bin";
+            sources.add(new ShuffleFetcher.Source(task[5 + 3 * i], Integer.parseInt(task[6 + 3 * i]), task[7 + 3 * i], localPath));
+            mapFiles.add(localPath);
+        }
+        fetcher.fetchAll(sources);
+        Log.debug("SHUFFLE worker " + workerId + ": " + count + " particiones Map descargadas para " + task[1]);
+
+        String shuffleFile = prefix + "_shuffle.bin";
+        ShuffleNode shuffleNode = new ShuffleNode(mapFiles, shuffleFile, "worker " + workerId, 0, false, false);
+        shuffleNode.setCompression(compression);
+        shuffleNode.call();
+        for (String mapFile : mapFiles) {
+            OutputCommitter.discard(mapFile);
+        }
+        String reduceFile = prefix + ".bin";
+        ReduceNode<?, ?> reduceNode = new ReduceNode<>(Collections.singletonList(shuffleFile), reduceFile, job, "worker " + workerId, 0, false);
+        reduceNode.setCompression(compression);
+        int distinctKeys = reduceNode.call();
+        OutputCommitter.discard(shuffleFile);
+        return Arrays.asList(String.valueOf(distinctKeys), reduceFile);
+    }
+
+    private void sendHeartbeats() {
+        try {
+            while (true) {
+                Thread.sleep(heartbeatMillis);
+                request("HEARTBEAT", workerId);
+            }
+        } catch (IOException | InterruptedException e) {
+            // La conexión de control se cerró: el bucle principal también lo va a notar
+        }
+    }
+
+    // Las peticiones del bucle de tareas y de los latidos comparten la conexión de control
+    private synchronized String[] request(String... fields) throws IOException {
+        ClusterProtocol.send(out, fields);
+        return ClusterProtocol.receive(in);
+    }
+
+    private static boolean deleteDirectory(File dir) {
+        if (dir.isDirectory()) {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    deleteDirectory(file);
+                }
+            }
+        }
+        return dir.delete();
+    }
+}
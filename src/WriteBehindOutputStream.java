@@ -0,0 +1,140 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// Escritura diferida: cada buffer lleno se entrega a AsynchronousFileChannel y se sigue llenando otro
+// mientras el disco escribe. Hay a lo sumo `maxBuffers` buffers por archivo; si todos están en vuelo
+// se espera al más viejo, así la memoria queda acotada aunque el disco vaya más lento que la tarea.
+// flush() espera a que todo lo escrito haya llegado al archivo.
+// -Dmapreduce.io.async=false vuelve a FileOutputStream (para comparar).
+public class WriteBehindOutputStream extends OutputStream {
+
+    public static final int BUFFER_SIZE = 256 * 1024;
+    public static final int MAX_BUFFERS = 4;
+
+    // Escritura en vuelo: dónde va y qué buffer ocupa
+    private static class Pending {
+        final ByteBuffer buffer;
+        final long position;
+        final Future<Integer> write;
+
+        Pending(ByteBuffer buffer, long position, Future<Integer> write) {
+            this.buffer = buffer;
+            this.position = position;
+            this.write = write;
+        }
+    }
+
+    private final String filePath;
+    private final AsynchronousFileChannel channel;
+    private final int maxBuffers;
+    private final ArrayDeque<Pending> inFlight = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private final int bufferSize;
+    private int allocated;
+    private ByteBuffer current;
+    private long position; // Offset del archivo donde va `current`
+    private boolean closed;
+
+    public WriteBehindOutputStream(String filePath, int bufferSize, int maxBuffers) throws IOException {
+        this.filePath = filePath;
+        this.channel = AsynchronousFileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.bufferSize = bufferSize;
+        this.maxBuffers = Math.max(2, maxBuffers);
+        this.current = takeBuffer();
+    }
+
+    // Archivo nuevo con escritura diferida, o un FileOutputStream si está desactivada
+    public static OutputStream open(String filePath) throws IOException {
+        return ReadAhead.ENABLED ? new WriteBehindOutputStream(filePath, BUFFER_SIZE, MAX_BUFFERS) : new FileOutputStream(filePath);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!current.hasRemaining()) {
+            submit();
+        }
+        current.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!current.hasRemaining()) {
+                submit();
+            }
+            int n = Math.min(len, current.remaining());
+            current.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (current.position() > 0) {
+            submit();
+        }
+        while (!inFlight.isEmpty()) {
+            free.add(complete(inFlight.poll()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Manda a escribir el buffer actual y pasa a uno libre
+    private void submit() throws IOException {
+        current.flip();
+        int length = current.remaining();
+        inFlight.add(new Pending(current, position, channel.write(current, position)));
+        position += length;
+        current = takeBuffer();
+    }
+
+    private ByteBuffer takeBuffer() throws IOException {
+        ByteBuffer buffer;
+        if (!free.isEmpty()) {
+            buffer = free.poll();
+        } else if (allocated < maxBuffers) {
+            allocated++;
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        } else {
+            // Todos los buffers están en vuelo: se espera al más viejo
+            buffer = complete(inFlight.poll());
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    // Espera una escritura (completándola si el canal escribió menos de lo pedido) y devuelve su buffer
+    private ByteBuffer complete(Pending pending) throws IOException {
+        try {
+            long offset = pending.position + pending.write.get();
+            while (pending.buffer.hasRemaining()) {
+                offset += channel.write(pending.buffer, offset).get();
+            }
+            return pending.buffer;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException("Error escribiendo " + filePath, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Escritura de " + filePath + " interrumpida");
+        }
+    }
+}
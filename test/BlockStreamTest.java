@@ -0,0 +1,157 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bloques comprimidos (BlockOutputStream / BlockInputStream) y el formato intermedio comprimido (versión 2)
+class BlockStreamTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsCompressibleAndRandomBlocks() throws IOException {
+        // Texto repetido (se comprime) y bytes aleatorios (se guardan tal cual), en varios bloques
+        byte[] text = "la casa del perro ".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        byte[] noise = new byte[3 * BlockOutputStream.BLOCK_SIZE + 17];
+        new Random(1).nextBytes(noise);
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        raw.write(text);
+        raw.write(noise);
+
+        byte[] encoded = encode(raw.toByteArray());
+        assertTrue(encoded.length < raw.size(), "el texto no se comprimió");
+        try (BlockInputStream in = new BlockInputStream(new ByteArrayInputStream(encoded), CompressionCodec.DEFLATE)) {
+            assertArrayEquals(raw.toByteArray(), in.readAllBytes());
+            assertEquals(-1, in.read());
+            assertEquals(encoded.length, in.getBytesRead());
+        }
+    }
+
+    @Test
+    void stopsAtTheEndMarker() throws IOException {
+        byte[] encoded = encode("hola".getBytes(StandardCharsets.UTF_8));
+        byte[] withTrailer = Arrays.copyOf(encoded, encoded.length + 4);
+        ByteArrayInputStream source = new ByteArrayInputStream(withTrailer);
+        try (BlockInputStream in = new BlockInputStream(source, CompressionCodec.DEFLATE)) {
+            assertEquals("hola", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            // Lo que sigue a la marca de fin (p. ej. el CRC repetido de SpillWriter) queda sin leer
+            assertEquals(4, source.available());
+        }
+    }
+
+    @Test
+    void rejectsInvalidBlockHeaders() {
+        byte[] encoded = encode("la casa del perro ".repeat(100).getBytes(StandardCharsets.UTF_8));
+        byte[] tooLong = encoded.clone();
+        ByteBuffer.wrap(tooLong).putInt(0, BlockOutputStream.BLOCK_SIZE + 1);
+        assertInvalid(tooLong, "inválido");
+
+        byte[] negative = encoded.clone();
+        ByteBuffer.wrap(negative).putInt(0, -5);
+        assertInvalid(negative, "inválido");
+
+        // Bloque guardado sin comprimir cuyo largo no coincide con el original
+        byte[] mismatch = encoded.clone();
+        ByteBuffer.wrap(mismatch).putInt(4, -(ByteBuffer.wrap(encoded).getInt(0) - 1));
+        assertInvalid(mismatch, "inválido");
+    }
+
+    @Test
+    void rejectsCorruptPayload() {
+        byte[] encoded = encode("la casa del perro ".repeat(100).getBytes(StandardCharsets.UTF_8));
+        // Se cambia el largo original declarado: el bloque deflate ya no produce esa cantidad de bytes
+        byte[] wrongLength = encoded.clone();
+        ByteBuffer.wrap(wrongLength).putInt(0, ByteBuffer.wrap(encoded).getInt(0) + 1);
+        assertInvalid(wrongLength, "corrupto");
+
+        byte[] garbage = encoded.clone();
+        for (int i = 8; i < 16; i++) {
+            garbage[i] = (byte) 0xFF;
+        }
+        assertThrows(IOException.class, () -> readAll(garbage));
+    }
+
+    @Test
+    void truncatedStreamFails() {
+        byte[] encoded = encode("la casa del perro ".repeat(100).getBytes(StandardCharsets.UTF_8));
+        assertThrows(EOFException.class, () -> readAll(Arrays.copyOf(encoded, encoded.length / 2)));
+        // Sin la marca de fin
+        assertThrows(EOFException.class, () -> readAll(Arrays.copyOf(encoded, encoded.length - 8)));
+    }
+
+    @Test
+    void compressedSpillRoundTrips() throws IOException {
+        String file = directory.resolve("compressed.bin").toString();
+        try (SpillWriter writer = new SpillWriter(file, CompressionCodec.DEFLATE)) {
+            for (int i = 0; i < 50_000; i++) {
+                writer.write(String.format("palabra%06d", i), i);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(Path.of(file));
+        assertEquals(SpillWriter.COMPRESSED_VERSION, bytes[4]);
+        assertEquals(CompressionCodec.DEFLATE.getId(), bytes[5]);
+
+        long sum = 0;
+        int records = 0;
+        try (SpillReader reader = new SpillReader(file)) {
+            while (reader.next()) {
+                assertEquals(String.format("palabra%06d", records), reader.key());
+                sum += reader.value(0);
+                records++;
+            }
+        }
+        assertEquals(50_000, records);
+        assertEquals(49_999L * 50_000 / 2, sum);
+    }
+
+    @Test
+    void compressedSpillDetectsCorruption() throws IOException {
+        String file = directory.resolve("compressed.bin").toString();
+        try (SpillWriter writer = new SpillWriter(file, CompressionCodec.DEFLATE)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.write("w" + i, i);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(Path.of(file));
+        bytes[bytes.length / 2] ^= 0x55;
+        Path corrupt = directory.resolve("corrupt.bin");
+        Files.write(corrupt, bytes);
+        assertThrows(IOException.class, () -> {
+            try (SpillReader reader = new SpillReader(corrupt.toString())) {
+                while (reader.next()) {
+                    // Falla al descomprimir o al validar el CRC
+                }
+            }
+        });
+    }
+
+    private static byte[] encode(byte[] raw) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (BlockOutputStream out = new BlockOutputStream(encoded, CompressionCodec.DEFLATE)) {
+            out.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encoded.toByteArray();
+    }
+
+    private static byte[] readAll(byte[] encoded) throws IOException {
+        try (BlockInputStream in = new BlockInputStream(new ByteArrayInputStream(encoded), CompressionCodec.DEFLATE)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void assertInvalid(byte[] encoded, String message) {
+        IOException e = assertThrows(IOException.class, () -> readAll(encoded));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
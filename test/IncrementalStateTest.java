@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalStateTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pendingWordIsTheTailAfterTheLastSpace() throws IOException {
+        String input = input("uno dos Tre-s");
+        long boundary = IncrementalState.lastBoundary(input, 0);
+        assertEquals(7, boundary);
+        assertArrayEquals("tres".getBytes(StandardCharsets.US_ASCII), IncrementalState.pendingWord(input, boundary, WordCountJob.STOPWORD_BYTES));
+    }
+
+    @Test
+    void pendingWordLongerThanOneBlock() throws IOException {
+        // Lo agregado no tiene espacios: la palabra pendiente se arma leyendo el resto del archivo por bloques
+        String word = "Pal4bra".repeat(40_000);
+        String input = input("uno " + word);
+        long boundary = IncrementalState.lastBoundary(input, 0);
+        assertEquals(3, boundary);
+        byte[] expected = "palbra".repeat(40_000).getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(expected, IncrementalState.pendingWord(input, boundary, WordCountJob.STOPWORD_BYTES));
+    }
+
+    @Test
+    void noPendingWordAfterTrailingWhitespaceOrStopword() throws IOException {
+        String closed = input("uno dos\n");
+        long boundary = IncrementalState.lastBoundary(closed, 0);
+        assertEquals(7, boundary);
+        assertNull(IncrementalState.pendingWord(closed, boundary, WordCountJob.STOPWORD_BYTES));
+
+        String stopword = input("uno dos The");
+        assertNull(IncrementalState.pendingWord(stopword, IncrementalState.lastBoundary(stopword, 0), WordCountJob.STOPWORD_BYTES));
+    }
+
+    @Test
+    void boundaryNeverGoesBeforeTheCountedOffset() throws IOException {
+        String input = input("uno dos tres");
+        assertEquals(7, IncrementalState.lastBoundary(input, 5));
+        assertEquals(8, IncrementalState.lastBoundary(input, 8));
+        assertEquals(10, IncrementalState.lastBoundary(input, 10));
+    }
+
+    @Test
+    void snapshotSubtractsOneOccurrenceOfThePendingWord() throws Exception {
+        // Primera ejecución sobre "casa casa zeta tre": la salida cuenta "tre", pero el snapshot no
+        Map<String, Long> snapshot = finalReduce("tre", Map.of("casa", 2L, "zeta", 1L), Map.of("tre", 1L));
+        assertEquals(Map.of("casa", 2L, "zeta", 1L), snapshot);
+
+        // Si la palabra pendiente ya tenía conteos guardados, solo se descuenta una ocurrencia
+        snapshot = finalReduce("tre", Map.of("casa", 2L, "tre", 1L), Map.of("tre", 2L));
+        assertEquals(Map.of("casa", 2L, "tre", 2L), snapshot);
+
+        // Sin palabra pendiente el snapshot es igual al resultado
+        snapshot = finalReduce(null, Map.of("casa", 2L), Map.of("zeta", 1L));
+        assertEquals(Map.of("casa", 2L, "zeta", 1L), snapshot);
+    }
+
+    @Test
+    void stateSurvivesAppendsButNotRewrites() throws IOException {
+        String input = input("uno dos tres ");
+        String stateDirectory = directory.toString();
+        IncrementalState state = IncrementalState.load(stateDirectory, input, 1);
+        assertEquals(0, state.getOffset());
+        assertNull(state.baseFile(0));
+        spill(state.nextBaseFiles()[0], Map.of("dos", 1L, "tres", 1L, "uno", 1L));
+        state.commit(12);
+
+        Files.write(Path.of(input), "cuatro ".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        IncrementalState resumed = IncrementalState.load(stateDirectory, input, 1);
+        assertEquals(12, resumed.getOffset());
+        assertNotNull(resumed.baseFile(0));
+
+        // Otra cantidad de grupos o la entrada reescrita: se cuenta todo de nuevo
+        assertEquals(0, IncrementalState.load(stateDirectory, input, 2).getOffset());
+        Files.write(Path.of(input), "UNO dos tres cuatro ".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, IncrementalState.load(stateDirectory, input, 1).getOffset());
+    }
+
+    // Corre el Final Reduce de un grupo con dos archivos Reduce y devuelve el snapshot que dejó
+    private Map<String, Long> finalReduce(String pendingWord, Map<String, Long> first, Map<String, Long> second) throws Exception {
+        String a = directory.resolve("reduce_a.bin").toString();
+        String b = directory.resolve("reduce_b.bin").toString();
+        spill(a, first);
+        spill(b, second);
+        String output = directory.resolve("final_result.txt").toString();
+        String snapshot = directory.resolve("base.bin").toString();
+        FinalReduceNode<String, Long> node = new FinalReduceNode<>(new String[][]{{a, b}}, new WordCountJob(), output, true, false);
+        node.setSnapshot(new String[]{snapshot}, pendingWord == null ? null : pendingWord.getBytes(StandardCharsets.UTF_8));
+        node.combineReduceResults();
+
+        // El resultado siempre incluye la palabra pendiente completa
+        Map<String, Long> expected = new TreeMap<>(first);
+        second.forEach((key, value) -> expected.merge(key, value, Long::sum));
+        StringBuilder lines = new StringBuilder();
+        expected.forEach((key, value) -> lines.append('(').append(key).append(", ").append(value).append(")\n"));
+        assertEquals(lines.toString(), Files.readString(Path.of(output), StandardCharsets.UTF_8));
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (SpillReader reader = new SpillReader(snapshot)) {
+            while (reader.next()) {
+                counts.put(reader.key(), reader.value(0));
+            }
+        }
+        return counts;
+    }
+
+    private String input(String content) throws IOException {
+        Path file = directory.resolve("input.txt");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    private static void spill(String file, Map<String, Long> counts) throws IOException {
+        try (SpillWriter writer = new SpillWriter(file)) {
+            for (Map.Entry<String, Long> entry : new TreeMap<>(counts).entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
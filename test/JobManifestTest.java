@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobManifestTest {
+
+    private static final String JOB = "input.txt:1000:32:wordcount";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumesCommittedTasks() throws IOException {
+        String map0 = spill("map_0.bin", "casa", 1);
+        String map1 = spill("map_1.bin", "perro", 2);
+        JobManifest manifest = JobManifest.open(directory.toString(), JOB);
+        assertEquals(0, manifest.committedTaskCount());
+        manifest.record("map_chunk_0", 10, List.of(map0));
+        manifest.record("map_chunk_1", 20, List.of(map1));
+        manifest.close();
+
+        JobManifest resumed = JobManifest.open(directory.toString(), JOB);
+        assertEquals(2, resumed.committedTaskCount());
+        assertTrue(resumed.isCommitted("map_chunk_0"));
+        assertEquals(20, resumed.result("map_chunk_1"));
+        assertTrue(resumed.isCommittedFile("map_0.bin"));
+        assertTrue(resumed.isCommittedFile(JobManifest.FILE_NAME));
+        assertFalse(resumed.isCommittedFile("map_2.bin.attempt_1"));
+        resumed.close();
+    }
+
+    @Test
+    void startsOverForAnotherJob() throws IOException {
+        String map0 = spill("map_0.bin", "casa", 1);
+        JobManifest manifest = JobManifest.open(directory.toString(), JOB);
+        manifest.record("map_chunk_0", 10, List.of(map0));
+        manifest.close();
+
+        JobManifest other = JobManifest.open(directory.toString(), "input.txt:1000:64:wordcount");
+        assertEquals(0, other.committedTaskCount());
+        other.close();
+        // El manifiesto quedó reescrito para el trabajo nuevo: volver al anterior tampoco retoma nada
+        JobManifest again = JobManifest.open(directory.toString(), JOB);
+        assertEquals(0, again.committedTaskCount());
+        again.close();
+    }
+
+    @Test
+    void dropsTasksWhoseFilesChanged() throws IOException {
+        String intact = spill("map_0.bin", "casa", 1);
+        String rewritten = spill("map_1.bin", "perro", 2);
+        String deleted = spill("map_2.bin", "zorro", 3);
+        String grown = spill("map_3.bin", "arbol", 4);
+        JobManifest manifest = JobManifest.open(directory.toString(), JOB);
+        manifest.record("map_chunk_0", 1, List.of(intact));
+        manifest.record("map_chunk_1", 1, List.of(rewritten));
+        manifest.record("map_chunk_2", 1, List.of(deleted));
+        manifest.record("map_chunk_3", 1, List.of(grown));
+        manifest.close();
+
+        // Mismo largo, otro contenido (y otro CRC); borrado; y con bytes de más al final
+        spill("map_1.bin", "gatos", 2);
+        assertTrue(new File(deleted).delete());
+        Files.write(Path.of(grown), new byte[]{0}, StandardOpenOption.APPEND);
+
+        JobManifest resumed = JobManifest.open(directory.toString(), JOB);
+        assertEquals(1, resumed.committedTaskCount());
+        assertTrue(resumed.isCommitted("map_chunk_0"));
+        assertFalse(resumed.isCommittedFile("map_1.bin"));
+        resumed.close();
+    }
+
+    @Test
+    void ignoresLineCutWhileWriting() throws IOException {
+        String map0 = spill("map_0.bin", "casa", 1);
+        String reduce0 = spill("reduce_0.bin", "casa", 1);
+        String reduce1 = spill("reduce_1.bin", "perro", 1);
+        JobManifest manifest = JobManifest.open(directory.toString(), JOB);
+        manifest.record("map_chunk_0", 1, List.of(map0));
+        manifest.record("reduce_0", 2, List.of(reduce0, reduce1));
+        manifest.close();
+
+        // El proceso murió a mitad de la última línea: le falta el segundo archivo
+        File file = directory.resolve(JobManifest.FILE_NAME).toFile();
+        String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(content.lastIndexOf(" reduce_1.bin"));
+        }
+
+        JobManifest resumed = JobManifest.open(directory.toString(), JOB);
+        assertTrue(resumed.isCommitted("map_chunk_0"));
+        assertFalse(resumed.isCommitted("reduce_0"));
+        // Tras reabrirlo la línea cortada desaparece, así las siguientes se agregan limpias
+        resumed.record("reduce_0", 2, List.of(reduce0, reduce1));
+        resumed.close();
+        JobManifest again = JobManifest.open(directory.toString(), JOB);
+        assertEquals(2, again.committedTaskCount());
+        again.close();
+    }
+
+    private String spill(String name, String key, long value) throws IOException {
+        String file = directory.resolve(name).toString();
+        try (SpillWriter writer = new SpillWriter(file)) {
+            writer.write(key, value);
+        }
+        return file;
+    }
+}
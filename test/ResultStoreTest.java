@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStoreTest {
+
+    @TempDir
+    Path directory;
+
+    // Claves con prefijos compartidos, de largo variable y con letras acentuadas, repartidas en muchos bloques
+    private final TreeMap<String, Long> expected = new TreeMap<>();
+    private String file;
+
+    @BeforeEach
+    void writeStore() throws IOException {
+        Random random = new Random(17);
+        String[] stems = {"ca", "casa", "cas", "perro", "pe", "zorro", "árbol", "ñu"};
+        for (String stem : stems) {
+            for (int i = 0; i < 300; i++) {
+                expected.put(stem + Integer.toString(i, 36), (long) random.nextInt(1_000_000));
+            }
+        }
+        expected.put("ca", 1L);
+        expected.put("casa", Long.MAX_VALUE);
+        file = write("final_result.idx", expected);
+    }
+
+    @Test
+    void findsEveryKey() throws IOException {
+        try (ResultStore store = new ResultStore(file)) {
+            assertEquals(expected.size(), store.getEntryCount());
+            expected.forEach((key, value) -> assertEquals(value, store.get(key), key));
+        }
+    }
+
+    @Test
+    void missingKeysAreNull() throws IOException {
+        try (ResultStore store = new ResultStore(file)) {
+            // Antes de la primera, después de la última, entre dos claves y prefijos de claves existentes
+            for (String key : new String[]{"a", "zzzz", "casa0a", "c", "pe0zz", "perr", "", "ñ"}) {
+                assertFalse(expected.containsKey(key), key);
+                assertNull(store.get(key), key);
+            }
+        }
+    }
+
+    @Test
+    void prefixScansOnlyMatchingKeys() throws IOException {
+        try (ResultStore store = new ResultStore(file)) {
+            for (String prefix : new String[]{"cas", "casa", "ca", "p", "pe1", "ñu", "á", "x", ""}) {
+                SortedMap<String, Long> matching = new TreeMap<>(expected);
+                matching.keySet().removeIf(key -> !key.startsWith(prefix));
+                assertEquals(matching, collect(store.prefix(prefix)), prefix);
+            }
+        }
+    }
+
+    @Test
+    void rangeScansAreHalfOpen() throws IOException {
+        try (ResultStore store = new ResultStore(file)) {
+            List<String> keys = new ArrayList<>(expected.keySet());
+            assertEquals(expected, collect(store.range(null, null)));
+            // Límites que son claves, que no lo son, y que caen en bloques distintos
+            String[][] bounds = {{keys.get(10), keys.get(500)}, {"casa", "pe"}, {"b", "d"}, {"perro9", null},
+                    {null, "cas"}, {"zzz", null}, {"pe", "pe"}, {"d", "c"}};
+            for (String[] bound : bounds) {
+                SortedMap<String, Long> range = bound[0] == null ? expected : expected.tailMap(bound[0]);
+                if (bound[1] != null) {
+                    range = bound[0] != null && bound[0].compareTo(bound[1]) > 0 ? Collections.emptySortedMap() : range.headMap(bound[1]);
+                }
+                assertEquals(range, collect(store.range(bound[0], bound[1])), Arrays.toString(bound));
+            }
+        }
+    }
+
+    @Test
+    void emptyStore() throws IOException {
+        try (ResultStore store = new ResultStore(write("empty.idx", new TreeMap<>()))) {
+            assertEquals(0, store.getEntryCount());
+            assertNull(store.get("casa"));
+            assertFalse(store.prefix("c").next());
+            assertFalse(store.range(null, null).next());
+        }
+    }
+
+    @Test
+    void writerRejectsUnsortedOrRepeatedKeys() throws IOException {
+        try (ResultStoreWriter writer = new ResultStoreWriter(directory.resolve("unsorted.idx").toString())) {
+            byte[] perro = "perro".getBytes(StandardCharsets.UTF_8);
+            byte[] casa = "casa".getBytes(StandardCharsets.UTF_8);
+            writer.write(perro, 0, perro.length, 1);
+            assertThrows(IllegalArgumentException.class, () -> writer.write(perro, 0, perro.length, 2));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(casa, 0, casa.length, 3));
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path spill = directory.resolve("final_result.bin");
+        try (SpillWriter writer = new SpillWriter(spill.toString())) {
+            for (int i = 0; i < 100; i++) {
+                writer.write("palabra" + i, i);
+            }
+        }
+        assertThrows(IOException.class, () -> new ResultStore(spill.toString()));
+        Path text = directory.resolve("final_result.txt");
+        Files.write(text, "(casa, 1)\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> new ResultStore(text.toString()));
+    }
+
+    private static SortedMap<String, Long> collect(ResultStore.Cursor cursor) {
+        SortedMap<String, Long> entries = new TreeMap<>();
+        String previous = null;
+        while (cursor.next()) {
+            String key = cursor.key();
+            assertTrue(previous == null || previous.compareTo(key) < 0, "fuera de orden: " + previous + " y " + key);
+            entries.put(key, cursor.value());
+            previous = key;
+        }
+        return entries;
+    }
+
+    private String write(String name, SortedMap<String, Long> entries) throws IOException {
+        String path = directory.resolve(name).toString();
+        try (ResultStoreWriter writer = new ResultStoreWriter(path)) {
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                writer.write(key, 0, key.length, entry.getValue());
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,144 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeculatorTest {
+
+    // Registra qué intentos se lanzaron, confirmaron y descartaron; cada intento termina cuando el test lo decide
+    private static class RecordingTask implements Speculator.TaskAttempt<String> {
+
+        final List<Integer> launched = new CopyOnWriteArrayList<>();
+        final List<Integer> backups = new CopyOnWriteArrayList<>();
+        final List<Integer> committed = new CopyOnWriteArrayList<>();
+        final List<Integer> aborted = new CopyOnWriteArrayList<>();
+        final ConcurrentMap<Integer, CompletableFuture<String>> attempts = new ConcurrentHashMap<>();
+        final CountDownLatch backupLaunched = new CountDownLatch(1);
+        volatile boolean failCommit;
+
+        @Override
+        public CompletableFuture<String> launch(int attempt, boolean backup) {
+            launched.add(attempt);
+            if (backup) {
+                backups.add(attempt);
+                backupLaunched.countDown();
+            }
+            return attempt(attempt);
+        }
+
+        @Override
+        public void commit(int attempt, String result) throws IOException {
+            if (failCommit) {
+                throw new IOException("renombrado fallido");
+            }
+            committed.add(attempt);
+        }
+
+        @Override
+        public void abort(int attempt) {
+            aborted.add(attempt);
+        }
+
+        @Override
+        public double progress(int attempt) {
+            return 0.1;
+        }
+
+        CompletableFuture<String> attempt(int attempt) {
+            return attempts.computeIfAbsent(attempt, a -> new CompletableFuture<>());
+        }
+    }
+
+    @Test
+    void commitsTheOnlyAttempt() throws Exception {
+        Speculator speculator = new Speculator("MAP", "test", 1, false);
+        RecordingTask task = new RecordingTask();
+        CompletableFuture<String> result = speculator.execute("chunk_0", task);
+        int attempt = task.launched.get(0);
+        task.attempt(attempt).complete("salida");
+        assertEquals("salida", result.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(attempt), task.committed);
+        assertTrue(task.aborted.isEmpty());
+    }
+
+    @Test
+    void abortsAFailedAttempt() {
+        Speculator speculator = new Speculator("MAP", "test", 1, false);
+        RecordingTask task = new RecordingTask();
+        CompletableFuture<String> result = speculator.execute("chunk_0", task);
+        int attempt = task.launched.get(0);
+        task.attempt(attempt).completeExceptionally(new IOException("disco lleno"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals("disco lleno", e.getCause().getMessage());
+        assertTrue(task.committed.isEmpty());
+        assertEquals(List.of(attempt), task.aborted);
+    }
+
+    @Test
+    void abortsWhenCommitFails() {
+        Speculator speculator = new Speculator("REDUCE", "test", 1, false);
+        RecordingTask task = new RecordingTask();
+        task.failCommit = true;
+        CompletableFuture<String> result = speculator.execute("reduce_1", task);
+        int attempt = task.launched.get(0);
+        task.attempt(attempt).complete("salida");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+        assertEquals(List.of(attempt), task.aborted);
+    }
+
+    @Test
+    void backupWinsAndStragglerIsAborted() throws Exception {
+        Speculator speculator = new Speculator("MAP", "test", 1, true);
+
+        // Una tarea rápida fija la mediana en ~0 ms
+        RecordingTask fast = new RecordingTask();
+        CompletableFuture<String> fastResult = speculator.execute("chunk_0", fast);
+        fast.attempt(fast.launched.get(0)).complete("rápida");
+        fastResult.get(5, TimeUnit.SECONDS);
+
+        // La segunda no termina: con 10% de avance tras un segundo se lanza la copia de respaldo
+        RecordingTask slow = new RecordingTask();
+        CompletableFuture<String> slowResult = speculator.execute("chunk_1", slow);
+        int original = slow.launched.get(0);
+        assertTrue(slow.backupLaunched.await(10, TimeUnit.SECONDS), "no se lanzó la copia de respaldo");
+        int backup = slow.backups.get(0);
+        assertNotEquals(original, backup);
+
+        slow.attempt(backup).complete("respaldo");
+        assertEquals("respaldo", slowResult.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(backup), slow.committed);
+
+        // El intento original termina después: su salida se descarta y no cambia el resultado
+        slow.attempt(original).complete("original");
+        assertEquals(List.of(backup), slow.committed);
+        assertEquals(List.of(original), slow.aborted);
+        assertEquals("respaldo", slowResult.get());
+    }
+
+    @Test
+    void failedBackupDoesNotFailTheTask() throws Exception {
+        Speculator speculator = new Speculator("MAP", "test", 1, true);
+        RecordingTask fast = new RecordingTask();
+        CompletableFuture<String> fastResult = speculator.execute("chunk_0", fast);
+        fast.attempt(fast.launched.get(0)).complete("rápida");
+        fastResult.get(5, TimeUnit.SECONDS);
+
+        RecordingTask slow = new RecordingTask();
+        CompletableFuture<String> slowResult = speculator.execute("chunk_1", slow);
+        int original = slow.launched.get(0);
+        assertTrue(slow.backupLaunched.await(10, TimeUnit.SECONDS), "no se lanzó la copia de respaldo");
+        int backup = slow.backups.get(0);
+
+        // Mientras quede un intento corriendo, el fallo del otro solo lo descarta
+        slow.attempt(backup).completeExceptionally(new IOException("worker caído"));
+        assertFalse(slowResult.isDone());
+        slow.attempt(original).complete("original");
+        assertEquals("original", slowResult.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(original), slow.committed);
+        assertEquals(List.of(backup), slow.aborted);
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Formato intermedio: ida y vuelta, detección de archivos dañados por el CRC y archivos que terminan justo
+// donde el lector recarga su buffer
+class SpillFormatTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsLongValues() throws IOException {
+        String file = directory.resolve("spill.bin").toString();
+        byte[] key = "casa".getBytes(StandardCharsets.UTF_8);
+        try (SpillWriter writer = new SpillWriter(file)) {
+            writer.write("arbol", 3);
+            writer.write(key, 0, key.length, new long[]{1, 300, Long.MAX_VALUE}, 3);
+            writer.write("ñandú", 0);
+            assertEquals(3, writer.getRecordCount());
+        }
+        assertEquals(SpillWriter.VERSION, Files.readAllBytes(Path.of(file))[4]);
+
+        try (SpillReader reader = new SpillReader(file)) {
+            assertFalse(reader.hasByteValues());
+            assertTrue(reader.next());
+            assertEquals("arbol", reader.key());
+            assertEquals(1, reader.valueCount());
+            assertEquals(3, reader.value(0));
+            assertTrue(reader.next());
+            assertEquals("casa", reader.key());
+            assertEquals(3, reader.valueCount());
+            assertEquals(300, reader.value(1));
+            assertEquals(Long.MAX_VALUE, reader.value(2));
+            assertTrue(reader.next());
+            assertEquals("ñandú", reader.key());
+            assertEquals(0, reader.value(0));
+            assertFalse(reader.next());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void roundTripsByteValues() throws IOException {
+        String file = directory.resolve("bytes.bin").toString();
+        byte[] key = "palabra".getBytes(StandardCharsets.UTF_8);
+        byte[] values = {1, 2, 3, 4, 5};
+        try (SpillWriter writer = new SpillWriter(file, null, true)) {
+            writer.write(key, 0, key.length, values, new int[]{2, 2, 5}, 3);
+            assertThrows(IllegalStateException.class, () -> writer.write("x", 1));
+        }
+        try (SpillReader reader = new SpillReader(file)) {
+            assertTrue(reader.hasByteValues());
+            assertTrue(reader.next());
+            assertEquals(3, reader.valueCount());
+            int[] ends = reader.valueEnds();
+            assertArrayEquals(new int[]{2, 2, 5}, new int[]{ends[0], ends[1], ends[2]});
+            assertArrayEquals(values, Arrays.copyOf(reader.valueBytes(), 5));
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void detectsFlippedByte() throws IOException {
+        String file = writeWords("flipped.bin", 1000);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Una letra de una clave en la mitad del archivo: el registro sigue siendo legible, solo falla el CRC
+            long middle = raf.length() / 2;
+            while (true) {
+                raf.seek(middle);
+                int b = raf.read();
+                if (b >= 'a' && b <= 'z') {
+                    raf.seek(middle);
+                    raf.write(b == 'z' ? 'a' : b + 1);
+                    break;
+                }
+                middle++;
+            }
+        }
+        IOException e = assertThrows(IOException.class, () -> readAll(file));
+        assertTrue(e.getMessage().contains("corrupto"), e.getMessage());
+    }
+
+    @Test
+    void detectsTruncatedFile() throws IOException {
+        String file = writeWords("truncated.bin", 1000);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        assertThrows(IOException.class, () -> readAll(file));
+    }
+
+    @Test
+    void rejectsUnknownHeader() throws IOException {
+        Path file = directory.resolve("text.bin");
+        Files.write(file, "(casa, [1, 1])\n".getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(IOException.class, () -> new SpillReader(file.toString()).close());
+        assertTrue(e.getMessage().contains("formato intermedio"), e.getMessage());
+    }
+
+    @Test
+    void readsFilesEndingAroundARefill() throws IOException {
+        // El lector recarga su buffer cada 64 KiB de contenido: con cada largo, un registro distinto o
+        // alguno de los 4 bytes del CRC queda partido entre dos lecturas. Vale para las cuatro versiones
+        String file = directory.resolve("refill.bin").toString();
+        for (boolean byteValues : new boolean[]{false, true}) {
+            // Registros de 9 bytes (10 con valores en bytes) hasta unos 80 bytes antes del límite
+            int records = (64 * 1024 - 80) / (byteValues ? 10 : 9);
+            writePadded(file, null, byteValues, records, 0);
+            long base = new File(file).length() - 5; // Lo que sigue a la cabecera, igual en las comprimidas
+            for (CompressionCodec codec : new CompressionCodec[]{null, CompressionCodec.DEFLATE}) {
+                for (long target = 64 * 1024 - 16; target <= 64 * 1024 + 16; target++) {
+                    writePadded(file, codec, byteValues, records, (int) (target - base));
+                    assertEquals(records + 1, readAll(file), target + " bytes, códec " + codec + ", valores en bytes " + byteValues);
+                }
+            }
+        }
+    }
+
+    private String writeWords(String name, int count) throws IOException {
+        String file = directory.resolve(name).toString();
+        try (SpillWriter writer = new SpillWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("palabra" + (char) ('a' + i % 26) + i, i);
+            }
+        }
+        return file;
+    }
+
+    // `records` claves de 6 letras y una última de 1 + `padding` letras, todas con el valor 1
+    private static void writePadded(String file, CompressionCodec codec, boolean byteValues, int records, int padding) throws IOException {
+        try (SpillWriter writer = new SpillWriter(file, codec, byteValues)) {
+            for (int i = 0; i <= records; i++) {
+                byte[] key = (i < records ? String.format("w%05d", i) : "z".repeat(1 + padding)).getBytes(StandardCharsets.UTF_8);
+                if (byteValues) {
+                    writer.write(key, 0, key.length, new byte[]{1}, 0, 1);
+                } else {
+                    writer.write(key, 0, key.length, new long[]{1}, 1);
+                }
+            }
+        }
+    }
+
+    // Lee el archivo hasta el final (validando el CRC) y devuelve cuántos registros tenía
+    private static long readAll(String file) throws IOException {
+        long records = 0;
+        try (SpillReader reader = new SpillReader(file)) {
+            while (reader.next()) {
+                records++;
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,142 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillMergerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void groupsEqualKeysAcrossFiles() throws IOException {
+        String a = write("a.bin", "casa", 1, "perro", 2, "zorro", 3);
+        String b = write("b.bin", "arbol", 4, "perro", 5);
+        String c = write("c.bin", "casa", 6, "perro", 7, "zorro", 8);
+        Map<String, Long> merged = new LinkedHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        try (SpillMerger merger = new SpillMerger(List.of(a, b, c))) {
+            assertFalse(merger.hasByteValues());
+            while (merger.next()) {
+                String key = new String(merger.keyBytes(), 0, merger.keyLength(), StandardCharsets.UTF_8);
+                long sum = 0;
+                for (int i = 0; i < merger.valueCount(); i++) {
+                    sum += merger.value(i);
+                }
+                assertNull(merged.put(key, sum), "clave repetida: " + key);
+                counts.put(key, merger.valueCount());
+            }
+        }
+        assertEquals(List.of("arbol", "casa", "perro", "zorro"), new ArrayList<>(merged.keySet()));
+        assertEquals(Map.of("arbol", 4L, "casa", 7L, "perro", 14L, "zorro", 11L), merged);
+        assertEquals(3, counts.get("perro"));
+    }
+
+    @Test
+    void ignoresEmptyFilesWhenCheckingValueTypes() throws IOException {
+        String empty = write("empty.bin");
+        String bytes = directory.resolve("bytes.bin").toString();
+        try (SpillWriter writer = new SpillWriter(bytes, null, true)) {
+            byte[] key = "casa".getBytes(StandardCharsets.UTF_8);
+            writer.write(key, 0, key.length, new byte[]{9, 8}, 0, 2);
+        }
+        try (SpillMerger merger = new SpillMerger(List.of(empty, bytes))) {
+            assertTrue(merger.hasByteValues());
+            assertTrue(merger.next());
+            assertEquals(1, merger.valueCount());
+            assertEquals(2, merger.valueEnds()[0]);
+            assertArrayEquals(new byte[]{9, 8}, Arrays.copyOf(merger.valueBytes(), 2));
+            assertFalse(merger.next());
+        }
+    }
+
+    @Test
+    void rejectsMixedValueTypes() throws IOException {
+        String longs = write("longs.bin", "casa", 1);
+        String bytes = directory.resolve("bytes.bin").toString();
+        try (SpillWriter writer = new SpillWriter(bytes, null, true)) {
+            byte[] key = "perro".getBytes(StandardCharsets.UTF_8);
+            writer.write(key, 0, key.length, new byte[]{1}, 0, 1);
+        }
+        assertThrows(IOException.class, () -> new SpillMerger(List.of(longs, bytes)));
+    }
+
+    @Test
+    void closesAfterCorruptInput() throws IOException {
+        String good = write("good.bin", "casa", 1, "perro", 2);
+        String bad = write("bad.bin", "arbol", 1, "zorro", 2);
+        try (RandomAccessFile raf = new RandomAccessFile(bad, "rw")) {
+            long last = raf.length() - 1; // Último byte del CRC
+            raf.seek(last);
+            int b = raf.read();
+            raf.seek(last);
+            raf.write(b ^ 0xFF);
+        }
+        SpillMerger merger = new SpillMerger(List.of(good, bad));
+        assertThrows(IOException.class, () -> {
+            while (merger.next()) {
+                // Se consume hasta que el archivo dañado llega a su CRC
+            }
+        });
+        merger.close();
+        merger.close();
+        // Los lectores quedaron cerrados: los archivos se pueden borrar
+        assertTrue(new File(good).delete());
+        assertTrue(new File(bad).delete());
+    }
+
+    @Test
+    void spillingWordCounterMatchesInMemoryCounts() throws IOException {
+        Random random = new Random(3);
+        String[] words = new String[20_000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "w" + random.nextInt(5_000);
+        }
+        SpillingWordCounter inMemory = add(new SpillingWordCounter(new SumCombiner(), Long.MAX_VALUE, directory.resolve("memory").toString(), null), words);
+        SpillingWordCounter spilling = add(new SpillingWordCounter(new SumCombiner(), 64 * 1024, directory.resolve("spill").toString(), null), words);
+        assertEquals(0, inMemory.getSpillCount());
+        int spills = spilling.getSpillCount();
+        assertTrue(spills > 1, "no se volcó ningún run");
+        assertEquals(drain(inMemory), drain(spilling));
+        // MapNode informa los volcados después de drainTo, que además vuelca lo que quedaba en memoria
+        assertEquals(spills + 1, spilling.getSpillCount());
+        // drainTo borra los runs
+        assertEquals(0, Objects.requireNonNull(directory.toFile().list()).length);
+    }
+
+    private static SpillingWordCounter add(SpillingWordCounter counter, String[] words) throws IOException {
+        for (String word : words) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            counter.add(bytes, 0, bytes.length, 1);
+        }
+        return counter;
+    }
+
+    // Devuelve los conteos en el orden en que salen, que debe ser el de las claves
+    private static Map<String, Long> drain(SpillingWordCounter counter) throws IOException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counter.drainTo((key, offset, length, value) -> counts.put(new String(key, offset, length, StandardCharsets.UTF_8), value));
+        List<String> sorted = new ArrayList<>(counts.keySet());
+        Collections.sort(sorted);
+        assertEquals(sorted, new ArrayList<>(counts.keySet()));
+        return counts;
+    }
+
+    // Pares clave, valor ya en orden de clave
+    private String write(String name, Object... records) throws IOException {
+        String file = directory.resolve(name).toString();
+        try (SpillWriter writer = new SpillWriter(file)) {
+            for (int i = 0; i < records.length; i += 2) {
+                writer.write((String) records[i], (Integer) records[i + 1]);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordCountTableTest {
+
+    @Test
+    void keepsCountsWhileGrowing() {
+        // Bastantes claves para redimensionar slots, entradas y arena varias veces
+        WordCountTable table = new WordCountTable(new SumCombiner());
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            String word = "w" + random.nextInt(50_000) + "x".repeat(random.nextInt(40));
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            table.add(bytes, 0, bytes.length, 1);
+            expected.merge(word, 1L, Long::sum);
+        }
+        assertEquals(expected.size(), table.size());
+        for (int entry = 0; entry < table.size(); entry++) {
+            assertEquals(expected.get(table.key(entry)), table.count(entry), table.key(entry));
+        }
+    }
+
+    @Test
+    void readsKeysFromSlices() {
+        WordCountTable table = new WordCountTable(new SumCombiner());
+        byte[] line = "xx casa yy casa".getBytes(StandardCharsets.UTF_8);
+        table.add(line, 3, 4, 2);
+        table.add(line, 11, 4, 5);
+        assertEquals(1, table.size());
+        assertEquals("casa", table.key(0));
+        assertEquals(7, table.count(0));
+    }
+
+    @Test
+    void addExistingOnlyUpdatesKnownKeys() {
+        WordCountTable table = new WordCountTable(new SumCombiner());
+        byte[] casa = bytes("casa");
+        byte[] perro = bytes("perro");
+        table.add(casa, 0, casa.length, 1);
+        assertTrue(table.addExisting(casa, 0, casa.length, -1));
+        assertFalse(table.addExisting(perro, 0, perro.length, 1));
+        assertEquals(1, table.size());
+        assertEquals(0, table.count(0));
+    }
+
+    @Test
+    void sortsByUnsignedBytes() {
+        WordCountTable table = new WordCountTable(new SumCombiner());
+        for (String word : new String[]{"ñu", "zeta", "árbol", "casa", "a", "ab", "b"}) {
+            byte[] bytes = bytes(word);
+            table.add(bytes, 0, bytes.length, 1);
+        }
+        StringBuilder keys = new StringBuilder();
+        for (int entry : table.sortedEntries()) {
+            keys.append(table.key(entry)).append(' ');
+        }
+        // En UTF-8 las letras acentuadas van después de la z
+        assertEquals("a ab b casa zeta árbol ñu ", keys.toString());
+    }
+
+    @Test
+    void clearStartsOver() {
+        WordCountTable table = new WordCountTable(new SumCombiner());
+        for (int i = 0; i < 5000; i++) {
+            byte[] bytes = bytes("w" + i);
+            table.add(bytes, 0, bytes.length, 1);
+        }
+        long grown = table.memoryUsage();
+        table.clear();
+        assertEquals(0, table.size());
+        assertTrue(table.memoryUsage() < grown);
+        byte[] casa = bytes("casa");
+        assertFalse(table.addExisting(casa, 0, casa.length, 1));
+        table.add(casa, 0, casa.length, 1);
+        assertEquals(1, table.size());
+        assertEquals("casa", table.key(0));
+        assertEquals(1, table.count(0));
+    }
+
+    private static byte[] bytes(String word) {
+        return word.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,184 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cotas del modo aproximado después de combinar sketches, como hacen Reduce y Final Reduce con los de cada Map
+class WordSketchTest {
+
+    private static final SketchSpec SPEC = new SketchSpec(20, 0.01, 0.01, 0.02);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mergedSpaceSavingKeepsItsBounds() {
+        List<String> stream = zipf(200_000, 5_000, 11);
+        Map<String, Long> truth = count(stream);
+        WordSketch merged = mergeParts(stream, 4);
+
+        assertEquals(stream.size(), merged.getTotal());
+        long bound = merged.countErrorBound();
+        assertEquals((long) Math.ceil(stream.size() / 100.0), bound);
+        List<WordSketch.Estimate> candidates = merged.topK(Integer.MAX_VALUE);
+        Set<String> found = new HashSet<>();
+        for (WordSketch.Estimate estimate : candidates) {
+            String key = new String(estimate.key, StandardCharsets.UTF_8);
+            long real = truth.getOrDefault(key, 0L);
+            // El conteo real está entre count - error y count, y nunca se sobreestima más que la cota
+            assertTrue(estimate.count - estimate.error <= real && real <= estimate.count, key + ": " + real + " fuera de " + estimate.count + " - " + estimate.error);
+            assertTrue(estimate.count - real <= bound, key);
+            found.add(key);
+        }
+        // Toda clave con más de total / contadores ocurrencias sigue entre las candidatas
+        truth.forEach((key, real) -> {
+            if (real > bound) {
+                assertTrue(found.contains(key), key + " (" + real + ") no quedó entre las candidatas");
+            }
+        });
+        // Y las más frecuentes salen en orden
+        List<WordSketch.Estimate> top = merged.topK(SPEC.getTopK());
+        assertEquals(SPEC.getTopK(), top.size());
+        assertEquals("w0", new String(top.get(0).key, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void mergedCountMinEqualsOneSketchOverEverything() {
+        CountMinSketch left = CountMinSketch.forError(0.01, 0.01);
+        CountMinSketch right = CountMinSketch.forError(0.01, 0.01);
+        CountMinSketch all = CountMinSketch.forError(0.01, 0.01);
+        List<String> stream = zipf(50_000, 2_000, 5);
+        for (int i = 0; i < stream.size(); i++) {
+            long hash = hash(stream.get(i));
+            (i % 2 == 0 ? left : right).add(hash, 1);
+            all.add(hash, 1);
+        }
+        left.merge(right);
+        Map<String, Long> truth = count(stream);
+        int overBound = 0;
+        for (Map.Entry<String, Long> entry : truth.entrySet()) {
+            long hash = hash(entry.getKey());
+            long estimate = left.estimate(hash);
+            assertEquals(all.estimate(hash), estimate);
+            assertTrue(estimate >= entry.getValue(), "Count-Min subestimó " + entry.getKey());
+            if (estimate - entry.getValue() > 0.01 * stream.size()) {
+                overBound++;
+            }
+        }
+        // Con delta = 0,01 casi ninguna clave supera epsilon * total
+        assertTrue(overBound <= truth.size() * 0.05, overBound + " claves fuera de la cota");
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new CountMinSketch(left.getWidth() + 1, left.getDepth())));
+    }
+
+    @Test
+    void mergedHyperLogLogEqualsOneSketchOverEverything() {
+        int precision = HyperLogLog.precisionFor(0.02);
+        HyperLogLog all = new HyperLogLog(precision);
+        HyperLogLog merged = new HyperLogLog(precision);
+        int distinct = 100_000;
+        for (int part = 0; part < 4; part++) {
+            HyperLogLog partial = new HyperLogLog(precision);
+            // Las partes se solapan: cada clave aparece en dos de ellas
+            for (int i = part * distinct / 4; i < part * distinct / 4 + distinct / 2; i++) {
+                long hash = hash("w" + (i % distinct));
+                partial.add(hash);
+                all.add(hash);
+            }
+            merged.merge(partial);
+        }
+        assertEquals(all.estimate(), merged.estimate());
+        double error = Math.abs(merged.estimate() - distinct) / (double) distinct;
+        assertTrue(error < 3 * merged.getRelativeError(), "error relativo " + error);
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new HyperLogLog(precision - 1)));
+    }
+
+    @Test
+    void rejectsSketchesWithOtherParameters() {
+        WordSketch sketch = SPEC.newSketch();
+        WordSketch other = new SketchSpec(20, 0.02, 0.01, 0.02).newSketch();
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(other));
+    }
+
+    @Test
+    void roundTripsThroughAFile() throws IOException {
+        List<String> stream = zipf(20_000, 1_000, 3);
+        WordSketch sketch = mergeParts(stream, 1);
+        String file = directory.resolve("map_0.sketch.bin").toString();
+        sketch.writeTo(file);
+        WordSketch read = WordSketch.readFrom(file);
+        assertEquals(sketch.getTotal(), read.getTotal());
+        assertEquals(sketch.distinctEstimate(), read.distinctEstimate());
+        List<WordSketch.Estimate> expected = sketch.topK(50);
+        List<WordSketch.Estimate> actual = read.topK(50);
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i).key, actual.get(i).key);
+            assertEquals(expected.get(i).count, actual.get(i).count);
+            assertEquals(expected.get(i).error, actual.get(i).error);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(20);
+            int b = raf.read();
+            raf.seek(20);
+            raf.write(b ^ 1);
+        }
+        IOException e = assertThrows(IOException.class, () -> WordSketch.readFrom(file));
+        assertTrue(e.getMessage().contains("CRC"), e.getMessage());
+    }
+
+    // Reparte el flujo en `parts` sketches contiguos y los combina
+    private static WordSketch mergeParts(List<String> stream, int parts) {
+        WordSketch merged = SPEC.newSketch();
+        int size = stream.size() / parts;
+        for (int part = 0; part < parts; part++) {
+            WordSketch sketch = SPEC.newSketch();
+            int end = part == parts - 1 ? stream.size() : (part + 1) * size;
+            for (String word : stream.subList(part * size, end)) {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                sketch.add(bytes, 0, bytes.length, 1);
+            }
+            merged.merge(sketch);
+        }
+        return merged;
+    }
+
+    // Palabras w0, w1, ... con frecuencia ~ 1 / (rango + 1). Cada cuarto del flujo va ordenado (uno creciente y
+    // el siguiente decreciente): las claves llegan agrupadas, que es lo que más reemplazos fuerza en Space-Saving
+    private static List<String> zipf(int size, int vocabulary, long seed) {
+        Random random = new Random(seed);
+        double[] cumulative = new double[vocabulary];
+        double total = 0;
+        for (int r = 0; r < vocabulary; r++) {
+            total += 1.0 / (r + 1);
+            cumulative[r] = total;
+        }
+        List<String> words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            words.add("w" + (index < 0 ? Math.min(-index - 1, vocabulary - 1) : index));
+        }
+        for (int block = 0; block < 4; block++) {
+            Collections.sort(words.subList(block * size / 4, (block + 1) * size / 4), block % 2 == 0 ? Comparator.naturalOrder() : Comparator.reverseOrder());
+        }
+        return words;
+    }
+
+    private static Map<String, Long> count(List<String> stream) {
+        Map<String, Long> counts = new HashMap<>();
+        for (String word : stream) {
+            counts.merge(word, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private static long hash(String word) {
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        return WordSketch.hash(bytes, 0, bytes.length);
+    }
+}